@@ -22,10 +22,20 @@
 
 package com.uber.sdk.android.core;
 
+import android.content.Context;
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.util.Log;
 
+import com.uber.sdk.android.core.auth.AccessTokenManager;
 import com.uber.sdk.rides.client.SessionConfiguration;
 
+import java.io.File;
+import java.io.IOException;
+
+import okhttp3.Cache;
+
+import static com.uber.sdk.android.core.utils.Preconditions.checkState;
 import static com.uber.sdk.rides.client.utils.Preconditions.checkNotNull;
 
 /**
@@ -35,6 +45,8 @@ public final class UberSdk {
     public static final String UBER_SDK_LOG_TAG = "UberSDK";
 
     static SessionConfiguration defaultSessionConfiguration;
+    static Cache httpCache;
+    static boolean httpCacheInUse;
 
     private UberSdk() {
     }
@@ -49,6 +61,85 @@ public final class UberSdk {
         UberSdk.defaultSessionConfiguration = defaultSessionConfiguration;
     }
 
+    /**
+     * Initializes the Uber SDK with a default {@link SessionConfiguration} and starts loading the stored access
+     * tokens in the background, so later access token reads do not block the calling thread on disk.
+     *
+     * @param defaultSessionConfiguration The {@link SessionConfiguration} to use for classes that call without specifying directly.
+     * @param context for access to the stored access tokens.
+     */
+    public synchronized static void initialize(
+            @NonNull SessionConfiguration defaultSessionConfiguration,
+            @NonNull Context context) {
+        initialize(defaultSessionConfiguration, new Options.Builder().setContext(context).build());
+    }
+
+    /**
+     * Initializes the Uber SDK with a default {@link SessionConfiguration} and a persistent HTTP response cache.
+     *
+     * @param defaultSessionConfiguration The {@link SessionConfiguration} to use for classes that call without specifying directly.
+     * @param httpCacheDirectory directory the cache is stored in, should be private to the app, e.g. in {@link android.content.Context#getCacheDir()}.
+     * @param httpCacheMaxSize maximum size of the cache in bytes.
+     * @see Options.Builder#setHttpCache(File, long)
+     */
+    public synchronized static void initialize(
+            @NonNull SessionConfiguration defaultSessionConfiguration,
+            @NonNull File httpCacheDirectory,
+            long httpCacheMaxSize) {
+        initialize(defaultSessionConfiguration,
+                new Options.Builder().setHttpCache(httpCacheDirectory, httpCacheMaxSize).build());
+    }
+
+    /**
+     * Initializes the Uber SDK with a default {@link SessionConfiguration} and the given {@link Options}. Must be
+     * called before any Uber SDK component issues requests.
+     *
+     * @throws IllegalStateException if options set a different HTTP cache than one already in use.
+     * @param defaultSessionConfiguration The {@link SessionConfiguration} to use for classes that call without specifying directly.
+     * @param options The {@link Options} to initialize with.
+     */
+    public synchronized static void initialize(
+            @NonNull SessionConfiguration defaultSessionConfiguration,
+            @NonNull Options options) {
+        checkNotNull(options, "Options must not be null.");
+
+        if (options.httpCacheDirectory != null) {
+            setHttpCache(options.httpCacheDirectory, options.httpCacheMaxSize);
+        }
+        initialize(defaultSessionConfiguration);
+        if (options.context != null) {
+            AccessTokenManager.preload(options.context);
+        }
+    }
+
+    private static void setHttpCache(@NonNull File directory, long maxSize) {
+        if (httpCache != null && httpCache.directory().equals(directory) && httpCache.maxSize() == maxSize) {
+            return;
+        }
+
+        // HTTP clients keep the cache they were built with, so closing it would fail all their requests.
+        checkState(!httpCacheInUse, "Can not replace the http cache once it is in use.");
+        if (httpCache != null) {
+            try {
+                httpCache.close();
+            } catch (IOException e) {
+                Log.w(UBER_SDK_LOG_TAG, "Could not close http cache in " + httpCache.directory(), e);
+            }
+        }
+        httpCache = new Cache(directory, maxSize);
+    }
+
+    /**
+     * Provide the persistent HTTP response cache set in {@link #initialize(SessionConfiguration, Options)}. Once
+     * provided, the cache is assumed to be used by an HTTP client and can no longer be replaced.
+     * @return the cache if set, otherwise null
+     */
+    @Nullable
+    public synchronized static Cache getHttpCache() {
+        httpCacheInUse = httpCache != null;
+        return httpCache;
+    }
+
     /**
      * Provide the default set {@link SessionConfiguration} for use in default Uber SDK Components that do not specify directly.
      * @return loginConfiguration if set, otherwise null
@@ -73,4 +164,73 @@ public final class UberSdk {
     static void validateInstance() {
         checkNotNull(defaultSessionConfiguration, "Login Configuration must be set using initialize before use");
     }
+
+    /**
+     * Optional settings for {@link #initialize(SessionConfiguration, Options)}.
+     */
+    public static final class Options {
+
+        @Nullable private final Context context;
+        @Nullable private final File httpCacheDirectory;
+        private final long httpCacheMaxSize;
+
+        private Options(@Nullable Context context, @Nullable File httpCacheDirectory, long httpCacheMaxSize) {
+            this.context = context;
+            this.httpCacheDirectory = httpCacheDirectory;
+            this.httpCacheMaxSize = httpCacheMaxSize;
+        }
+
+        /**
+         * Builder for {@link Options}.
+         */
+        public static class Builder {
+
+            @Nullable private Context context;
+            @Nullable private File httpCacheDirectory;
+            private long httpCacheMaxSize;
+
+            /**
+             * Starts loading the stored access tokens in the background on initialization, so later access token
+             * reads do not block the calling thread on disk.
+             *
+             * @param context for access to the stored access tokens.
+             * @return this instance of {@link Builder}
+             */
+            @NonNull
+            public Builder setContext(@NonNull Context context) {
+                checkNotNull(context, "Context must not be null.");
+
+                this.context = context;
+                return this;
+            }
+
+            /**
+             * Sets a persistent HTTP response cache. Estimate responses are kept in the cache across app starts, so
+             * the last known estimates can be shown without waiting on the network while they are revalidated.
+             * Replaces and closes a cache set by an earlier initialization with a different directory or size.
+             *
+             * @param directory directory the cache is stored in, should be private to the app, e.g. in
+             * {@link android.content.Context#getCacheDir()}.
+             * @param maxSize maximum size of the cache in bytes.
+             * @return this instance of {@link Builder}
+             */
+            @NonNull
+            public Builder setHttpCache(@NonNull File directory, long maxSize) {
+                checkNotNull(directory, "Http cache directory must not be null.");
+                checkState(maxSize > 0, "Http cache max size must be positive.");
+
+                this.httpCacheDirectory = directory;
+                this.httpCacheMaxSize = maxSize;
+                return this;
+            }
+
+            /**
+             * @return the {@link Options}.
+             */
+            @NonNull
+            public Options build() {
+                return new Options(context, httpCacheDirectory, httpCacheMaxSize);
+            }
+        }
+    }
 }
@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2016 Uber Technologies, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.uber.sdk.android.core.auth;
+
+import android.content.SharedPreferences;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.uber.sdk.core.auth.AccessToken;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * In-memory copy of the {@link AccessToken}s in a {@link SharedPreferences} file, shared by all
+ * {@link AccessTokenManager}s of that file. Tokens are cached per access token key, including the absence of one,
+ * and dropped whenever one of their preferences changes, except for the time their account was last used.
+ */
+class AccessTokenCache implements SharedPreferences.OnSharedPreferenceChangeListener {
+
+    /**
+     * Caches by preferences. {@link SharedPreferences} only keeps weak references to its listeners, so the caches
+     * are held strongly here and released along with their preferences.
+     */
+    private static final Map<SharedPreferences, AccessTokenCache> CACHES = new WeakHashMap<>();
+
+    @NonNull private final Map<String, AccessToken> tokens = new HashMap<>();
+    private int generation;
+
+    private AccessTokenCache() {
+    }
+
+    /**
+     * Gets the cache of sharedPreferences, creating it if needed.
+     */
+    @NonNull
+    static AccessTokenCache forPreferences(@NonNull SharedPreferences sharedPreferences) {
+        synchronized (CACHES) {
+            AccessTokenCache cache = CACHES.get(sharedPreferences);
+            if (cache == null) {
+                cache = new AccessTokenCache();
+                sharedPreferences.registerOnSharedPreferenceChangeListener(cache);
+                CACHES.put(sharedPreferences, cache);
+            }
+            return cache;
+        }
+    }
+
+    /**
+     * Gets the token of accessTokenKey, reading it with accessTokenManager if it is not cached. A token read while
+     * its preferences change is returned but not cached.
+     *
+     * @return the token, null if none is stored.
+     */
+    @Nullable
+    AccessToken get(@NonNull String accessTokenKey, @NonNull AccessTokenManager accessTokenManager) {
+        final int readGeneration;
+        synchronized (this) {
+            if (tokens.containsKey(accessTokenKey)) {
+                return tokens.get(accessTokenKey);
+            }
+            readGeneration = generation;
+        }
+
+        final AccessToken accessToken = accessTokenManager.readAccessToken();
+        synchronized (this) {
+            if (readGeneration == generation) {
+                tokens.put(accessTokenKey, accessToken);
+            }
+        }
+        return accessToken;
+    }
+
+    /**
+     * Caches accessToken as the token of accessTokenKey, null if none is stored.
+     */
+    synchronized void put(@NonNull String accessTokenKey, @Nullable AccessToken accessToken) {
+        generation++;
+        tokens.put(accessTokenKey, accessToken);
+    }
+
+    /**
+     * Drops the cached token of accessTokenKey, so it is read again on next access.
+     */
+    synchronized void invalidate(@NonNull String accessTokenKey) {
+        generation++;
+        tokens.remove(accessTokenKey);
+    }
+
+    @Override
+    public synchronized void onSharedPreferenceChanged(SharedPreferences sharedPreferences, String key) {
+        if (key != null && key.endsWith(AccessTokenManager.LAST_USED_KEY_SUFFIX)) {
+            // Recording a use of an account does not change its token.
+            return;
+        }
+
+        generation++;
+        final String accessTokenKey = key != null ? AccessTokenManager.getAccessTokenKey(key) : null;
+        if (accessTokenKey != null) {
+            tokens.remove(accessTokenKey);
+            return;
+        }
+
+        // Cleared preferences or an unknown key, drop every token to be safe.
+        tokens.clear();
+    }
+}
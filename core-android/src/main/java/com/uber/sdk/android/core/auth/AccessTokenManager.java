@@ -24,6 +24,7 @@ package com.uber.sdk.android.core.auth;
 
 import android.content.Context;
 import android.content.SharedPreferences;
+import android.os.Process;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import android.support.annotation.VisibleForTesting;
@@ -35,6 +36,7 @@ import com.uber.sdk.core.auth.Scope;
 
 import java.util.Collection;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
 
 /**
  * Manages the storage of {@link AccessToken}s.
@@ -42,16 +44,30 @@ import java.util.Set;
 public class AccessTokenManager implements AccessTokenStorage {
 
     public static final String ACCESS_TOKEN_DEFAULT_KEY = "defaultAccessToken";
-    private static final String ACCESS_TOKEN_SHARED_PREFERENCES = "uberSdkAccessTokenConfig";
+    static final String ACCESS_TOKEN_SHARED_PREFERENCES = "uberSdkAccessTokenConfig";
     private static final String DATE_KEY_SUFFIX = "_date";
     private static final String EXPIRED_EMPTY_LOGGED_IN_COOKIE = "logged_in=;expires=Thu, 01 Jan 1970 00:00:01 GMT";
     private static final String EXPIRED_EMPTY_SESSION_COOKIE = "session=;expires=Thu, 01 Jan 1970 00:00:01 GMT";
     private static final String LOGIN_COOKIE_URL = "https://.login.uber.com";
-    private static final String TOKEN_KEY_SUFFIX = "_token";
+    static final String TOKEN_KEY_SUFFIX = "_token";
     private static final String REFRESH_TOKEN_KEY_SUFFIX = "_refresh_token";
     private static final String TOKEN_TYPE_KEY_SUFFIX = "_token_type";
     private static final String SCOPES_KEY_SUFFIX = "_scopes";
+    private static final String CHECKSUM_KEY_SUFFIX = "_checksum";
+    static final String LAST_USED_KEY_SUFFIX = "_last_used";
     private static final String UBER_COOKIE_URL = ".uber.com.cn";
+    private static final String[] KEY_SUFFIXES = {
+            REFRESH_TOKEN_KEY_SUFFIX,
+            TOKEN_TYPE_KEY_SUFFIX,
+            TOKEN_KEY_SUFFIX,
+            SCOPES_KEY_SUFFIX,
+            DATE_KEY_SUFFIX,
+            CHECKSUM_KEY_SUFFIX,
+            LAST_USED_KEY_SUFFIX
+    };
+
+    @Nullable
+    private static volatile CountDownLatch preloadLatch;
 
     @NonNull
     private final SharedPreferences sharedPreferences;
@@ -62,6 +78,12 @@ public class AccessTokenManager implements AccessTokenStorage {
     @NonNull
     private final String accessTokenKey;
 
+    @NonNull
+    private final String tokenPreferenceKey;
+
+    @NonNull
+    private final AccessTokenCache accessTokenCache;
+
     /**
      *
      * @param context for access {@link SharedPreferences} to save {@link AccessToken}
@@ -94,20 +116,94 @@ public class AccessTokenManager implements AccessTokenStorage {
                 .getSharedPreferences(ACCESS_TOKEN_SHARED_PREFERENCES, Context.MODE_PRIVATE);
         cookieUtils = cookieManagerUtil;
         this.accessTokenKey = accessTokenKey;
+        tokenPreferenceKey = accessTokenKey + TOKEN_KEY_SUFFIX;
+        accessTokenCache = AccessTokenCache.forPreferences(sharedPreferences);
     }
 
     /**
-     * Gets an {@link AccessToken} stored.
+     * Gets an {@link AccessToken} stored. The token is kept in memory until it is changed, so repeated calls do not
+     * read the {@link SharedPreferences}.
      */
     @Override
     @Nullable
     public AccessToken getAccessToken() {
+        awaitPreload();
+        final AccessToken accessToken = accessTokenCache.get(accessTokenKey, this);
+        if (accessToken != null && !sharedPreferences.contains(tokenPreferenceKey)) {
+            // Clearing preferences does not notify listeners before API 30.
+            accessTokenCache.invalidate(accessTokenKey);
+            return null;
+        }
+        return accessToken;
+    }
+
+    /**
+     * Starts loading the stored access tokens and the {@link AccessToken} of the default key on a background thread,
+     * so the first {@link #getAccessToken()} does not read from disk on the calling thread. Until the load is done,
+     * {@link #getAccessToken()} waits for it. Called by
+     * {@link com.uber.sdk.android.core.UberSdk#initialize(com.uber.sdk.rides.client.SessionConfiguration, Context)}.
+     *
+     * @param context for access to {@link SharedPreferences}
+     */
+    public static synchronized void preload(@NonNull Context context) {
+        if (preloadLatch != null && preloadLatch.getCount() > 0) {
+            return;
+        }
+
+        final Context applicationContext = context.getApplicationContext();
+        final CountDownLatch latch = new CountDownLatch(1);
+        preloadLatch = latch;
+
+        new Thread(new Runnable() {
+            @Override
+            public void run() {
+                Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                try {
+                    final AccessTokenManager accessTokenManager = new AccessTokenManager(applicationContext);
+                    accessTokenManager.accessTokenCache.get(accessTokenManager.accessTokenKey, accessTokenManager);
+                } finally {
+                    latch.countDown();
+                }
+            }
+        }, "UberSdk-AccessTokenPreload").start();
+    }
+
+    /**
+     * Waits for a load started by {@link #preload(Context)}, if any is running.
+     */
+    @VisibleForTesting
+    static void awaitPreload() {
+        final CountDownLatch latch = preloadLatch;
+        if (latch == null || latch.getCount() == 0) {
+            return;
+        }
+
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Reads the {@link AccessToken} stored in the {@link SharedPreferences}.
+     */
+    @Nullable
+    AccessToken readAccessToken() {
+        return readAccessToken(sharedPreferences, accessTokenKey);
+    }
 
+    /**
+     * Reads the {@link AccessToken} stored under accessTokenKey in sharedPreferences.
+     */
+    @Nullable
+    static AccessToken readAccessToken(@NonNull SharedPreferences sharedPreferences, @NonNull String accessTokenKey) {
         long expiresIn;
         String token;
         Set<String> scopesString;
         String refreshToken;
         String tokenType;
+        int checksum;
 
         try {
             expiresIn = sharedPreferences.getLong(accessTokenKey + DATE_KEY_SUFFIX, -1);
@@ -115,6 +211,7 @@ public class AccessTokenManager implements AccessTokenStorage {
             scopesString = sharedPreferences.getStringSet(accessTokenKey + SCOPES_KEY_SUFFIX, null);
             refreshToken = sharedPreferences.getString(accessTokenKey + REFRESH_TOKEN_KEY_SUFFIX, null);
             tokenType = sharedPreferences.getString(accessTokenKey + TOKEN_TYPE_KEY_SUFFIX, null);
+            checksum = sharedPreferences.getInt(accessTokenKey + CHECKSUM_KEY_SUFFIX, 0);
         } catch (ClassCastException ignored) {
             return null;
         }
@@ -124,6 +221,12 @@ public class AccessTokenManager implements AccessTokenStorage {
             return null;
         }
 
+        if (sharedPreferences.contains(accessTokenKey + CHECKSUM_KEY_SUFFIX)
+                && checksum != checksum(expiresIn, token, scopesString, refreshToken, tokenType)) {
+            // Fields from different tokens, e.g. after an interrupted write by an older version, are unsaved.
+            return null;
+        }
+
         Collection<Scope> scopes;
         try {
             scopes = AuthUtils.stringCollectionToScopeCollection(scopesString);
@@ -140,26 +243,93 @@ public class AccessTokenManager implements AccessTokenStorage {
     @Override
     public void removeAccessToken() {
         cookieUtils.clearUberCookies();
+        removeStoredAccessToken();
+    }
 
-        sharedPreferences.edit().remove(accessTokenKey + DATE_KEY_SUFFIX).apply();
-        sharedPreferences.edit().remove(accessTokenKey + TOKEN_KEY_SUFFIX).apply();
-        sharedPreferences.edit().remove(accessTokenKey + SCOPES_KEY_SUFFIX).apply();
-        sharedPreferences.edit().remove(accessTokenKey + REFRESH_TOKEN_KEY_SUFFIX).apply();
-        sharedPreferences.edit().remove(accessTokenKey + TOKEN_TYPE_KEY_SUFFIX).apply();
+    /**
+     * Removes the {@link AccessToken} from the {@link SharedPreferences}, keeping the login cookies.
+     */
+    void removeStoredAccessToken() {
+        removeAccessToken(sharedPreferences.edit(), accessTokenKey).apply();
+        accessTokenCache.put(accessTokenKey, null);
     }
 
     /**
-     * Stores the {@link AccessToken}.
+     * Removes all fields of the {@link AccessToken} stored under accessTokenKey with editor.
      *
+     * @return editor, to chain more changes to the same transaction.
+     */
+    @NonNull
+    static SharedPreferences.Editor removeAccessToken(
+            @NonNull SharedPreferences.Editor editor,
+            @NonNull String accessTokenKey) {
+        for (String keySuffix : KEY_SUFFIXES) {
+            editor.remove(accessTokenKey + keySuffix);
+        }
+        return editor;
+    }
+
+    /**
+     * Stores the {@link AccessToken}. All fields are written in one transaction along with a checksum, so a token
+     * is never read back with fields of another.
      */
     @Override
     public void setAccessToken(@NonNull AccessToken accessToken) {
-        sharedPreferences.edit().putLong(accessTokenKey + DATE_KEY_SUFFIX, accessToken.getExpiresIn()).apply();
-        sharedPreferences.edit().putString(accessTokenKey + TOKEN_KEY_SUFFIX, accessToken.getToken()).apply();
-        sharedPreferences.edit().putStringSet(accessTokenKey + SCOPES_KEY_SUFFIX,
-                AuthUtils.scopeCollectionToStringSet(accessToken.getScopes())).apply();
-        sharedPreferences.edit().putString(accessTokenKey + REFRESH_TOKEN_KEY_SUFFIX, accessToken.getRefreshToken()).apply();
-        sharedPreferences.edit().putString(accessTokenKey + TOKEN_TYPE_KEY_SUFFIX, accessToken.getTokenType()).apply();
+        putAccessToken(sharedPreferences.edit(), accessTokenKey, accessToken).apply();
+        accessTokenCache.put(accessTokenKey, accessToken);
+    }
+
+    /**
+     * Puts all fields of accessToken under accessTokenKey with editor, along with their checksum.
+     *
+     * @return editor, to chain more changes to the same transaction.
+     */
+    @NonNull
+    static SharedPreferences.Editor putAccessToken(
+            @NonNull SharedPreferences.Editor editor,
+            @NonNull String accessTokenKey,
+            @NonNull AccessToken accessToken) {
+        final Set<String> scopes = AuthUtils.scopeCollectionToStringSet(accessToken.getScopes());
+
+        return editor
+                .putLong(accessTokenKey + DATE_KEY_SUFFIX, accessToken.getExpiresIn())
+                .putString(accessTokenKey + TOKEN_KEY_SUFFIX, accessToken.getToken())
+                .putStringSet(accessTokenKey + SCOPES_KEY_SUFFIX, scopes)
+                .putString(accessTokenKey + REFRESH_TOKEN_KEY_SUFFIX, accessToken.getRefreshToken())
+                .putString(accessTokenKey + TOKEN_TYPE_KEY_SUFFIX, accessToken.getTokenType())
+                .putInt(accessTokenKey + CHECKSUM_KEY_SUFFIX, checksum(accessToken.getExpiresIn(),
+                        accessToken.getToken(), scopes, accessToken.getRefreshToken(), accessToken.getTokenType()));
+    }
+
+    /**
+     * @return the access token key that key of sharedPreferences belongs to, null if it is no access token field.
+     */
+    @Nullable
+    static String getAccessTokenKey(@NonNull String key) {
+        for (String keySuffix : KEY_SUFFIXES) {
+            if (key.endsWith(keySuffix)) {
+                return key.substring(0, key.length() - keySuffix.length());
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return a checksum of the stored fields of a token. The hash code of the scopes does not depend on their order.
+     */
+    @VisibleForTesting
+    static int checksum(
+            long expiresIn,
+            @Nullable String token,
+            @NonNull Set<String> scopes,
+            @Nullable String refreshToken,
+            @Nullable String tokenType) {
+        int result = (int) (expiresIn ^ (expiresIn >>> 32));
+        result = 31 * result + (token != null ? token.hashCode() : 0);
+        result = 31 * result + scopes.hashCode();
+        result = 31 * result + (refreshToken != null ? refreshToken.hashCode() : 0);
+        result = 31 * result + (tokenType != null ? tokenType.hashCode() : 0);
+        return result;
     }
 
     @VisibleForTesting
@@ -0,0 +1,280 @@
+/*
+ * Copyright (c) 2016 Uber Technologies, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.uber.sdk.android.core.auth;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.VisibleForTesting;
+
+import com.uber.sdk.core.auth.AccessToken;
+import com.uber.sdk.core.auth.AccessTokenStorage;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static com.uber.sdk.android.core.utils.Preconditions.checkState;
+
+/**
+ * Stores the {@link AccessToken}s of several accounts, e.g. one per profile on the device. Accounts are the access
+ * token keys of {@link AccessTokenManager} and share its storage, so a token set through either is seen by both.
+ * <p>
+ * All tokens are loaded in one pass on first access and then looked up by account in constant time. Accounts are
+ * ordered by use, so the least recently used ones can be evicted. The order is kept across app starts by storing
+ * when an account was last set or first read in each process.
+ */
+public class AccessTokenStore implements SharedPreferences.OnSharedPreferenceChangeListener {
+
+    @NonNull private final SharedPreferences sharedPreferences;
+    @NonNull private final AccessTokenCache accessTokenCache;
+    @NonNull private final Clock clock;
+
+    /**
+     * Tokens by account, iterated from least to most recently used.
+     */
+    @NonNull private final LinkedHashMap<String, AccessToken> tokens = new LinkedHashMap<>(16, 0.75f, true);
+    @NonNull private final Set<String> usedAccounts = new HashSet<>();
+    private boolean loaded;
+
+    /**
+     * @param context for access to the {@link SharedPreferences} of {@link AccessTokenManager}.
+     */
+    public AccessTokenStore(@NonNull Context context) {
+        this(context.getApplicationContext().getSharedPreferences(
+                AccessTokenManager.ACCESS_TOKEN_SHARED_PREFERENCES, Context.MODE_PRIVATE), Clock.SYSTEM);
+    }
+
+    @VisibleForTesting
+    AccessTokenStore(@NonNull SharedPreferences sharedPreferences, @NonNull Clock clock) {
+        this.sharedPreferences = sharedPreferences;
+        this.accessTokenCache = AccessTokenCache.forPreferences(sharedPreferences);
+        this.clock = clock;
+        sharedPreferences.registerOnSharedPreferenceChangeListener(this);
+    }
+
+    /**
+     * Gets the {@link AccessToken} of account and marks account as most recently used.
+     *
+     * @return the token, null if none is stored.
+     */
+    @Nullable
+    public synchronized AccessToken getAccessToken(@NonNull String account) {
+        load();
+        AccessToken accessToken = tokens.get(account);
+        if (accessToken != null && !sharedPreferences.contains(account + AccessTokenManager.TOKEN_KEY_SUFFIX)) {
+            // Clearing preferences does not notify listeners before API 30.
+            loaded = false;
+            load();
+            accessToken = tokens.get(account);
+        }
+        if (accessToken != null && usedAccounts.add(account)) {
+            sharedPreferences.edit().putLong(account + AccessTokenManager.LAST_USED_KEY_SUFFIX, clock.now()).apply();
+        }
+        return accessToken;
+    }
+
+    /**
+     * Stores the {@link AccessToken} of account and marks account as most recently used.
+     */
+    public synchronized void setAccessToken(@NonNull String account, @NonNull AccessToken accessToken) {
+        load();
+        AccessTokenManager.putAccessToken(sharedPreferences.edit(), account, accessToken)
+                .putLong(account + AccessTokenManager.LAST_USED_KEY_SUFFIX, clock.now())
+                .apply();
+        usedAccounts.add(account);
+        tokens.put(account, accessToken);
+        accessTokenCache.put(account, accessToken);
+    }
+
+    /**
+     * Removes the {@link AccessToken} of account, leaving other accounts untouched. Unlike
+     * {@link AccessTokenManager#removeAccessToken()} the login cookies are kept, as they are shared by all accounts.
+     */
+    public synchronized void removeAccessToken(@NonNull String account) {
+        load();
+        AccessTokenManager.removeAccessToken(sharedPreferences.edit(), account).apply();
+        usedAccounts.remove(account);
+        tokens.remove(account);
+        accessTokenCache.put(account, null);
+    }
+
+    /**
+     * @return the accounts with a stored token, from least to most recently used.
+     */
+    @NonNull
+    public synchronized List<String> getAccounts() {
+        load();
+        return Collections.unmodifiableList(new ArrayList<>(tokens.keySet()));
+    }
+
+    /**
+     * Removes the tokens of the least recently used accounts in one transaction until at most maxAccounts are left.
+     *
+     * @return the evicted accounts, from least to most recently used.
+     */
+    @NonNull
+    public synchronized List<String> evictLeastRecentlyUsed(int maxAccounts) {
+        checkState(maxAccounts >= 0, "Max accounts must not be negative.");
+        load();
+
+        final List<String> evicted = new ArrayList<>();
+        final SharedPreferences.Editor editor = sharedPreferences.edit();
+        final Iterator<String> accounts = tokens.keySet().iterator();
+        while (tokens.size() > maxAccounts && accounts.hasNext()) {
+            final String account = accounts.next();
+            AccessTokenManager.removeAccessToken(editor, account);
+            accounts.remove();
+            usedAccounts.remove(account);
+            accessTokenCache.put(account, null);
+            evicted.add(account);
+        }
+
+        if (!evicted.isEmpty()) {
+            editor.apply();
+        }
+        return evicted;
+    }
+
+    /**
+     * @return an {@link AccessTokenStorage} of the token of account, e.g. to create a session for it.
+     */
+    @NonNull
+    public AccessTokenStorage getAccessTokenStorage(@NonNull final String account) {
+        return new AccessTokenStorage() {
+            @Override
+            public AccessToken getAccessToken() {
+                return AccessTokenStore.this.getAccessToken(account);
+            }
+
+            @Override
+            public void removeAccessToken() {
+                AccessTokenStore.this.removeAccessToken(account);
+            }
+
+            @Override
+            public void setAccessToken(AccessToken accessToken) {
+                AccessTokenStore.this.setAccessToken(account, accessToken);
+            }
+        };
+    }
+
+    /**
+     * Keeps loaded tokens in sync with changes made through {@link AccessTokenManager} or other stores.
+     */
+    @Override
+    public synchronized void onSharedPreferenceChanged(SharedPreferences sharedPreferences, String key) {
+        if (!loaded) {
+            return;
+        }
+
+        final String account = key != null ? AccessTokenManager.getAccessTokenKey(key) : null;
+        if (account == null) {
+            loaded = false;
+            return;
+        }
+
+        if (key.endsWith(AccessTokenManager.LAST_USED_KEY_SUFFIX)) {
+            return;
+        }
+
+        final AccessToken accessToken = AccessTokenManager.readAccessToken(sharedPreferences, account);
+        if (accessToken == null) {
+            tokens.remove(account);
+        } else {
+            // A token set elsewhere counts as a use of its account.
+            tokens.put(account, accessToken);
+        }
+    }
+
+    /**
+     * Loads all tokens with a single scan of the stored keys, ordered by when they were last used.
+     */
+    private void load() {
+        if (loaded) {
+            return;
+        }
+
+        final Set<String> accounts = new HashSet<>();
+        for (String key : sharedPreferences.getAll().keySet()) {
+            final String account = AccessTokenManager.getAccessTokenKey(key);
+            if (account != null) {
+                accounts.add(account);
+            }
+        }
+
+        final Map<String, Long> lastUsed = new HashMap<>();
+        final List<String> ordered = new ArrayList<>();
+        for (String account : accounts) {
+            try {
+                lastUsed.put(account,
+                        sharedPreferences.getLong(account + AccessTokenManager.LAST_USED_KEY_SUFFIX, 0));
+            } catch (ClassCastException ignored) {
+                lastUsed.put(account, 0L);
+            }
+            ordered.add(account);
+        }
+        Collections.sort(ordered, new Comparator<String>() {
+            @Override
+            public int compare(String first, String second) {
+                final long firstUsed = lastUsed.get(first);
+                final long secondUsed = lastUsed.get(second);
+                return firstUsed < secondUsed ? -1 : (firstUsed == secondUsed ? first.compareTo(second) : 1);
+            }
+        });
+
+        tokens.clear();
+        for (String account : ordered) {
+            final AccessToken accessToken = AccessTokenManager.readAccessToken(sharedPreferences, account);
+            if (accessToken != null) {
+                tokens.put(account, accessToken);
+            }
+        }
+        loaded = true;
+    }
+
+    /**
+     * Source of the time accounts are used at.
+     */
+    @VisibleForTesting
+    interface Clock {
+
+        Clock SYSTEM = new Clock() {
+            @Override
+            public long now() {
+                return System.currentTimeMillis();
+            }
+        };
+
+        long now();
+    }
+}
@@ -0,0 +1,360 @@
+/*
+ * Copyright (c) 2016 Uber Technologies, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.uber.sdk.android.core.auth;
+
+import android.content.Context;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.VisibleForTesting;
+import android.util.Log;
+
+import com.uber.sdk.android.core.UberSdk;
+import com.uber.sdk.core.auth.AccessToken;
+import com.uber.sdk.core.auth.AccessTokenStorage;
+import com.uber.sdk.core.auth.Scope;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * {@link AccessTokenStorage} that keeps each {@link AccessToken} in a small binary file, read in a single call on
+ * first access instead of parsing the shared preferences XML. Scopes are stored as a bitmask over a table of
+ * {@link Scope} names written in the file, so files stay readable when scopes are added, removed or reordered. A
+ * token still stored by {@link AccessTokenManager} under the same key is moved to the file whenever the file is
+ * missing or corrupt.
+ * <p>
+ * Use one instance per token.
+ */
+public class FileAccessTokenStorage implements AccessTokenStorage {
+
+    private static final String FILE_PREFIX = "uber_sdk_access_token_";
+    private static final String TEMP_FILE_SUFFIX = ".tmp";
+
+    @VisibleForTesting
+    static final byte VERSION = 2;
+    private static final String[] SCOPE_NAMES = scopeNames(Scope.values());
+    private static final int MAX_FILE_LENGTH = 64 * 1024;
+    private static final int CHECKSUM_LENGTH = 4;
+
+    @NonNull private final File file;
+    @NonNull private final AccessTokenManager legacyStorage;
+
+    private boolean loaded;
+    @Nullable private AccessToken accessToken;
+
+    /**
+     * @param context for access to the files directory.
+     */
+    public FileAccessTokenStorage(@NonNull Context context) {
+        this(context, AccessTokenManager.ACCESS_TOKEN_DEFAULT_KEY);
+    }
+
+    /**
+     * @param context for access to the files directory.
+     * @param accessTokenKey key of the token, also used to migrate a token stored by {@link AccessTokenManager}.
+     */
+    public FileAccessTokenStorage(@NonNull Context context, @NonNull String accessTokenKey) {
+        this(getFile(context, accessTokenKey), new AccessTokenManager(context, accessTokenKey));
+    }
+
+    @VisibleForTesting
+    FileAccessTokenStorage(@NonNull File file, @NonNull AccessTokenManager legacyStorage) {
+        this.file = file;
+        this.legacyStorage = legacyStorage;
+    }
+
+    /**
+     * Gets the {@link AccessToken} stored, reading the file on first access.
+     */
+    @Override
+    @Nullable
+    public synchronized AccessToken getAccessToken() {
+        if (!loaded) {
+            accessToken = load();
+            loaded = true;
+        }
+        return accessToken;
+    }
+
+    /**
+     * Removes the {@link AccessToken} stored.
+     */
+    @Override
+    public synchronized void removeAccessToken() {
+        legacyStorage.removeAccessToken();
+        if (file.exists() && !file.delete()) {
+            Log.w(UberSdk.UBER_SDK_LOG_TAG, "Could not delete " + file);
+        }
+        accessToken = null;
+        loaded = true;
+    }
+
+    /**
+     * Stores the {@link AccessToken}, replacing the file atomically.
+     */
+    @Override
+    public synchronized void setAccessToken(@NonNull AccessToken accessToken) {
+        try {
+            write(encode(accessToken));
+        } catch (IOException e) {
+            Log.e(UberSdk.UBER_SDK_LOG_TAG, "Could not store access token in " + file, e);
+        }
+        this.accessToken = accessToken;
+        loaded = true;
+    }
+
+    @Nullable
+    private AccessToken load() {
+        if (!file.exists()) {
+            return migrate();
+        }
+
+        final byte[] bytes;
+        try {
+            bytes = read();
+        } catch (IOException e) {
+            Log.w(UberSdk.UBER_SDK_LOG_TAG, "Could not read access token from " + file, e);
+            return null;
+        }
+
+        final AccessToken storedToken = decode(bytes);
+        if (storedToken == null) {
+            Log.w(UberSdk.UBER_SDK_LOG_TAG, "Ignoring corrupt access token in " + file);
+            return migrate();
+        }
+        return storedToken;
+    }
+
+    /**
+     * Moves a token stored by {@link AccessTokenManager} to the file.
+     */
+    @Nullable
+    private AccessToken migrate() {
+        final AccessToken legacyToken = legacyStorage.readAccessToken();
+        if (legacyToken == null) {
+            return null;
+        }
+
+        try {
+            write(encode(legacyToken));
+            legacyStorage.removeStoredAccessToken();
+        } catch (IOException e) {
+            Log.w(UberSdk.UBER_SDK_LOG_TAG, "Could not migrate access token to " + file, e);
+        }
+        return legacyToken;
+    }
+
+    @NonNull
+    private byte[] read() throws IOException {
+        final RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+        try {
+            final long length = randomAccessFile.length();
+            if (length > MAX_FILE_LENGTH) {
+                throw new IOException("Access token file too large: " + length);
+            }
+
+            final byte[] bytes = new byte[(int) length];
+            randomAccessFile.readFully(bytes);
+            return bytes;
+        } finally {
+            randomAccessFile.close();
+        }
+    }
+
+    private void write(@NonNull byte[] bytes) throws IOException {
+        final File tempFile = new File(file.getPath() + TEMP_FILE_SUFFIX);
+        final FileOutputStream outputStream = new FileOutputStream(tempFile);
+        try {
+            outputStream.write(bytes);
+            outputStream.getFD().sync();
+        } finally {
+            outputStream.close();
+        }
+
+        if (!tempFile.renameTo(file)) {
+            tempFile.delete();
+            throw new IOException("Could not rename " + tempFile + " to " + file);
+        }
+    }
+
+    @VisibleForTesting
+    @NonNull
+    static byte[] encode(@NonNull AccessToken accessToken) throws IOException {
+        return encode(accessToken, SCOPE_NAMES);
+    }
+
+    /**
+     * Encodes accessToken as the version, scope name table, expiry, scope bitmask over the table, token, optional
+     * refresh token and token type, followed by a CRC32 of all preceding bytes.
+     */
+    @VisibleForTesting
+    @NonNull
+    static byte[] encode(@NonNull AccessToken accessToken, @NonNull String[] scopeNames) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final DataOutputStream output = new DataOutputStream(bytes);
+
+        output.writeByte(VERSION);
+        output.writeByte(scopeNames.length);
+        for (String scopeName : scopeNames) {
+            output.writeUTF(scopeName);
+        }
+        output.writeLong(accessToken.getExpiresIn());
+        output.writeLong(scopesToBitmask(accessToken.getScopes(), scopeNames));
+        output.writeUTF(accessToken.getToken());
+        writeNullableUTF(output, accessToken.getRefreshToken());
+        writeNullableUTF(output, accessToken.getTokenType());
+
+        final CRC32 crc = new CRC32();
+        crc.update(bytes.toByteArray());
+        output.writeInt((int) crc.getValue());
+        output.flush();
+        return bytes.toByteArray();
+    }
+
+    /**
+     * @return the token encoded in bytes, null if bytes are corrupt or of an unknown version.
+     */
+    @VisibleForTesting
+    @Nullable
+    static AccessToken decode(@NonNull byte[] bytes) {
+        if (bytes.length <= CHECKSUM_LENGTH || bytes[0] != VERSION) {
+            return null;
+        }
+
+        final CRC32 crc = new CRC32();
+        crc.update(bytes, 0, bytes.length - CHECKSUM_LENGTH);
+
+        final DataInputStream input = new DataInputStream(new ByteArrayInputStream(bytes));
+        try {
+            input.readByte();
+            final String[] scopeNames = new String[input.readUnsignedByte()];
+            for (int i = 0; i < scopeNames.length; i++) {
+                scopeNames[i] = input.readUTF();
+            }
+            final long expiresIn = input.readLong();
+            final Collection<Scope> scopes = bitmaskToScopes(input.readLong(), scopeNames);
+            final String token = input.readUTF();
+            final String refreshToken = readNullableUTF(input);
+            final String tokenType = readNullableUTF(input);
+            if (input.readInt() != (int) crc.getValue() || scopes == null) {
+                return null;
+            }
+
+            return new AccessToken(expiresIn, scopes, token, refreshToken, tokenType);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    @VisibleForTesting
+    static long scopesToBitmask(@NonNull Collection<Scope> scopes, @NonNull String[] scopeNames) {
+        long bitmask = 0;
+        for (Scope scope : scopes) {
+            final int index = Arrays.asList(scopeNames).indexOf(scope.name());
+            if (index < 0 || index >= Long.SIZE) {
+                throw new IllegalStateException("Scope " + scope + " does not fit in the scope bitmask.");
+            }
+            bitmask |= 1L << index;
+        }
+        return bitmask;
+    }
+
+    /**
+     * @return the scopes of bitmask over scopeNames, null if it contains an index past the table. Scope names no
+     * longer known are dropped.
+     */
+    @VisibleForTesting
+    @Nullable
+    static Collection<Scope> bitmaskToScopes(long bitmask, @NonNull String[] scopeNames) {
+        final List<Scope> scopes = new ArrayList<>(Long.bitCount(bitmask));
+        for (int index = 0; index < Long.SIZE; index++) {
+            if ((bitmask & (1L << index)) == 0) {
+                continue;
+            }
+            if (index >= scopeNames.length) {
+                return null;
+            }
+            final Scope scope = findScope(scopeNames[index]);
+            if (scope != null) {
+                scopes.add(scope);
+            }
+        }
+        return scopes;
+    }
+
+    @Nullable
+    private static Scope findScope(@NonNull String name) {
+        for (Scope scope : Scope.values()) {
+            if (scope.name().equals(name)) {
+                return scope;
+            }
+        }
+        return null;
+    }
+
+    @NonNull
+    private static String[] scopeNames(@NonNull Scope[] scopes) {
+        final String[] names = new String[scopes.length];
+        for (int i = 0; i < scopes.length; i++) {
+            names[i] = scopes[i].name();
+        }
+        return names;
+    }
+
+    private static void writeNullableUTF(@NonNull DataOutputStream output, @Nullable String value)
+            throws IOException {
+        output.writeBoolean(value != null);
+        if (value != null) {
+            output.writeUTF(value);
+        }
+    }
+
+    @Nullable
+    private static String readNullableUTF(@NonNull DataInputStream input) throws IOException {
+        return input.readBoolean() ? input.readUTF() : null;
+    }
+
+    @NonNull
+    private static File getFile(@NonNull Context context, @NonNull String accessTokenKey) {
+        try {
+            return new File(context.getApplicationContext().getFilesDir(),
+                    FILE_PREFIX + URLEncoder.encode(accessTokenKey, "UTF-8"));
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
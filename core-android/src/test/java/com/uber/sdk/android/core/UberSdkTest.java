@@ -25,16 +25,32 @@ package com.uber.sdk.android.core;
 import com.uber.sdk.rides.client.SessionConfiguration;
 
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.robolectric.RuntimeEnvironment;
 
+import java.io.File;
+
+import okhttp3.Cache;
+
+import static junit.framework.Assert.assertEquals;
 import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertSame;
 import static junit.framework.Assert.assertTrue;
+import static junit.framework.Assert.fail;
 
 public class UberSdkTest extends RobolectricTestBase {
 
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
     @Before
     public void setup() {
         UberSdk.defaultSessionConfiguration = null;
+        UberSdk.httpCache = null;
+        UberSdk.httpCacheInUse = false;
     }
 
     @Test(expected = NullPointerException.class)
@@ -56,4 +72,86 @@ public class UberSdkTest extends RobolectricTestBase {
         UberSdk.initialize(new SessionConfiguration.Builder().setClientId("clientId").build());
         assertTrue(UberSdk.isInitialized());
     }
+
+    @Test
+    public void initialize_whenContextPassed_shouldSetDefaultSessionConfiguration() {
+        SessionConfiguration configuration = new SessionConfiguration.Builder().setClientId("clientId").build();
+
+        UberSdk.initialize(configuration, RuntimeEnvironment.application);
+
+        assertSame(configuration, UberSdk.getDefaultSessionConfiguration());
+    }
+
+    @Test
+    public void getHttpCache_whenInitializedWithoutCache_shouldReturnNull() {
+        UberSdk.initialize(new SessionConfiguration.Builder().setClientId("clientId").build());
+        assertNull(UberSdk.getHttpCache());
+    }
+
+    @Test
+    public void getHttpCache_whenInitializedWithCache_shouldUseDirectoryAndSize() throws Exception {
+        File directory = temporaryFolder.newFolder();
+        UberSdk.initialize(new SessionConfiguration.Builder().setClientId("clientId").build(), directory, 1024);
+
+        assertEquals(directory, UberSdk.getHttpCache().directory());
+        assertEquals(1024, UberSdk.getHttpCache().maxSize());
+    }
+
+    @Test
+    public void getHttpCache_whenInitializedTwiceWithSameCache_shouldReuseCache() throws Exception {
+        File directory = temporaryFolder.newFolder();
+        UberSdk.initialize(new SessionConfiguration.Builder().setClientId("clientId").build(), directory, 1024);
+        Cache cache = UberSdk.getHttpCache();
+
+        UberSdk.initialize(new SessionConfiguration.Builder().setClientId("clientId").build(), directory, 1024);
+
+        assertSame(cache, UberSdk.getHttpCache());
+    }
+
+    @Test
+    public void getHttpCache_whenInitializedAgainWithDifferentSizeBeforeUse_shouldCloseOldCache() throws Exception {
+        File directory = temporaryFolder.newFolder();
+        UberSdk.initialize(new SessionConfiguration.Builder().setClientId("clientId").build(), directory, 1024);
+        Cache cache = UberSdk.httpCache;
+
+        UberSdk.initialize(new SessionConfiguration.Builder().setClientId("clientId").build(), directory, 2048);
+
+        assertTrue(cache.isClosed());
+        assertEquals(2048, UberSdk.getHttpCache().maxSize());
+    }
+
+    @Test
+    public void initialize_whenDifferentHttpCacheAfterUse_shouldThrowAndKeepCache() throws Exception {
+        File directory = temporaryFolder.newFolder();
+        UberSdk.initialize(new SessionConfiguration.Builder().setClientId("clientId").build(), directory, 1024);
+        Cache cache = UberSdk.getHttpCache();
+
+        try {
+            UberSdk.initialize(new SessionConfiguration.Builder().setClientId("clientId").build(), directory, 2048);
+            fail("Expected IllegalStateException");
+        } catch (IllegalStateException e) {
+            assertFalse(cache.isClosed());
+            assertSame(cache, UberSdk.getHttpCache());
+        }
+    }
+
+    @Test
+    public void initialize_whenOptionsWithContextAndHttpCache_shouldSetBoth() throws Exception {
+        SessionConfiguration configuration = new SessionConfiguration.Builder().setClientId("clientId").build();
+        File directory = temporaryFolder.newFolder();
+
+        UberSdk.initialize(configuration, new UberSdk.Options.Builder()
+                .setContext(RuntimeEnvironment.application)
+                .setHttpCache(directory, 1024)
+                .build());
+
+        assertSame(configuration, UberSdk.getDefaultSessionConfiguration());
+        assertEquals(directory, UberSdk.getHttpCache().directory());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void initialize_whenHttpCacheSizeNotPositive_shouldThrowException() throws Exception {
+        UberSdk.initialize(new SessionConfiguration.Builder().setClientId("clientId").build(),
+                temporaryFolder.newFolder(), 0);
+    }
 }
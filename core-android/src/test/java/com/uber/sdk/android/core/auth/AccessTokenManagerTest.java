@@ -36,7 +36,9 @@ import org.robolectric.RuntimeEnvironment;
 import java.util.Set;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
@@ -266,6 +268,145 @@ public class AccessTokenManagerTest extends RobolectricTestBase {
         assertAccessTokensEqual(ACCESS_TOKEN_SECOND, tokenPreferences.getAccessToken(CUSTOM_ACCESS_TOKEN_KEY));
     }
 
+    @Test
+    public void getAccessToken_whenCalledRepeatedly_shouldReturnCachedToken() {
+        tokenPreferences.setAccessToken(ACCESS_TOKEN_FIRST);
+
+        AccessToken accessToken = accessTokenManager.getAccessToken();
+
+        assertAccessTokensEqual(ACCESS_TOKEN_FIRST, accessToken);
+        assertSame(accessToken, accessTokenManager.getAccessToken());
+    }
+
+    @Test
+    public void getAccessToken_whenPreferencesChangedOutsideManager_shouldReturnNewToken() {
+        tokenPreferences.setAccessToken(ACCESS_TOKEN_FIRST);
+        assertAccessTokensEqual(ACCESS_TOKEN_FIRST, accessTokenManager.getAccessToken());
+
+        tokenPreferences.setAccessToken(ACCESS_TOKEN_SECOND);
+        assertAccessTokensEqual(ACCESS_TOKEN_SECOND, accessTokenManager.getAccessToken());
+
+        tokenPreferences.removeAccessToken();
+        assertNull(accessTokenManager.getAccessToken());
+    }
+
+    @Test
+    public void getAccessToken_whenPreferencesClearedAfterRead_shouldReturnNull() {
+        accessTokenManager.setAccessToken(ACCESS_TOKEN_FIRST);
+        assertSame(ACCESS_TOKEN_FIRST, accessTokenManager.getAccessToken());
+
+        tokenPreferences.clear();
+
+        assertNull(accessTokenManager.getAccessToken());
+        assertNull(accessTokenManager.getAccessToken());
+    }
+
+    @Test
+    public void getAccessToken_whenSetByOtherManagerWithSameKey_shouldReturnNewToken() {
+        assertNull(accessTokenManager.getAccessToken());
+
+        new AccessTokenManager(RuntimeEnvironment.application, cookieUtils).setAccessToken(ACCESS_TOKEN_FIRST);
+
+        assertSame(ACCESS_TOKEN_FIRST, accessTokenManager.getAccessToken());
+        assertNull(customAccessTokenManager.getAccessToken());
+    }
+
+    @Test
+    public void getAccessToken_whenCustomTokenChanged_shouldKeepDefaultToken() {
+        accessTokenManager.setAccessToken(ACCESS_TOKEN_FIRST);
+
+        tokenPreferences.setAccessToken(ACCESS_TOKEN_SECOND, CUSTOM_ACCESS_TOKEN_KEY);
+
+        assertSame(ACCESS_TOKEN_FIRST, accessTokenManager.getAccessToken());
+        assertAccessTokensEqual(ACCESS_TOKEN_SECOND, customAccessTokenManager.getAccessToken());
+    }
+
+    @Test
+    public void getAccessToken_whenLastUsedChanged_shouldKeepCachedToken() {
+        accessTokenManager.setAccessToken(ACCESS_TOKEN_FIRST);
+
+        tokenPreferences.setAccessTokensLastUsed(1234L, DEFAULT_ACCESS_TOKEN_KEY);
+
+        assertSame(ACCESS_TOKEN_FIRST, accessTokenManager.getAccessToken());
+    }
+
+    @Test
+    public void removeAccessToken_whenTokenCached_shouldReturnNull() {
+        accessTokenManager.setAccessToken(ACCESS_TOKEN_FIRST);
+        assertSame(ACCESS_TOKEN_FIRST, accessTokenManager.getAccessToken());
+
+        accessTokenManager.removeAccessToken();
+
+        assertNull(accessTokenManager.getAccessToken());
+    }
+
+    @Test
+    public void setAccessToken_shouldReadBackFromPreferences() {
+        accessTokenManager.setAccessToken(ACCESS_TOKEN_FIRST);
+
+        AccessToken accessToken = accessTokenManager.readAccessToken();
+        assertAccessTokensEqual(ACCESS_TOKEN_FIRST, accessToken);
+        assertEquals(ACCESS_TOKEN_FIRST.getRefreshToken(), accessToken.getRefreshToken());
+        assertEquals(ACCESS_TOKEN_FIRST.getTokenType(), accessToken.getTokenType());
+    }
+
+    @Test
+    public void readAccessToken_whenFieldChangedWithoutChecksum_shouldReturnNull() {
+        accessTokenManager.setAccessToken(ACCESS_TOKEN_FIRST);
+
+        tokenPreferences.setAccessTokensTokenOnly(ACCESS_TOKEN_SECOND.getToken(), DEFAULT_ACCESS_TOKEN_KEY);
+
+        assertNull(accessTokenManager.readAccessToken());
+        assertNull(accessTokenManager.getAccessToken());
+    }
+
+    @Test
+    public void readAccessToken_whenStoredWithoutChecksum_shouldReturnToken() {
+        tokenPreferences.setAccessToken(ACCESS_TOKEN_FIRST);
+
+        assertAccessTokensEqual(ACCESS_TOKEN_FIRST, accessTokenManager.readAccessToken());
+    }
+
+    @Test
+    public void removeAccessToken_whenTokenStoredWithChecksum_shouldRemoveChecksum() {
+        accessTokenManager.setAccessToken(ACCESS_TOKEN_FIRST);
+        accessTokenManager.removeAccessToken();
+
+        tokenPreferences.setAccessToken(ACCESS_TOKEN_SECOND);
+
+        assertAccessTokensEqual(ACCESS_TOKEN_SECOND, accessTokenManager.getAccessToken());
+    }
+
+    @Test
+    public void checksum_whenScopesInDifferentOrder_shouldBeEqual() {
+        assertEquals(
+                AccessTokenManager.checksum(1, "token", ImmutableSet.of("profile", "history"), null, "type"),
+                AccessTokenManager.checksum(1, "token", ImmutableSet.of("history", "profile"), null, "type"));
+        assertNotEquals(
+                AccessTokenManager.checksum(1, "token", ImmutableSet.of("profile"), null, "type"),
+                AccessTokenManager.checksum(2, "token", ImmutableSet.of("profile"), null, "type"));
+    }
+
+    @Test
+    public void getAccessToken_whenPreloaded_shouldReturnToken() {
+        tokenPreferences.setAccessToken(ACCESS_TOKEN_FIRST);
+
+        AccessTokenManager.preload(RuntimeEnvironment.application);
+
+        assertAccessTokensEqual(ACCESS_TOKEN_FIRST, accessTokenManager.getAccessToken());
+        assertNull(customAccessTokenManager.getAccessToken());
+    }
+
+    @Test
+    public void getAccessToken_whenPreloadedWithoutToken_shouldReturnSetToken() {
+        AccessTokenManager.preload(RuntimeEnvironment.application);
+        AccessTokenManager.awaitPreload();
+
+        accessTokenManager.setAccessToken(ACCESS_TOKEN_FIRST);
+
+        assertSame(ACCESS_TOKEN_FIRST, accessTokenManager.getAccessToken());
+    }
+
     private void assertAccessTokensEqual(AccessToken accessTokenExpected, AccessToken accessTokenActual) {
         assertEquals(accessTokenExpected.getExpiresIn(),
                 accessTokenActual.getExpiresIn());
@@ -38,6 +38,7 @@ public class AccessTokenPreferences {
     private static final String DATE_KEY_SUFFIX = "_date";
     private static final String TOKEN_KEY_SUFFIX = "_token";
     private static final String SCOPES_KEY_SUFFIX = "_scopes";
+    private static final String LAST_USED_KEY_SUFFIX = "_last_used";
 
     @NonNull
     private SharedPreferences sharedPreferences;
@@ -114,4 +115,8 @@ public class AccessTokenPreferences {
     public void setAccessTokensScopesBad(@NonNull String key) {
         sharedPreferences.edit().putInt(key + SCOPES_KEY_SUFFIX, 1234).apply();
     }
+
+    public void setAccessTokensLastUsed(long lastUsed, @NonNull String key) {
+        sharedPreferences.edit().putLong(key + LAST_USED_KEY_SUFFIX, lastUsed).apply();
+    }
 }
@@ -0,0 +1,209 @@
+/*
+ * Copyright (c) 2016 Uber Technologies, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.uber.sdk.android.core.auth;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import com.google.common.collect.ImmutableList;
+import com.uber.sdk.android.core.RobolectricTestBase;
+import com.uber.sdk.core.auth.AccessToken;
+import com.uber.sdk.core.auth.Scope;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.robolectric.RuntimeEnvironment;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+
+public class AccessTokenStoreTest extends RobolectricTestBase {
+
+    private static final AccessToken ACCESS_TOKEN_FIRST = new AccessToken(2592000,
+            ImmutableList.of(Scope.PROFILE, Scope.HISTORY), "thisIsAnAccessToken", "refreshToken", "tokenType");
+    private static final AccessToken ACCESS_TOKEN_SECOND = new AccessToken(2592000,
+            ImmutableList.of(Scope.PROFILE), "thisIsASecondAccessToken", "refreshToken", "tokenType");
+    private static final String DEFAULT_ACCESS_TOKEN_KEY = "defaultAccessToken";
+    private static final String CUSTOM_ACCESS_TOKEN_KEY = "customTag";
+
+    private AccessTokenPreferences tokenPreferences;
+    private SharedPreferences sharedPreferences;
+    private FakeClock clock;
+    private AccessTokenStore store;
+
+    @Before
+    public void setup() {
+        tokenPreferences = new AccessTokenPreferences(RuntimeEnvironment.application);
+        tokenPreferences.clear();
+
+        sharedPreferences = RuntimeEnvironment.application.getSharedPreferences(
+                AccessTokenManager.ACCESS_TOKEN_SHARED_PREFERENCES, Context.MODE_PRIVATE);
+        clock = new FakeClock();
+        store = new AccessTokenStore(sharedPreferences, clock);
+    }
+
+    @Test
+    public void getAccessToken_whenNothingStored_shouldReturnNull() {
+        assertNull(store.getAccessToken(DEFAULT_ACCESS_TOKEN_KEY));
+        assertThat(store.getAccounts()).isEmpty();
+    }
+
+    @Test
+    public void getAccounts_whenTokensStoredByManagers_shouldLoadAll() {
+        tokenPreferences.setAccessToken(ACCESS_TOKEN_FIRST);
+        tokenPreferences.setAccessToken(ACCESS_TOKEN_SECOND, CUSTOM_ACCESS_TOKEN_KEY);
+
+        assertThat(store.getAccounts()).containsOnly(DEFAULT_ACCESS_TOKEN_KEY, CUSTOM_ACCESS_TOKEN_KEY);
+        assertEquals(ACCESS_TOKEN_FIRST.getToken(), store.getAccessToken(DEFAULT_ACCESS_TOKEN_KEY).getToken());
+        assertEquals(ACCESS_TOKEN_SECOND.getToken(), store.getAccessToken(CUSTOM_ACCESS_TOKEN_KEY).getToken());
+    }
+
+    @Test
+    public void setAccessToken_shouldBeReadByManager() {
+        store.setAccessToken(CUSTOM_ACCESS_TOKEN_KEY, ACCESS_TOKEN_FIRST);
+
+        assertSame(ACCESS_TOKEN_FIRST, store.getAccessToken(CUSTOM_ACCESS_TOKEN_KEY));
+        assertEquals(ACCESS_TOKEN_FIRST.getToken(), newManager(CUSTOM_ACCESS_TOKEN_KEY).getAccessToken().getToken());
+        assertEquals(ACCESS_TOKEN_FIRST.getToken(), newManager(CUSTOM_ACCESS_TOKEN_KEY).readAccessToken().getToken());
+    }
+
+    @Test
+    public void getAccounts_shouldBeOrderedByUse() {
+        store.setAccessToken("a", ACCESS_TOKEN_FIRST);
+        store.setAccessToken("b", ACCESS_TOKEN_FIRST);
+        store.setAccessToken("c", ACCESS_TOKEN_FIRST);
+
+        store.getAccessToken("a");
+
+        assertThat(store.getAccounts()).containsExactly("b", "c", "a");
+    }
+
+    @Test
+    public void getAccounts_whenLoadedByNewStore_shouldKeepOrderOfLastUse() {
+        clock.time = 3;
+        store.setAccessToken("a", ACCESS_TOKEN_FIRST);
+        clock.time = 1;
+        store.setAccessToken("b", ACCESS_TOKEN_FIRST);
+        clock.time = 2;
+        store.setAccessToken("c", ACCESS_TOKEN_FIRST);
+
+        assertThat(new AccessTokenStore(sharedPreferences, clock).getAccounts()).containsExactly("b", "c", "a");
+    }
+
+    @Test
+    public void getAccessToken_whenFirstReadInProcess_shouldStoreLastUse() {
+        clock.time = 1;
+        store.setAccessToken("a", ACCESS_TOKEN_FIRST);
+        clock.time = 2;
+        store.setAccessToken("b", ACCESS_TOKEN_FIRST);
+
+        AccessTokenStore newStore = new AccessTokenStore(sharedPreferences, clock);
+        clock.time = 3;
+        newStore.getAccessToken("a");
+
+        assertThat(new AccessTokenStore(sharedPreferences, clock).getAccounts()).containsExactly("b", "a");
+    }
+
+    @Test
+    public void evictLeastRecentlyUsed_shouldRemoveOldestAccounts() {
+        store.setAccessToken("a", ACCESS_TOKEN_FIRST);
+        store.setAccessToken("b", ACCESS_TOKEN_FIRST);
+        store.setAccessToken("c", ACCESS_TOKEN_FIRST);
+        store.getAccessToken("a");
+
+        assertThat(store.evictLeastRecentlyUsed(2)).containsExactly("b");
+
+        assertThat(store.getAccounts()).containsExactly("c", "a");
+        assertNull(newManager("b").getAccessToken());
+        assertThat(new AccessTokenStore(sharedPreferences, clock).getAccounts()).containsOnly("a", "c");
+        assertThat(store.evictLeastRecentlyUsed(2)).isEmpty();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void evictLeastRecentlyUsed_whenNegative_shouldThrowException() {
+        store.evictLeastRecentlyUsed(-1);
+    }
+
+    @Test
+    public void removeAccessToken_shouldOnlyRemoveAccount() {
+        store.setAccessToken(DEFAULT_ACCESS_TOKEN_KEY, ACCESS_TOKEN_FIRST);
+        store.setAccessToken(CUSTOM_ACCESS_TOKEN_KEY, ACCESS_TOKEN_SECOND);
+
+        store.removeAccessToken(CUSTOM_ACCESS_TOKEN_KEY);
+
+        assertNull(store.getAccessToken(CUSTOM_ACCESS_TOKEN_KEY));
+        assertNull(tokenPreferences.getAccessToken(CUSTOM_ACCESS_TOKEN_KEY));
+        assertThat(store.getAccounts()).containsExactly(DEFAULT_ACCESS_TOKEN_KEY);
+        assertEquals(ACCESS_TOKEN_FIRST.getToken(), tokenPreferences.getAccessToken().getToken());
+    }
+
+    @Test
+    public void getAccessToken_whenChangedByManagerAfterLoad_shouldReturnNewToken() {
+        store.setAccessToken(DEFAULT_ACCESS_TOKEN_KEY, ACCESS_TOKEN_FIRST);
+
+        newManager(CUSTOM_ACCESS_TOKEN_KEY).setAccessToken(ACCESS_TOKEN_SECOND);
+        newManager(DEFAULT_ACCESS_TOKEN_KEY).removeAccessToken();
+
+        assertNull(store.getAccessToken(DEFAULT_ACCESS_TOKEN_KEY));
+        assertEquals(ACCESS_TOKEN_SECOND.getToken(), store.getAccessToken(CUSTOM_ACCESS_TOKEN_KEY).getToken());
+        assertThat(store.getAccounts()).containsExactly(CUSTOM_ACCESS_TOKEN_KEY);
+    }
+
+    @Test
+    public void getAccessToken_whenPreferencesClearedAfterLoad_shouldReturnNull() {
+        store.setAccessToken(DEFAULT_ACCESS_TOKEN_KEY, ACCESS_TOKEN_FIRST);
+
+        tokenPreferences.clear();
+
+        assertNull(store.getAccessToken(DEFAULT_ACCESS_TOKEN_KEY));
+        assertThat(store.getAccounts()).isEmpty();
+    }
+
+    @Test
+    public void getAccessTokenStorage_shouldUseAccount() {
+        store.getAccessTokenStorage(CUSTOM_ACCESS_TOKEN_KEY).setAccessToken(ACCESS_TOKEN_FIRST);
+
+        assertSame(ACCESS_TOKEN_FIRST, store.getAccessToken(CUSTOM_ACCESS_TOKEN_KEY));
+        assertSame(ACCESS_TOKEN_FIRST, store.getAccessTokenStorage(CUSTOM_ACCESS_TOKEN_KEY).getAccessToken());
+        assertNull(store.getAccessToken(DEFAULT_ACCESS_TOKEN_KEY));
+    }
+
+    private AccessTokenManager newManager(String accessTokenKey) {
+        return new AccessTokenManager(RuntimeEnvironment.application, mock(AccessTokenManager.CookieUtils.class),
+                accessTokenKey);
+    }
+
+    private static class FakeClock implements AccessTokenStore.Clock {
+
+        long time;
+
+        @Override
+        public long now() {
+            return time;
+        }
+    }
+}
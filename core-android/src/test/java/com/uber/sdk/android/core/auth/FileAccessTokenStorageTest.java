@@ -0,0 +1,223 @@
+/*
+ * Copyright (c) 2016 Uber Technologies, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.uber.sdk.android.core.auth;
+
+import com.google.common.collect.ImmutableList;
+import com.uber.sdk.android.core.RobolectricTestBase;
+import com.uber.sdk.core.auth.AccessToken;
+import com.uber.sdk.core.auth.Scope;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.robolectric.RuntimeEnvironment;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+public class FileAccessTokenStorageTest extends RobolectricTestBase {
+
+    private static final AccessToken ACCESS_TOKEN_FIRST = new AccessToken(2592000,
+            ImmutableList.of(Scope.PROFILE, Scope.HISTORY), "thisIsAnAccessToken", "refreshToken", "tokenType");
+    private static final AccessToken ACCESS_TOKEN_SECOND = new AccessToken(2592000,
+            ImmutableList.of(Scope.PROFILE), "thisIsASecondAccessToken", null, null);
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private AccessTokenPreferences tokenPreferences;
+    private AccessTokenManager.CookieUtils cookieUtils;
+    private File file;
+    private FileAccessTokenStorage storage;
+
+    @Before
+    public void setup() throws IOException {
+        tokenPreferences = new AccessTokenPreferences(RuntimeEnvironment.application);
+        tokenPreferences.clear();
+
+        cookieUtils = mock(AccessTokenManager.CookieUtils.class);
+        file = new File(temporaryFolder.getRoot(), "token");
+        storage = newStorage();
+    }
+
+    @Test
+    public void getAccessToken_whenNothingStored_shouldReturnNull() {
+        assertNull(storage.getAccessToken());
+        assertFalse(file.exists());
+    }
+
+    @Test
+    public void setAccessToken_shouldBeReadByNewStorage() {
+        storage.setAccessToken(ACCESS_TOKEN_FIRST);
+
+        assertSame(ACCESS_TOKEN_FIRST, storage.getAccessToken());
+        assertAccessTokensEqual(ACCESS_TOKEN_FIRST, newStorage().getAccessToken());
+    }
+
+    @Test
+    public void setAccessToken_whenNullFields_shouldBeReadByNewStorage() {
+        storage.setAccessToken(ACCESS_TOKEN_SECOND);
+
+        assertAccessTokensEqual(ACCESS_TOKEN_SECOND, newStorage().getAccessToken());
+    }
+
+    @Test
+    public void setAccessToken_whenAlreadyStored_shouldOverwrite() {
+        storage.setAccessToken(ACCESS_TOKEN_FIRST);
+        storage.setAccessToken(ACCESS_TOKEN_SECOND);
+
+        assertAccessTokensEqual(ACCESS_TOKEN_SECOND, newStorage().getAccessToken());
+    }
+
+    @Test
+    public void removeAccessToken_shouldDeleteFileAndClearCookies() {
+        storage.setAccessToken(ACCESS_TOKEN_FIRST);
+
+        storage.removeAccessToken();
+
+        assertNull(storage.getAccessToken());
+        assertFalse(file.exists());
+        assertNull(newStorage().getAccessToken());
+        verify(cookieUtils).clearUberCookies();
+    }
+
+    @Test
+    public void getAccessToken_whenStoredInPreferences_shouldMigrate() {
+        tokenPreferences.setAccessToken(ACCESS_TOKEN_SECOND);
+
+        assertAccessTokensEqual(ACCESS_TOKEN_SECOND, storage.getAccessToken());
+
+        assertTrue(file.exists());
+        assertNull(tokenPreferences.getAccessToken());
+        assertAccessTokensEqual(ACCESS_TOKEN_SECOND, newStorage().getAccessToken());
+        verify(cookieUtils, never()).clearUberCookies();
+    }
+
+    @Test
+    public void getAccessToken_whenFileStored_shouldIgnorePreferences() {
+        storage.setAccessToken(ACCESS_TOKEN_FIRST);
+        tokenPreferences.setAccessToken(ACCESS_TOKEN_SECOND);
+
+        assertAccessTokensEqual(ACCESS_TOKEN_FIRST, newStorage().getAccessToken());
+    }
+
+    @Test
+    public void getAccessToken_whenFileWrittenWithOtherScopeTable_shouldDecodeScopesByName() throws IOException {
+        FileOutputStream outputStream = new FileOutputStream(file);
+        try {
+            outputStream.write(FileAccessTokenStorage.encode(ACCESS_TOKEN_FIRST,
+                    new String[]{"removed_scope", Scope.HISTORY.name(), Scope.PROFILE.name()}));
+        } finally {
+            outputStream.close();
+        }
+
+        assertAccessTokensEqual(ACCESS_TOKEN_FIRST, storage.getAccessToken());
+    }
+
+    @Test
+    public void decode_whenCorrupted_shouldReturnNull() throws IOException {
+        byte[] bytes = FileAccessTokenStorage.encode(ACCESS_TOKEN_FIRST);
+        bytes[bytes.length / 2] ^= 1;
+
+        assertNull(FileAccessTokenStorage.decode(bytes));
+    }
+
+    @Test
+    public void decode_whenTruncated_shouldReturnNull() throws IOException {
+        byte[] bytes = FileAccessTokenStorage.encode(ACCESS_TOKEN_FIRST);
+
+        byte[] truncated = new byte[bytes.length - 1];
+        System.arraycopy(bytes, 0, truncated, 0, truncated.length);
+
+        assertNull(FileAccessTokenStorage.decode(truncated));
+        assertNull(FileAccessTokenStorage.decode(new byte[0]));
+    }
+
+    @Test
+    public void decode_whenUnknownVersion_shouldReturnNull() throws IOException {
+        byte[] bytes = FileAccessTokenStorage.encode(ACCESS_TOKEN_FIRST);
+        bytes[0] = FileAccessTokenStorage.VERSION + 1;
+
+        assertNull(FileAccessTokenStorage.decode(bytes));
+    }
+
+    @Test
+    public void scopesToBitmask_shouldRoundTrip() {
+        String[] scopeNames = {Scope.HISTORY.name(), Scope.PROFILE.name()};
+        long bitmask = FileAccessTokenStorage.scopesToBitmask(ImmutableList.of(Scope.PROFILE, Scope.HISTORY),
+                scopeNames);
+
+        assertEquals(3, bitmask);
+        Collection<Scope> scopes = FileAccessTokenStorage.bitmaskToScopes(bitmask, scopeNames);
+        assertEquals(2, scopes.size());
+        assertTrue(scopes.containsAll(ImmutableList.of(Scope.PROFILE, Scope.HISTORY)));
+        assertTrue(FileAccessTokenStorage.bitmaskToScopes(0, scopeNames).isEmpty());
+        assertEquals(0, FileAccessTokenStorage.scopesToBitmask(Collections.<Scope>emptyList(), scopeNames));
+    }
+
+    @Test
+    public void bitmaskToScopes_whenIndexPastTable_shouldReturnNull() {
+        assertNull(FileAccessTokenStorage.bitmaskToScopes(1L << 2, new String[]{Scope.PROFILE.name()}));
+    }
+
+    @Test
+    public void bitmaskToScopes_whenScopeNameUnknown_shouldDropScope() {
+        Collection<Scope> scopes = FileAccessTokenStorage.bitmaskToScopes(3,
+                new String[]{"removed_scope", Scope.PROFILE.name()});
+
+        assertEquals(1, scopes.size());
+        assertTrue(scopes.contains(Scope.PROFILE));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void scopesToBitmask_whenScopeNotInTable_shouldThrow() {
+        FileAccessTokenStorage.scopesToBitmask(ImmutableList.of(Scope.PROFILE), new String[]{Scope.HISTORY.name()});
+    }
+
+    private FileAccessTokenStorage newStorage() {
+        return new FileAccessTokenStorage(file, new AccessTokenManager(RuntimeEnvironment.application, cookieUtils));
+    }
+
+    private void assertAccessTokensEqual(AccessToken accessTokenExpected, AccessToken accessTokenActual) {
+        assertEquals(accessTokenExpected.getExpiresIn(), accessTokenActual.getExpiresIn());
+        assertEquals(accessTokenExpected.getToken(), accessTokenActual.getToken());
+        assertEquals(accessTokenExpected.getRefreshToken(), accessTokenActual.getRefreshToken());
+        assertEquals(accessTokenExpected.getTokenType(), accessTokenActual.getTokenType());
+        assertTrue(accessTokenActual.getScopes().containsAll(accessTokenExpected.getScopes()));
+        assertEquals(accessTokenExpected.getScopes().size(), accessTokenActual.getScopes().size());
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2016 Uber Technologies, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.uber.sdk.android.rides;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.uber.sdk.rides.client.model.PriceEstimate;
+
+import java.util.Comparator;
+
+/**
+ * Cheapest and fastest way to ride from a shared pickup to one destination.
+ */
+public final class DestinationEstimate {
+
+    /**
+     * Orders destinations by the low end of their cheapest price estimate, destinations without one last.
+     */
+    public static final Comparator<DestinationEstimate> BY_PRICE = new Comparator<DestinationEstimate>() {
+        @Override
+        public int compare(DestinationEstimate first, DestinationEstimate second) {
+            return compareNullsLast(first.getCheapestLowEstimate(), second.getCheapestLowEstimate());
+        }
+    };
+
+    /**
+     * Orders destinations by their fastest arrival time, destinations without one last.
+     */
+    public static final Comparator<DestinationEstimate> BY_ARRIVAL = new Comparator<DestinationEstimate>() {
+        @Override
+        public int compare(DestinationEstimate first, DestinationEstimate second) {
+            return compareNullsLast(first.getFastestArrivalSeconds(), second.getFastestArrivalSeconds());
+        }
+    };
+
+    @NonNull
+    private final RideParameters destination;
+
+    @Nullable
+    private final PriceEstimate cheapestPriceEstimate;
+
+    @Nullable
+    private final PriceEstimate fastestPriceEstimate;
+
+    @Nullable
+    private final Integer fastestArrivalSeconds;
+
+    public DestinationEstimate(
+            @NonNull RideParameters destination,
+            @Nullable PriceEstimate cheapestPriceEstimate,
+            @Nullable PriceEstimate fastestPriceEstimate,
+            @Nullable Integer fastestArrivalSeconds) {
+        this.destination = destination;
+        this.cheapestPriceEstimate = cheapestPriceEstimate;
+        this.fastestPriceEstimate = fastestPriceEstimate;
+        this.fastestArrivalSeconds = fastestArrivalSeconds;
+    }
+
+    /**
+     * @return the {@link RideParameters} with the dropoff location this estimate is for.
+     */
+    @NonNull
+    public RideParameters getDestination() {
+        return destination;
+    }
+
+    /**
+     * @return price estimate of the product with the lowest price, null if no product has a price.
+     */
+    @Nullable
+    public PriceEstimate getCheapestPriceEstimate() {
+        return cheapestPriceEstimate;
+    }
+
+    /**
+     * @return price estimate of the product that arrives at the destination first, null if unknown.
+     */
+    @Nullable
+    public PriceEstimate getFastestPriceEstimate() {
+        return fastestPriceEstimate;
+    }
+
+    /**
+     * @return seconds until arrival at the destination with the fastest product, pickup time included, null if
+     * unknown.
+     */
+    @Nullable
+    public Integer getFastestArrivalSeconds() {
+        return fastestArrivalSeconds;
+    }
+
+    @Nullable
+    private Integer getCheapestLowEstimate() {
+        return cheapestPriceEstimate != null ? cheapestPriceEstimate.getLowEstimate() : null;
+    }
+
+    private static int compareNullsLast(@Nullable Integer first, @Nullable Integer second) {
+        if (first == null) {
+            return second == null ? 0 : 1;
+        }
+        if (second == null) {
+            return -1;
+        }
+        return first.compareTo(second);
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2016 Uber Technologies, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.uber.sdk.android.rides;
+
+import android.support.annotation.NonNull;
+
+import com.uber.sdk.android.rides.internal.DestinationEstimateLoader;
+import com.uber.sdk.rides.client.Session;
+
+import java.util.List;
+
+/**
+ * Finds the cheapest and fastest ride from one pickup to many destinations. The pickup time estimate is loaded once
+ * for all products, and price estimates are loaded with bounded concurrency. Results are streamed to a
+ * {@link Listener} as each destination completes, together with everything ranked so far.
+ */
+public class DestinationRanker {
+
+    /**
+     * Notified as destinations are ranked, on the thread estimates are delivered on.
+     */
+    public interface Listener {
+
+        /**
+         * Called once estimates for a destination loaded.
+         *
+         * @param estimate cheapest and fastest ride to the destination.
+         * @param byPrice all destinations ranked so far, cheapest first.
+         */
+        void onDestinationRanked(@NonNull DestinationEstimate estimate, @NonNull List<DestinationEstimate> byPrice);
+
+        /**
+         * Called if estimates for a destination failed to load, wrapping API errors in an
+         * {@link EstimateApiException}. If the pickup time estimates fail, every destination not ranked yet fails
+         * with their error.
+         */
+        void onDestinationFailed(@NonNull RideParameters destination, @NonNull Throwable throwable);
+
+        /**
+         * Called once all destinations are ranked or failed.
+         *
+         * @param byPrice destinations with estimates, cheapest first.
+         * @param byArrival destinations with estimates, fastest first.
+         */
+        void onRankingComplete(
+                @NonNull List<DestinationEstimate> byPrice,
+                @NonNull List<DestinationEstimate> byArrival);
+    }
+
+    @NonNull private final DestinationEstimateLoader destinationEstimateLoader;
+
+    public DestinationRanker(@NonNull Session session) {
+        this.destinationEstimateLoader = new DestinationEstimateLoader(session);
+    }
+
+    /**
+     * Sets how many price estimate requests run at once, defaults to 4.
+     */
+    public void setMaxConcurrentRequests(int maxConcurrentRequests) {
+        destinationEstimateLoader.setMaxConcurrentRequests(maxConcurrentRequests);
+    }
+
+    /**
+     * Ranks rides from the pickup location of pickup to the dropoff locations of destinations, cancelling any
+     * ranking in progress.
+     *
+     * @param pickup parameters with the shared pickup location.
+     * @param destinations parameters with a dropoff location each, their pickup locations are ignored.
+     * @param listener notified as destinations are ranked.
+     */
+    public void rank(
+            @NonNull RideParameters pickup,
+            @NonNull List<RideParameters> destinations,
+            @NonNull Listener listener) {
+        destinationEstimateLoader.rank(pickup, destinations, listener);
+    }
+
+    /**
+     * Cancels the ranking in progress, if any. Requests shared with others keep running.
+     */
+    public void cancel() {
+        destinationEstimateLoader.cancel();
+    }
+}
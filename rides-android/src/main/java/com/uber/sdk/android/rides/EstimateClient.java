@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2016 Uber Technologies, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.uber.sdk.android.rides;
+
+import android.support.annotation.NonNull;
+
+import com.uber.sdk.android.rides.internal.RideEstimateLoader;
+import com.uber.sdk.rides.client.Session;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Loads time and price estimates without a view, e.g. to rank places in a background job. Shares the estimate cache,
+ * in-flight requests and HTTP client with {@link RideRequestButton}s and may be used from any number of threads at
+ * once.
+ * <p>
+ * Estimates load without the main thread, so they arrive while it is busy. Blocking calls must still not be made on
+ * the main thread.
+ */
+public class EstimateClient {
+
+    @NonNull private final RideEstimateLoader rideEstimateLoader;
+
+    public EstimateClient(@NonNull Session session) {
+        this.rideEstimateLoader = new RideEstimateLoader(session);
+    }
+
+    /**
+     * Sets how failed estimate requests are retried, defaults to {@link RetryPolicy#NONE}.
+     */
+    public void setRetryPolicy(@NonNull RetryPolicy retryPolicy) {
+        rideEstimateLoader.setRetryPolicy(retryPolicy);
+    }
+
+    /**
+     * Starts loading the estimates for rideParameters. The price estimate is only loaded if a dropoff location is
+     * set. The {@link Future} fails with an {@link EstimateApiException} if the API returns an error or the product
+     * has no estimate, and with the cause of any other failure. Cancelling it cancels the requests unless they are
+     * shared with others.
+     */
+    @NonNull
+    public Future<RideEstimate> getEstimateAsync(@NonNull RideParameters rideParameters) {
+        return rideEstimateLoader.getEstimateAsync(rideParameters);
+    }
+
+    /**
+     * Loads the estimates for rideParameters, blocking until they are loaded. Must not be called on the main thread.
+     *
+     * @throws ExecutionException with an {@link EstimateApiException} if the API returns an error or the product
+     * has no estimate, or the cause of any other failure.
+     */
+    @NonNull
+    public RideEstimate getEstimate(@NonNull RideParameters rideParameters)
+            throws InterruptedException, ExecutionException {
+        return rideEstimateLoader.getEstimate(rideParameters);
+    }
+
+    /**
+     * Loads the estimates for rideParameters, blocking until they are loaded or timeout passes, in which case the
+     * requests are cancelled. Must not be called on the main thread.
+     *
+     * @throws ExecutionException with an {@link EstimateApiException} if the API returns an error or the product
+     * has no estimate, or the cause of any other failure.
+     */
+    @NonNull
+    public RideEstimate getEstimate(@NonNull RideParameters rideParameters, long timeout, @NonNull TimeUnit unit)
+            throws InterruptedException, ExecutionException, TimeoutException {
+        return rideEstimateLoader.getEstimate(rideParameters, timeout, unit);
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2016 Uber Technologies, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.uber.sdk.android.rides;
+
+import android.support.annotation.NonNull;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.uber.sdk.android.core.utils.Preconditions.checkState;
+
+/**
+ * Determines how a {@link RideRequestButton} uses previously loaded estimates.
+ */
+public final class EstimateLoadingPolicy {
+
+    /**
+     * Shows cached estimates as long as they are cached, only going to the network when none are available.
+     */
+    public static final EstimateLoadingPolicy CACHE_FIRST = new EstimateLoadingPolicy(Long.MAX_VALUE, Long.MAX_VALUE);
+
+    private final long freshnessMillis;
+    private final long maxStalenessMillis;
+
+    private EstimateLoadingPolicy(long freshnessMillis, long maxStalenessMillis) {
+        this.freshnessMillis = freshnessMillis;
+        this.maxStalenessMillis = maxStalenessMillis;
+    }
+
+    /**
+     * Shows a cached estimate immediately and, once it is older than freshness, refreshes it in the background.
+     * The button is only updated again if the refreshed estimate differs. Estimates older than maxStaleness are
+     * not shown and are loaded like no estimate had been cached.
+     *
+     * @param freshness age up to which a cached estimate is shown without being refreshed.
+     * @param maxStaleness age up to which a cached estimate is shown while being refreshed.
+     * @param unit unit of freshness and maxStaleness.
+     * @return the {@link EstimateLoadingPolicy}
+     */
+    @NonNull
+    public static EstimateLoadingPolicy staleWhileRevalidate(
+            long freshness,
+            long maxStaleness,
+            @NonNull TimeUnit unit) {
+        checkState(freshness >= 0, "Freshness must not be negative.");
+        checkState(maxStaleness >= freshness, "Max staleness must not be less than freshness.");
+
+        return new EstimateLoadingPolicy(unit.toMillis(freshness), unit.toMillis(maxStaleness));
+    }
+
+    /**
+     * @return age in milliseconds up to which a cached estimate is shown without being refreshed.
+     */
+    public long getFreshnessMillis() {
+        return freshnessMillis;
+    }
+
+    /**
+     * @return age in milliseconds up to which a cached estimate is shown at all.
+     */
+    public long getMaxStalenessMillis() {
+        return maxStalenessMillis;
+    }
+
+    /**
+     * @return true if a cached estimate of the given age should be refreshed after being shown.
+     */
+    public boolean shouldRevalidate(long ageMillis) {
+        return ageMillis > freshnessMillis;
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2016 Uber Technologies, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.uber.sdk.android.rides;
+
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Reported through {@link RideRequestButtonCallback#onError(Throwable)} when estimates did not load within the
+ * latency budget of a {@link RideRequestButton}. Estimates that did load are still shown.
+ */
+public class EstimateTimeoutException extends TimeoutException {
+
+    private final long latencyBudgetMillis;
+    private final boolean timeEstimateMissing;
+    private final boolean priceEstimateMissing;
+
+    public EstimateTimeoutException(
+            long latencyBudgetMillis,
+            boolean timeEstimateMissing,
+            boolean priceEstimateMissing) {
+        super(createMessage(latencyBudgetMillis, timeEstimateMissing, priceEstimateMissing));
+        this.latencyBudgetMillis = latencyBudgetMillis;
+        this.timeEstimateMissing = timeEstimateMissing;
+        this.priceEstimateMissing = priceEstimateMissing;
+    }
+
+    /**
+     * @return the latency budget in milliseconds that was exceeded.
+     */
+    public long getLatencyBudgetMillis() {
+        return latencyBudgetMillis;
+    }
+
+    /**
+     * @return true if the time estimate did not load in time.
+     */
+    public boolean isTimeEstimateMissing() {
+        return timeEstimateMissing;
+    }
+
+    /**
+     * @return true if the price estimate did not load in time.
+     */
+    public boolean isPriceEstimateMissing() {
+        return priceEstimateMissing;
+    }
+
+    private static String createMessage(
+            long latencyBudgetMillis,
+            boolean timeEstimateMissing,
+            boolean priceEstimateMissing) {
+        final String missing;
+        if (timeEstimateMissing && priceEstimateMissing) {
+            missing = "Time and price estimates";
+        } else if (timeEstimateMissing) {
+            missing = "Time estimate";
+        } else {
+            missing = "Price estimate";
+        }
+        return missing + " not loaded within " + latencyBudgetMillis + " ms.";
+    }
+}
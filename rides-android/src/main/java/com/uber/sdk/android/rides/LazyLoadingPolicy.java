@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2016 Uber Technologies, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.uber.sdk.android.rides;
+
+import android.support.annotation.NonNull;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.uber.sdk.android.core.utils.Preconditions.checkState;
+
+/**
+ * Determines when a {@link RideRequestButton} loads the estimates requested by
+ * {@link RideRequestButton#loadRideInformation()}.
+ */
+public final class LazyLoadingPolicy {
+
+    /**
+     * Loads estimates as soon as they are requested, whether or not the button is on screen.
+     */
+    public static final LazyLoadingPolicy EAGER = new LazyLoadingPolicy(0f, 0L);
+
+    private final float minVisibleFraction;
+    private final long dwellMillis;
+
+    private LazyLoadingPolicy(float minVisibleFraction, long dwellMillis) {
+        this.minVisibleFraction = minVisibleFraction;
+        this.dwellMillis = dwellMillis;
+    }
+
+    /**
+     * Defers loading estimates until at least minVisibleFraction of the button has been on screen for dwellTime.
+     * Loading is cancelled if the button is scrolled off screen before the estimates are shown, and picked up again
+     * once it is back on screen.
+     *
+     * @param minVisibleFraction fraction of the button's area, greater than 0 and at most 1, that must be on screen.
+     * @param dwellTime time the button must stay on screen before estimates are loaded.
+     * @param unit unit of dwellTime.
+     * @return the {@link LazyLoadingPolicy}
+     */
+    @NonNull
+    public static LazyLoadingPolicy whenVisible(float minVisibleFraction, long dwellTime, @NonNull TimeUnit unit) {
+        checkState(minVisibleFraction > 0f && minVisibleFraction <= 1f,
+                "Visible fraction must be greater than 0 and at most 1.");
+        checkState(dwellTime >= 0, "Dwell time must not be negative.");
+
+        return new LazyLoadingPolicy(minVisibleFraction, unit.toMillis(dwellTime));
+    }
+
+    /**
+     * @return true if estimates are only loaded while the button is on screen.
+     */
+    public boolean isLazy() {
+        return minVisibleFraction > 0f;
+    }
+
+    /**
+     * @return fraction of the button's area that must be on screen before estimates are loaded.
+     */
+    public float getMinVisibleFraction() {
+        return minVisibleFraction;
+    }
+
+    /**
+     * @return time in milliseconds the button must stay on screen before estimates are loaded.
+     */
+    public long getDwellMillis() {
+        return dwellMillis;
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright (c) 2016 Uber Technologies, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.uber.sdk.android.rides;
+
+import android.support.annotation.NonNull;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static com.uber.sdk.android.core.utils.Preconditions.checkNotNull;
+import static com.uber.sdk.android.core.utils.Preconditions.checkState;
+
+/**
+ * Determines how a {@link RideRequestButton} retries failed estimate requests. Delays grow exponentially from the
+ * base delay and are randomly shortened by the jitter fraction, so buttons failing together do not retry together.
+ */
+public final class RetryPolicy {
+
+    /**
+     * Does not retry failed requests.
+     */
+    public static final RetryPolicy NONE = new Builder().setMaxAttempts(1).build();
+
+    private static final Random RANDOM = new Random();
+
+    private final int maxAttempts;
+    private final long baseDelayMillis;
+    private final long maxDelayMillis;
+    private final float jitter;
+    private final boolean retryOnServerError;
+    @NonNull private final List<Class<? extends Throwable>> retryableErrors;
+
+    private RetryPolicy(
+            int maxAttempts,
+            long baseDelayMillis,
+            long maxDelayMillis,
+            float jitter,
+            boolean retryOnServerError,
+            @NonNull List<Class<? extends Throwable>> retryableErrors) {
+        this.maxAttempts = maxAttempts;
+        this.baseDelayMillis = baseDelayMillis;
+        this.maxDelayMillis = maxDelayMillis;
+        this.jitter = jitter;
+        this.retryOnServerError = retryOnServerError;
+        this.retryableErrors = retryableErrors;
+    }
+
+    /**
+     * @return maximum number of attempts of a request, including the first one.
+     */
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    /**
+     * @return true if a request that failed with throwable on the given attempt should be tried again.
+     */
+    public boolean shouldRetry(int attempt, @NonNull Throwable throwable) {
+        if (attempt >= maxAttempts) {
+            return false;
+        }
+
+        for (Class<? extends Throwable> retryableError : retryableErrors) {
+            if (retryableError.isInstance(throwable)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return true if a request answered with the HTTP status code on the given attempt should be tried again.
+     */
+    public boolean shouldRetry(int attempt, int statusCode) {
+        return attempt < maxAttempts && retryOnServerError && statusCode >= 500;
+    }
+
+    /**
+     * @return delay in milliseconds before the attempt following the given one.
+     */
+    public long getDelayMillis(int attempt) {
+        return getDelayMillis(attempt, RANDOM.nextFloat());
+    }
+
+    long getDelayMillis(int attempt, float random) {
+        final int shift = Math.max(attempt - 1, 0);
+        final long delayMillis = shift >= Long.SIZE - 1 || baseDelayMillis > maxDelayMillis >> shift
+                ? maxDelayMillis
+                : baseDelayMillis << shift;
+        return (long) (delayMillis * (1 - jitter * random));
+    }
+
+    /**
+     * Builder for {@link RetryPolicy}.
+     */
+    public static class Builder {
+
+        private int maxAttempts = 3;
+        private long baseDelayMillis = 250;
+        private long maxDelayMillis = TimeUnit.SECONDS.toMillis(4);
+        private float jitter = 0.5f;
+        private boolean retryOnServerError = true;
+        @NonNull private List<Class<? extends Throwable>> retryableErrors =
+                Collections.<Class<? extends Throwable>>singletonList(IOException.class);
+
+        /**
+         * Sets the maximum number of attempts of a request, including the first one. Defaults to 3.
+         */
+        public Builder setMaxAttempts(int maxAttempts) {
+            checkState(maxAttempts >= 1, "Max attempts must be at least 1.");
+            this.maxAttempts = maxAttempts;
+            return this;
+        }
+
+        /**
+         * Sets the delay before the first retry, doubled for every further retry up to maxDelay.
+         * Defaults to 250 milliseconds and 4 seconds.
+         */
+        public Builder setDelay(long baseDelay, long maxDelay, @NonNull TimeUnit unit) {
+            checkState(baseDelay >= 0, "Base delay must not be negative.");
+            checkState(maxDelay >= baseDelay, "Max delay must not be less than base delay.");
+            this.baseDelayMillis = unit.toMillis(baseDelay);
+            this.maxDelayMillis = unit.toMillis(maxDelay);
+            return this;
+        }
+
+        /**
+         * Sets the fraction between 0 and 1 by which a delay is randomly shortened. Defaults to 0.5.
+         */
+        public Builder setJitter(float jitter) {
+            checkState(jitter >= 0 && jitter <= 1, "Jitter must be between 0 and 1.");
+            this.jitter = jitter;
+            return this;
+        }
+
+        /**
+         * Sets whether requests answered with an HTTP 5xx status are retried. Defaults to true.
+         */
+        public Builder setRetryOnServerError(boolean retryOnServerError) {
+            this.retryOnServerError = retryOnServerError;
+            return this;
+        }
+
+        /**
+         * Sets the failures that are retried, including their subclasses. Defaults to {@link IOException}.
+         */
+        @SafeVarargs
+        public final Builder setRetryableErrors(@NonNull Class<? extends Throwable>... retryableErrors) {
+            checkNotNull(retryableErrors, "Retryable errors must not be null.");
+            this.retryableErrors = Collections.unmodifiableList(
+                    new ArrayList<Class<? extends Throwable>>(Arrays.asList(retryableErrors)));
+            return this;
+        }
+
+        /**
+         * @return the {@link RetryPolicy}
+         */
+        @NonNull
+        public RetryPolicy build() {
+            return new RetryPolicy(maxAttempts, baseDelayMillis, maxDelayMillis, jitter, retryOnServerError,
+                    retryableErrors);
+        }
+    }
+}
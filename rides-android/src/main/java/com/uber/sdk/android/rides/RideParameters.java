@@ -43,6 +43,7 @@ public class RideParameters implements Parcelable {
     @Nullable private final String dropoffNickname;
     @Nullable private final String dropoffAddress;
     @Nullable private String userAgent;
+    @NonNull private final Key key;
 
     public static final Creator<RideParameters> CREATOR = new Creator<RideParameters>() {
         @Override
@@ -88,6 +89,7 @@ public class RideParameters implements Parcelable {
         dropoffNickname = in.readString();
         dropoffAddress = in.readString();
         userAgent = in.readString();
+        key = new Key(this);
     }
 
     private RideParameters(boolean isPickupMyLocation,
@@ -110,6 +112,7 @@ public class RideParameters implements Parcelable {
         this.dropoffLongitude = dropoffLongitude;
         this.dropoffNickname = dropoffNickname;
         this.dropoffAddress = dropoffAddress;
+        this.key = new Key(this);
     }
 
     /**
@@ -192,6 +195,15 @@ public class RideParameters implements Parcelable {
         return dropoffAddress;
     }
 
+    /**
+     * @return a key that is equal for ride parameters with equal locations and product, fixed when these parameters
+     * are built. Unlike the parameters themselves, it can be used as a map key.
+     */
+    @NonNull
+    public Key getKey() {
+        return key;
+    }
+
     /**
      * @return the user agent.
      */
@@ -208,6 +220,89 @@ public class RideParameters implements Parcelable {
         this.userAgent = userAgent;
     }
 
+    /**
+     * Value of the locations and product of {@link RideParameters}, leaving out the user agent which changes after
+     * the parameters are built.
+     */
+    public static final class Key {
+
+        private final boolean isPickupMyLocation;
+        @Nullable private final String productId;
+        @Nullable private final Double pickupLatitude;
+        @Nullable private final Double pickupLongitude;
+        @Nullable private final String pickupNickname;
+        @Nullable private final String pickupAddress;
+        @Nullable private final Double dropoffLatitude;
+        @Nullable private final Double dropoffLongitude;
+        @Nullable private final String dropoffNickname;
+        @Nullable private final String dropoffAddress;
+        private final int hashCode;
+
+        private Key(@NonNull RideParameters rideParameters) {
+            isPickupMyLocation = rideParameters.isPickupMyLocation;
+            productId = rideParameters.productId;
+            pickupLatitude = rideParameters.pickupLatitude;
+            pickupLongitude = rideParameters.pickupLongitude;
+            pickupNickname = rideParameters.pickupNickname;
+            pickupAddress = rideParameters.pickupAddress;
+            dropoffLatitude = rideParameters.dropoffLatitude;
+            dropoffLongitude = rideParameters.dropoffLongitude;
+            dropoffNickname = rideParameters.dropoffNickname;
+            dropoffAddress = rideParameters.dropoffAddress;
+            hashCode = computeHashCode();
+        }
+
+        private int computeHashCode() {
+            int result = isPickupMyLocation ? 1 : 0;
+            result = 31 * result + hashCode(productId);
+            result = 31 * result + hashCode(pickupLatitude);
+            result = 31 * result + hashCode(pickupLongitude);
+            result = 31 * result + hashCode(pickupNickname);
+            result = 31 * result + hashCode(pickupAddress);
+            result = 31 * result + hashCode(dropoffLatitude);
+            result = 31 * result + hashCode(dropoffLongitude);
+            result = 31 * result + hashCode(dropoffNickname);
+            result = 31 * result + hashCode(dropoffAddress);
+            return result;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+
+            Key that = (Key) o;
+            return hashCode == that.hashCode
+                    && isPickupMyLocation == that.isPickupMyLocation
+                    && equal(productId, that.productId)
+                    && equal(pickupLatitude, that.pickupLatitude)
+                    && equal(pickupLongitude, that.pickupLongitude)
+                    && equal(pickupNickname, that.pickupNickname)
+                    && equal(pickupAddress, that.pickupAddress)
+                    && equal(dropoffLatitude, that.dropoffLatitude)
+                    && equal(dropoffLongitude, that.dropoffLongitude)
+                    && equal(dropoffNickname, that.dropoffNickname)
+                    && equal(dropoffAddress, that.dropoffAddress);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        private static boolean equal(@Nullable Object first, @Nullable Object second) {
+            return first != null ? first.equals(second) : second == null;
+        }
+
+        private static int hashCode(@Nullable Object object) {
+            return object != null ? object.hashCode() : 0;
+        }
+    }
+
     /**
      * Builder for {@link RideParameters} objects.
      */
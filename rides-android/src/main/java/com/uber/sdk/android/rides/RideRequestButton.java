@@ -24,15 +24,24 @@ package com.uber.sdk.android.rides;
 
 import android.annotation.SuppressLint;
 import android.annotation.TargetApi;
+import android.app.Activity;
+import android.app.Application;
 import android.content.Context;
+import android.content.ContextWrapper;
 import android.content.res.TypedArray;
 import android.graphics.Color;
+import android.graphics.Rect;
 import android.graphics.Typeface;
+import android.os.Bundle;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import android.support.annotation.StyleRes;
+import android.support.annotation.VisibleForTesting;
 import android.util.AttributeSet;
+import android.view.MotionEvent;
 import android.view.View;
+import android.view.ViewParent;
+import android.view.ViewTreeObserver;
 import android.widget.FrameLayout;
 import android.widget.LinearLayout;
 import android.widget.TextView;
@@ -40,16 +49,22 @@ import android.widget.TextView;
 import com.uber.sdk.android.core.UberButton;
 import com.uber.sdk.android.core.UberSdk;
 import com.uber.sdk.android.core.UberStyle;
+import com.uber.sdk.android.rides.internal.EstimateBatchLoader;
+import com.uber.sdk.android.rides.internal.EstimateRefreshScheduler;
 import com.uber.sdk.android.rides.internal.RideRequestButtonController;
 import com.uber.sdk.android.rides.internal.RideRequestButtonView;
+import com.uber.sdk.android.rides.internal.VisibilityGate;
 import com.uber.sdk.rides.client.Session;
 import com.uber.sdk.rides.client.SessionConfiguration;
 import com.uber.sdk.rides.client.model.PriceEstimate;
 import com.uber.sdk.rides.client.model.TimeEstimate;
 
+import java.util.Arrays;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 
 import static com.uber.sdk.android.core.utils.Preconditions.checkNotNull;
+import static com.uber.sdk.android.core.utils.Preconditions.checkState;
 
 /**
  * An Uber styled button to request rides with specific {@link RideParameters}. Default {@link RideParameters} is
@@ -75,6 +90,37 @@ public class RideRequestButton extends FrameLayout implements RideRequestButtonV
     private Session session;
     private RideRequestButtonCallback callback;
 
+    @NonNull
+    private EstimateLoadingPolicy loadingPolicy = EstimateLoadingPolicy.CACHE_FIRST;
+
+    @NonNull
+    private RetryPolicy retryPolicy = RetryPolicy.NONE;
+
+    private long latencyBudgetMillis;
+    private boolean progressiveRendering;
+    private boolean streamingParse;
+    private boolean autoRefresh;
+
+    @Nullable
+    private Executor processingExecutor;
+
+    @Nullable
+    private Executor deliveryExecutor;
+
+    private final Application.ActivityLifecycleCallbacks hostLifecycleCallbacks = new HostLifecycleCallbacks();
+
+    @Nullable
+    private Activity hostActivity;
+    private boolean hostStarted = true;
+
+    @NonNull
+    private LazyLoadingPolicy lazyLoadingPolicy = LazyLoadingPolicy.EAGER;
+
+    @Nullable
+    private VisibilityGate visibilityGate;
+    private final Rect visibleRect = new Rect();
+    private final VisibilityListener visibilityListener = new VisibilityListener();
+
     public RideRequestButton(Context context) {
         this(context, null);
     }
@@ -164,6 +210,156 @@ public class RideRequestButton extends FrameLayout implements RideRequestButtonV
         return this;
     }
 
+    /**
+     * Sets how previously loaded estimates are used when {@link #loadRideInformation()} is called. Defaults to
+     * {@link EstimateLoadingPolicy#CACHE_FIRST}.
+     *
+     * @param loadingPolicy the {@link EstimateLoadingPolicy} to use
+     * @return this instance of {@link RideRequestButton}
+     */
+    public RideRequestButton setLoadingPolicy(@NonNull EstimateLoadingPolicy loadingPolicy) {
+        this.loadingPolicy = loadingPolicy;
+        if (controller != null) {
+            controller.setLoadingPolicy(loadingPolicy);
+        }
+        return this;
+    }
+
+    /**
+     * Sets how failed estimate requests are retried. Defaults to {@link RetryPolicy#NONE}. Retries stop when the
+     * button is detached from its window.
+     *
+     * @param retryPolicy the {@link RetryPolicy} to use
+     * @return this instance of {@link RideRequestButton}
+     */
+    public RideRequestButton setRetryPolicy(@NonNull RetryPolicy retryPolicy) {
+        this.retryPolicy = retryPolicy;
+        if (controller != null) {
+            controller.setRetryPolicy(retryPolicy);
+        }
+        return this;
+    }
+
+    /**
+     * Sets the time estimates may take to load before the button shows what it has, e.g. the time estimate without
+     * the price estimate. Remaining requests are then cancelled and an {@link EstimateTimeoutException} is reported
+     * to the {@link RideRequestButtonCallback}. Defaults to 0, waiting indefinitely.
+     *
+     * @param latencyBudget time from {@link #loadRideInformation()} until estimates should be shown
+     * @param unit unit of latencyBudget
+     * @return this instance of {@link RideRequestButton}
+     */
+    public RideRequestButton setLatencyBudget(long latencyBudget, @NonNull TimeUnit unit) {
+        checkState(latencyBudget >= 0, "Latency budget must not be negative.");
+        this.latencyBudgetMillis = unit.toMillis(latencyBudget);
+        if (controller != null) {
+            controller.setLatencyBudget(latencyBudgetMillis, TimeUnit.MILLISECONDS);
+        }
+        return this;
+    }
+
+    /**
+     * Sets whether the time estimate is shown as soon as it loads instead of together with the price estimate.
+     * Pass a {@link ProgressiveRideRequestButtonCallback} to {@link #setCallback(RideRequestButtonCallback)} to be
+     * notified when that happens. Defaults to false.
+     *
+     * @param progressiveRendering true to show the time estimate before the price estimate
+     * @return this instance of {@link RideRequestButton}
+     */
+    public RideRequestButton setProgressiveRendering(boolean progressiveRendering) {
+        this.progressiveRendering = progressiveRendering;
+        if (controller != null) {
+            controller.setProgressiveRendering(progressiveRendering);
+        }
+        return this;
+    }
+
+    /**
+     * Sets whether estimate responses are parsed as a stream and reduced to the estimate this button shows, lowering
+     * memory use on low-end devices. Defaults to false.
+     *
+     * @param streamingParse true to keep only the estimate shown when parsing responses
+     * @return this instance of {@link RideRequestButton}
+     */
+    public RideRequestButton setStreamingParse(boolean streamingParse) {
+        this.streamingParse = streamingParse;
+        if (controller != null) {
+            controller.setStreamingParse(streamingParse);
+        }
+        return this;
+    }
+
+    /**
+     * Sets the executors estimates are handled on, keeping response processing off the main thread. Responses are
+     * processed on processingExecutor, while the button is updated and the {@link RideRequestButtonCallback} is
+     * notified on deliveryExecutor.
+     *
+     * @param processingExecutor executor for response processing, null to process responses on the main thread
+     * @param deliveryExecutor executor running on the main thread, null to batch all updates that are ready into one
+     * main thread message
+     * @return this instance of {@link RideRequestButton}
+     */
+    public RideRequestButton setEstimateExecutors(
+            @Nullable Executor processingExecutor,
+            @Nullable Executor deliveryExecutor) {
+        this.processingExecutor = processingExecutor;
+        this.deliveryExecutor = deliveryExecutor;
+        if (controller != null) {
+            controller.setExecutors(processingExecutor, deliveryExecutor);
+        }
+        return this;
+    }
+
+    /**
+     * Sets whether the estimates shown are refreshed periodically while the button is on screen, defaults to false.
+     * All buttons refresh together on one shared timer, see {@link #setAutoRefreshInterval(long, TimeUnit)}, and
+     * the button is only updated if the estimates changed.
+     *
+     * @param autoRefresh true to refresh estimates periodically
+     * @return this instance of {@link RideRequestButton}
+     */
+    public RideRequestButton setAutoRefresh(boolean autoRefresh) {
+        this.autoRefresh = autoRefresh;
+        updateAutoRefresh();
+        return this;
+    }
+
+    /**
+     * Sets how often buttons with {@link #setAutoRefresh(boolean)} enabled refresh their estimates while the app is
+     * in use, defaults to one minute. Refreshes happen less often while the app is idle and on metered networks,
+     * which are only detected if the app holds the ACCESS_NETWORK_STATE permission, and stop while no such button
+     * is on screen.
+     *
+     * @param interval time between refreshes
+     * @param unit unit of interval
+     */
+    public static void setAutoRefreshInterval(long interval, @NonNull TimeUnit unit) {
+        EstimateRefreshScheduler.getInstance().setInterval(interval, unit);
+    }
+
+    /**
+     * Sets when estimates requested by {@link #loadRideInformation()} are loaded. Use
+     * {@link LazyLoadingPolicy#whenVisible(float, long, TimeUnit)} in long lists to only load estimates for buttons
+     * the user actually sees. Defaults to {@link LazyLoadingPolicy#EAGER}.
+     *
+     * @param lazyLoadingPolicy the {@link LazyLoadingPolicy} to use
+     * @return this instance of {@link RideRequestButton}
+     */
+    public RideRequestButton setLazyLoadingPolicy(@NonNull LazyLoadingPolicy lazyLoadingPolicy) {
+        checkNotNull(lazyLoadingPolicy, "Lazy loading policy must not be null.");
+
+        final boolean attached = getWindowToken() != null;
+        if (attached) {
+            stopVisibilityTracking();
+        }
+        this.lazyLoadingPolicy = lazyLoadingPolicy;
+        if (attached) {
+            startVisibilityTracking();
+            updateHostVisibility();
+        }
+        return this;
+    }
+
     /**
      * Retrieve estimates from the server and updates the button accordingly. Requires:
      * 1. {@link #setSession(Session)}
@@ -177,6 +373,18 @@ public class RideRequestButton extends FrameLayout implements RideRequestButtonV
         getOrCreateController().loadRideInformation(rideParameters);
     }
 
+    /**
+     * Starts loading estimates for rideParameters before a {@link RideRequestButton} showing them is visible, e.g. for
+     * rows just below the viewport. Loaded estimates are cached and used by {@link #loadRideInformation()}.
+     * Ride parameters without a pickup location are skipped.
+     *
+     * @param session to be used for request signing
+     * @param rideParameters parameters of the buttons that will be shown
+     */
+    public static void prefetch(@NonNull Session session, @NonNull RideParameters... rideParameters) {
+        new EstimateBatchLoader(session).load(Arrays.asList(rideParameters));
+    }
+
     /**
      * Set {@link Session}
      *
@@ -303,23 +511,199 @@ public class RideRequestButton extends FrameLayout implements RideRequestButtonV
         }
     }
 
+    @VisibleForTesting
+    @Nullable
+    RideRequestButtonController getController() {
+        return controller;
+    }
+
+    /**
+     * Uses controller instead of creating one on {@link #loadRideInformation()}.
+     */
+    @VisibleForTesting
+    synchronized void setController(@NonNull RideRequestButtonController controller) {
+        this.controller = controller;
+        updateHostVisibility();
+        updateAutoRefresh();
+    }
+
     private synchronized RideRequestButtonController getOrCreateController() {
         if (controller == null) {
             checkNotNull(session, "Must set session using setSession.");
 
             controller = new RideRequestButtonController(this, session, callback);
+            controller.setLoadingPolicy(loadingPolicy);
+            controller.setRetryPolicy(retryPolicy);
+            controller.setLatencyBudget(latencyBudgetMillis, TimeUnit.MILLISECONDS);
+            controller.setProgressiveRendering(progressiveRendering);
+            controller.setStreamingParse(streamingParse);
+            controller.setExecutors(processingExecutor, deliveryExecutor);
+            if (getWindowToken() != null || lazyLoadingPolicy.isLazy()) {
+                updateHostVisibility();
+            }
+            updateAutoRefresh();
         }
         return controller;
     }
 
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        hostActivity = findActivity(getContext());
+        hostStarted = true;
+        if (hostActivity != null) {
+            hostActivity.getApplication().registerActivityLifecycleCallbacks(hostLifecycleCallbacks);
+        }
+        startVisibilityTracking();
+        updateHostVisibility();
+        updateAutoRefresh();
+    }
+
     @Override
     protected void onDetachedFromWindow() {
         super.onDetachedFromWindow();
+        if (hostActivity != null) {
+            hostActivity.getApplication().unregisterActivityLifecycleCallbacks(hostLifecycleCallbacks);
+            hostActivity = null;
+        }
+        stopVisibilityTracking();
         if (controller != null) {
+            EstimateRefreshScheduler.getInstance().unregister(controller);
             controller.destroy();
+            controller = null;
+        }
+    }
+
+    @Override
+    public boolean dispatchTouchEvent(MotionEvent event) {
+        if (autoRefresh) {
+            EstimateRefreshScheduler.getInstance().onUserActivity();
+        }
+        return super.dispatchTouchEvent(event);
+    }
+
+    @Override
+    public void onWindowFocusChanged(boolean hasWindowFocus) {
+        super.onWindowFocusChanged(hasWindowFocus);
+        if (autoRefresh && hasWindowFocus) {
+            EstimateRefreshScheduler.getInstance().onUserActivity();
         }
     }
 
+    @Override
+    protected void onWindowVisibilityChanged(int visibility) {
+        super.onWindowVisibilityChanged(visibility);
+        updateVisibleFraction();
+        updateHostVisibility();
+    }
+
+    @Override
+    protected void onVisibilityChanged(@NonNull View changedView, int visibility) {
+        super.onVisibilityChanged(changedView, visibility);
+        updateVisibleFraction();
+        if (changedView != this) {
+            updateHostVisibility();
+        }
+    }
+
+    /**
+     * Pauses estimate loading while the host activity is stopped or the button sits in a hidden window or parent,
+     * such as a hidden fragment, and resumes it once the host is visible again. The visibility of the button itself
+     * is left to the app, unless a lazy {@link LazyLoadingPolicy} also requires the button to be on screen.
+     */
+    private void updateHostVisibility() {
+        if (controller == null) {
+            return;
+        }
+
+        if (isHostVisible()) {
+            controller.resume();
+        } else {
+            controller.pause();
+        }
+        EstimateRefreshScheduler.getInstance().updateTimer();
+    }
+
+    private boolean isHostVisible() {
+        if (!hostStarted || getWindowVisibility() != VISIBLE) {
+            return false;
+        }
+
+        if (lazyLoadingPolicy.isLazy() && (visibilityGate == null || !visibilityGate.isVisible())) {
+            return false;
+        }
+
+        ViewParent parent = getParent();
+        while (parent instanceof View) {
+            if (((View) parent).getVisibility() != VISIBLE) {
+                return false;
+            }
+            parent = parent.getParent();
+        }
+        return true;
+    }
+
+    private void updateAutoRefresh() {
+        if (controller == null) {
+            return;
+        }
+
+        if (autoRefresh && getWindowToken() != null) {
+            EstimateRefreshScheduler.getInstance().register(getContext(), controller);
+        } else {
+            EstimateRefreshScheduler.getInstance().unregister(controller);
+        }
+    }
+
+    private void startVisibilityTracking() {
+        if (!lazyLoadingPolicy.isLazy()) {
+            return;
+        }
+
+        visibilityGate = new VisibilityGate(lazyLoadingPolicy, visibilityListener);
+        final ViewTreeObserver observer = getViewTreeObserver();
+        observer.addOnScrollChangedListener(visibilityListener);
+        observer.addOnGlobalLayoutListener(visibilityListener);
+        updateVisibleFraction();
+    }
+
+    @SuppressWarnings("deprecation")
+    private void stopVisibilityTracking() {
+        if (visibilityGate == null) {
+            return;
+        }
+
+        final ViewTreeObserver observer = getViewTreeObserver();
+        observer.removeOnScrollChangedListener(visibilityListener);
+        observer.removeGlobalOnLayoutListener(visibilityListener);
+        visibilityGate.reset();
+        visibilityGate = null;
+    }
+
+    private void updateVisibleFraction() {
+        if (visibilityGate == null) {
+            return;
+        }
+
+        final long area = (long) getWidth() * getHeight();
+        float visibleFraction = 0f;
+        if (area > 0 && isShown() && getGlobalVisibleRect(visibleRect)) {
+            visibleFraction = (float) ((long) visibleRect.width() * visibleRect.height()) / area;
+        }
+        visibilityGate.setVisibleFraction(visibleFraction);
+    }
+
+    @Nullable
+    private static Activity findActivity(@NonNull Context context) {
+        while (context instanceof ContextWrapper) {
+            if (context instanceof Activity) {
+                return (Activity) context;
+            }
+            context = ((ContextWrapper) context).getBaseContext();
+        }
+        return null;
+    }
+
     @Override
     public void showDefaultView() {
         requestButton.setText(R.string.ub__ride_with_uber);
@@ -347,4 +731,62 @@ public class RideRequestButton extends FrameLayout implements RideRequestButtonV
                 priceEstimate.getEstimate(), priceEstimate.getDisplayName()));
         priceEstimateView.setVisibility(VISIBLE);
     }
+
+    private class VisibilityListener implements VisibilityGate.Listener,
+            ViewTreeObserver.OnScrollChangedListener, ViewTreeObserver.OnGlobalLayoutListener {
+
+        @Override
+        public void onVisibilityChanged(boolean visible) {
+            updateHostVisibility();
+        }
+
+        @Override
+        public void onScrollChanged() {
+            updateVisibleFraction();
+        }
+
+        @Override
+        public void onGlobalLayout() {
+            updateVisibleFraction();
+        }
+    }
+
+    private class HostLifecycleCallbacks implements Application.ActivityLifecycleCallbacks {
+
+        @Override
+        public void onActivityCreated(Activity activity, Bundle savedInstanceState) {
+        }
+
+        @Override
+        public void onActivityStarted(Activity activity) {
+            if (activity == hostActivity) {
+                hostStarted = true;
+                updateHostVisibility();
+            }
+        }
+
+        @Override
+        public void onActivityResumed(Activity activity) {
+        }
+
+        @Override
+        public void onActivityPaused(Activity activity) {
+        }
+
+        @Override
+        public void onActivityStopped(Activity activity) {
+            if (activity == hostActivity) {
+                hostStarted = false;
+                updateHostVisibility();
+            }
+        }
+
+        @Override
+        public void onActivitySaveInstanceState(Activity activity, Bundle outState) {
+        }
+
+        @Override
+        public void onActivityDestroyed(Activity activity) {
+        }
+    }
 }
@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2016 Uber Technologies, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.uber.sdk.android.rides.internal;
+
+import static com.uber.sdk.android.core.utils.Preconditions.checkState;
+
+/**
+ * {@link LocationGrid} of cells obtained by rounding coordinates to a number of decimal places. Four decimal places
+ * give cells of about 11 meters at the equator.
+ */
+public class DecimalGrid implements LocationGrid {
+
+    static final int MAX_DECIMAL_PLACES = 7;
+
+    private final double scale;
+
+    /**
+     * @param decimalPlaces number of decimal places coordinates are rounded to, between 0 and 7.
+     */
+    public DecimalGrid(int decimalPlaces) {
+        checkState(decimalPlaces >= 0 && decimalPlaces <= MAX_DECIMAL_PLACES,
+                "Decimal places must be between 0 and " + MAX_DECIMAL_PLACES + ".");
+
+        this.scale = Math.pow(10, decimalPlaces);
+    }
+
+    @Override
+    public long getCellId(double latitude, double longitude) {
+        long roundedLatitude = Math.round(latitude * scale);
+        long roundedLongitude = Math.round(longitude * scale);
+        return (roundedLatitude << 32) | (roundedLongitude & 0xffffffffL);
+    }
+}
@@ -0,0 +1,430 @@
+/*
+ * Copyright (c) 2016 Uber Technologies, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.uber.sdk.android.rides.internal;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.VisibleForTesting;
+
+import com.uber.sdk.android.rides.DestinationEstimate;
+import com.uber.sdk.android.rides.DestinationRanker;
+import com.uber.sdk.android.rides.DestinationRanker.Listener;
+import com.uber.sdk.android.rides.EstimateApiException;
+import com.uber.sdk.android.rides.RideParameters;
+import com.uber.sdk.rides.client.Session;
+import com.uber.sdk.rides.client.error.ApiError;
+import com.uber.sdk.rides.client.model.PriceEstimate;
+import com.uber.sdk.rides.client.model.TimeEstimate;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+
+import static com.uber.sdk.android.core.utils.Preconditions.checkNotNull;
+import static com.uber.sdk.android.core.utils.Preconditions.checkState;
+
+/**
+ * Loads the {@link DestinationEstimate}s of a {@link DestinationRanker}. The pickup time estimate is loaded once for
+ * all products, and price estimates are loaded with bounded concurrency. Results are streamed to a {@link Listener}
+ * as each destination completes, together with everything ranked so far. The listener is never called while a lock
+ * is held, and destinations answered from the cache are ranked in a loop rather than by recursion.
+ */
+public class DestinationEstimateLoader {
+
+    static final int DEFAULT_MAX_CONCURRENT_REQUESTS = 4;
+
+    @NonNull private final EstimateLoader estimateLoader;
+    private int maxConcurrentRequests = DEFAULT_MAX_CONCURRENT_REQUESTS;
+
+    @Nullable private Ranking ranking;
+
+    public DestinationEstimateLoader(@NonNull Session session) {
+        this(new EstimateLoader(RidesServiceRegistry.getInstance().getService(session),
+                EstimateCache.getInstance(),
+                EstimateRequestCoalescer.getInstance()));
+    }
+
+    @VisibleForTesting
+    DestinationEstimateLoader(@NonNull EstimateLoader estimateLoader) {
+        this.estimateLoader = estimateLoader;
+    }
+
+    /**
+     * Sets how many price estimate requests run at once, defaults to 4.
+     */
+    public synchronized void setMaxConcurrentRequests(int maxConcurrentRequests) {
+        checkState(maxConcurrentRequests > 0, "Max concurrent requests must be positive.");
+        this.maxConcurrentRequests = maxConcurrentRequests;
+    }
+
+    /**
+     * Ranks rides from the pickup location of pickup to the dropoff locations of destinations, cancelling any
+     * ranking in progress.
+     *
+     * @param pickup parameters with the shared pickup location.
+     * @param destinations parameters with a dropoff location each, their pickup locations are ignored.
+     * @param listener notified as destinations are ranked.
+     */
+    public void rank(
+            @NonNull RideParameters pickup,
+            @NonNull List<RideParameters> destinations,
+            @NonNull Listener listener) {
+        checkNotNull(pickup.getPickupLatitude(), "Must set pick up point latitude in RideParameters.");
+        checkNotNull(pickup.getPickupLongitude(), "Must set pick up point longitude in RideParameters.");
+        for (RideParameters destination : destinations) {
+            checkNotNull(destination.getDropoffLatitude(), "Must set dropoff point latitude of all destinations.");
+            checkNotNull(destination.getDropoffLongitude(), "Must set dropoff point longitude of all destinations.");
+        }
+
+        final Ranking newRanking = new Ranking(pickup.getPickupLatitude().floatValue(),
+                pickup.getPickupLongitude().floatValue(), destinations, listener);
+        synchronized (this) {
+            cancel();
+            ranking = newRanking;
+        }
+        newRanking.start();
+    }
+
+    /**
+     * Cancels the ranking in progress, if any. Requests shared with others keep running.
+     */
+    public synchronized void cancel() {
+        if (ranking != null) {
+            ranking.cancel();
+            ranking = null;
+        }
+    }
+
+    /**
+     * @return the destination estimate with the cheapest and fastest product, given price estimates to the
+     * destination and pickup time estimates by product.
+     */
+    @NonNull
+    static DestinationEstimate createDestinationEstimate(
+            @NonNull RideParameters destination,
+            @NonNull EstimateIndex<PriceEstimate> priceEstimates,
+            @NonNull EstimateIndex<TimeEstimate> timeEstimates) {
+        PriceEstimate cheapest = null;
+        PriceEstimate fastest = null;
+        Integer fastestArrivalSeconds = null;
+
+        for (PriceEstimate priceEstimate : priceEstimates.getEstimates()) {
+            final Integer lowEstimate = priceEstimate.getLowEstimate();
+            if (lowEstimate != null && (cheapest == null || lowEstimate < cheapest.getLowEstimate())) {
+                cheapest = priceEstimate;
+            }
+
+            final TimeEstimate timeEstimate = priceEstimate.getProductId() != null
+                    ? timeEstimates.find(priceEstimate.getProductId())
+                    : null;
+            if (timeEstimate == null || timeEstimate.getEstimate() == null || priceEstimate.getDuration() == null) {
+                continue;
+            }
+
+            final int arrivalSeconds = timeEstimate.getEstimate() + priceEstimate.getDuration();
+            if (fastestArrivalSeconds == null || arrivalSeconds < fastestArrivalSeconds) {
+                fastest = priceEstimate;
+                fastestArrivalSeconds = arrivalSeconds;
+            }
+        }
+        return new DestinationEstimate(destination, cheapest, fastest, fastestArrivalSeconds);
+    }
+
+    /**
+     * One run of {@link #rank(RideParameters, List, Listener)}.
+     */
+    private class Ranking {
+
+        private final float pickupLatitude;
+        private final float pickupLongitude;
+        @NonNull private final Listener listener;
+        @NonNull private final Deque<RideParameters> queued;
+        @NonNull private final List<Subscription> subscriptions = new ArrayList<>();
+        @NonNull private final List<DestinationEstimate> byPrice = new ArrayList<>();
+        @NonNull private final List<Pending> waitingForTime = new ArrayList<>();
+
+        @Nullable private EstimateIndex<TimeEstimate> timeEstimates;
+        @Nullable private Throwable timeFailure;
+        private int running;
+        private int remaining;
+        private boolean loading;
+        private boolean cancelled;
+
+        Ranking(
+                float pickupLatitude,
+                float pickupLongitude,
+                @NonNull List<RideParameters> destinations,
+                @NonNull Listener listener) {
+            this.pickupLatitude = pickupLatitude;
+            this.pickupLongitude = pickupLongitude;
+            this.listener = listener;
+            this.queued = new ArrayDeque<>(destinations);
+            this.remaining = destinations.size();
+        }
+
+        void start() {
+            if (remaining == 0) {
+                complete();
+                return;
+            }
+
+            subscriptions.add(estimateLoader.loadTimeEstimates(pickupLatitude, pickupLongitude, null,
+                    new EstimateCallback<EstimateIndex<TimeEstimate>>() {
+                        @Override
+                        public void onEstimatesLoaded(@NonNull EstimateIndex<TimeEstimate> estimates) {
+                            onTimeEstimates(estimates);
+                        }
+
+                        @Override
+                        public void onError(@NonNull ApiError apiError) {
+                            onTimeEstimatesFailed(new EstimateApiException(apiError));
+                        }
+
+                        @Override
+                        public void onFailure(@NonNull Throwable throwable) {
+                            onTimeEstimatesFailed(throwable);
+                        }
+                    }));
+            loadNext();
+        }
+
+        void cancel() {
+            synchronized (DestinationEstimateLoader.this) {
+                cancelled = true;
+                for (Subscription subscription : subscriptions) {
+                    subscription.cancel();
+                }
+                subscriptions.clear();
+                queued.clear();
+                waitingForTime.clear();
+            }
+        }
+
+        /**
+         * Starts price estimate requests until the max concurrent requests run. Only one thread runs the loop at a
+         * time; calls made while it runs, including from estimates delivered synchronously from the cache, return
+         * right away and leave the requests they free up to the running loop.
+         */
+        private void loadNext() {
+            synchronized (DestinationEstimateLoader.this) {
+                if (loading) {
+                    return;
+                }
+                loading = true;
+            }
+
+            while (true) {
+                final RideParameters destination;
+                synchronized (DestinationEstimateLoader.this) {
+                    if (cancelled || running >= maxConcurrentRequests || queued.isEmpty()) {
+                        loading = false;
+                        return;
+                    }
+                    destination = queued.poll();
+                    running++;
+                }
+                loadPriceEstimates(destination);
+            }
+        }
+
+        private void loadPriceEstimates(@NonNull final RideParameters destination) {
+            final Subscription subscription = estimateLoader.loadPriceEstimates(pickupLatitude, pickupLongitude,
+                    destination.getDropoffLatitude().floatValue(), destination.getDropoffLongitude().floatValue(),
+                    null, new EstimateCallback<EstimateIndex<PriceEstimate>>() {
+                        @Override
+                        public void onEstimatesLoaded(@NonNull EstimateIndex<PriceEstimate> estimates) {
+                            onPriceEstimates(destination, estimates);
+                        }
+
+                        @Override
+                        public void onError(@NonNull ApiError apiError) {
+                            onDestinationFailed(destination, new EstimateApiException(apiError));
+                        }
+
+                        @Override
+                        public void onFailure(@NonNull Throwable throwable) {
+                            onDestinationFailed(destination, throwable);
+                        }
+                    });
+            synchronized (DestinationEstimateLoader.this) {
+                if (cancelled) {
+                    subscription.cancel();
+                } else {
+                    subscriptions.add(subscription);
+                }
+            }
+        }
+
+        private void onTimeEstimates(@NonNull EstimateIndex<TimeEstimate> estimates) {
+            final List<Pending> pending;
+            synchronized (DestinationEstimateLoader.this) {
+                if (cancelled) {
+                    return;
+                }
+                timeEstimates = estimates;
+                pending = new ArrayList<>(waitingForTime);
+                waitingForTime.clear();
+            }
+
+            for (Pending destination : pending) {
+                rankDestination(destination.destination, destination.priceEstimates);
+            }
+        }
+
+        /**
+         * Fails the destinations waiting for the pickup time estimates and those not loaded yet. Destinations whose
+         * price estimates are in flight fail once they arrive.
+         */
+        private void onTimeEstimatesFailed(@NonNull Throwable throwable) {
+            final List<RideParameters> failed = new ArrayList<>();
+            synchronized (DestinationEstimateLoader.this) {
+                if (cancelled) {
+                    return;
+                }
+                timeFailure = throwable;
+                for (Pending destination : waitingForTime) {
+                    failed.add(destination.destination);
+                }
+                waitingForTime.clear();
+                failed.addAll(queued);
+                queued.clear();
+            }
+
+            for (RideParameters destination : failed) {
+                listener.onDestinationFailed(destination, throwable);
+                onDestinationDone();
+            }
+        }
+
+        private void onPriceEstimates(
+                @NonNull RideParameters destination,
+                @NonNull EstimateIndex<PriceEstimate> priceEstimates) {
+            final boolean timeLoaded;
+            final Throwable failure;
+            synchronized (DestinationEstimateLoader.this) {
+                if (cancelled) {
+                    return;
+                }
+                running--;
+                timeLoaded = timeEstimates != null;
+                failure = timeFailure;
+                if (!timeLoaded && failure == null) {
+                    waitingForTime.add(new Pending(destination, priceEstimates));
+                }
+            }
+
+            if (failure != null) {
+                listener.onDestinationFailed(destination, failure);
+                onDestinationDone();
+            } else if (timeLoaded) {
+                rankDestination(destination, priceEstimates);
+            }
+            loadNext();
+        }
+
+        private void onDestinationFailed(@NonNull RideParameters destination, @NonNull Throwable throwable) {
+            synchronized (DestinationEstimateLoader.this) {
+                if (cancelled) {
+                    return;
+                }
+                running--;
+            }
+
+            listener.onDestinationFailed(destination, throwable);
+            onDestinationDone();
+            loadNext();
+        }
+
+        private void rankDestination(
+                @NonNull RideParameters destination,
+                @NonNull EstimateIndex<PriceEstimate> priceEstimates) {
+            final DestinationEstimate estimate;
+            final List<DestinationEstimate> ranked;
+            synchronized (DestinationEstimateLoader.this) {
+                if (cancelled || timeEstimates == null) {
+                    return;
+                }
+                estimate = createDestinationEstimate(destination, priceEstimates, timeEstimates);
+                insertSorted(byPrice, estimate, DestinationEstimate.BY_PRICE);
+                ranked = Collections.unmodifiableList(new ArrayList<>(byPrice));
+            }
+
+            listener.onDestinationRanked(estimate, ranked);
+            onDestinationDone();
+        }
+
+        private void onDestinationDone() {
+            final boolean complete;
+            synchronized (DestinationEstimateLoader.this) {
+                remaining--;
+                complete = remaining == 0 && !cancelled;
+            }
+
+            if (complete) {
+                complete();
+            }
+        }
+
+        private void complete() {
+            final List<DestinationEstimate> rankedByPrice;
+            final List<DestinationEstimate> rankedByArrival;
+            synchronized (DestinationEstimateLoader.this) {
+                rankedByPrice = Collections.unmodifiableList(new ArrayList<>(byPrice));
+                final List<DestinationEstimate> arrival = new ArrayList<>(byPrice);
+                Collections.sort(arrival, DestinationEstimate.BY_ARRIVAL);
+                rankedByArrival = Collections.unmodifiableList(arrival);
+            }
+            listener.onRankingComplete(rankedByPrice, rankedByArrival);
+        }
+    }
+
+    private static <T> void insertSorted(@NonNull List<T> list, @NonNull T item, @NonNull Comparator<T> comparator) {
+        int index = Collections.binarySearch(list, item, comparator);
+        if (index < 0) {
+            index = -index - 1;
+        } else {
+            while (index < list.size() && comparator.compare(list.get(index), item) == 0) {
+                index++;
+            }
+        }
+        list.add(index, item);
+    }
+
+    /**
+     * Price estimates of a destination waiting for the pickup time estimates.
+     */
+    private static class Pending {
+
+        @NonNull final RideParameters destination;
+        @NonNull final EstimateIndex<PriceEstimate> priceEstimates;
+
+        Pending(@NonNull RideParameters destination, @NonNull EstimateIndex<PriceEstimate> priceEstimates) {
+            this.destination = destination;
+            this.priceEstimates = priceEstimates;
+        }
+    }
+}
@@ -0,0 +1,244 @@
+/*
+ * Copyright (c) 2016 Uber Technologies, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.uber.sdk.android.rides.internal;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.VisibleForTesting;
+
+import com.uber.sdk.android.rides.RideParameters;
+import com.uber.sdk.android.rides.RideRequestButtonCallback;
+import com.uber.sdk.rides.client.Session;
+import com.uber.sdk.rides.client.error.ApiError;
+import com.uber.sdk.rides.client.model.PriceEstimate;
+import com.uber.sdk.rides.client.model.TimeEstimate;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Loads estimates for many {@link RideRequestButtonView}s at once, e.g. the rows of a list. Time estimates are
+ * loaded once per pickup cell for all products, and price estimates once per pickup and dropoff cell pair. Results
+ * are fanned out to every bound view.
+ * <p>
+ * Call {@link #load(Collection)} with the {@link RideParameters} of all rows, {@link #bind(RideRequestButtonView,
+ * RideParameters, RideRequestButtonCallback)} when a row is bound and {@link #unbind(RideRequestButtonView)} when
+ * it is recycled.
+ */
+public class EstimateBatchLoader {
+
+    @NonNull private final EstimateLoader estimateLoader;
+    @NonNull private final EstimateCache estimateCache;
+    @NonNull private final Map<RideRequestButtonView, Binding> bindings = new HashMap<>();
+    @NonNull private final Map<EstimateKey, BatchRequest<?>> batchRequests = new HashMap<>();
+
+    public EstimateBatchLoader(@NonNull Session session) {
+        this(new EstimateLoader(RidesServiceRegistry.getInstance().getService(session),
+                EstimateCache.getInstance(),
+                EstimateRequestCoalescer.getInstance()), EstimateCache.getInstance());
+    }
+
+    @VisibleForTesting
+    EstimateBatchLoader(@NonNull EstimateLoader estimateLoader, @NonNull EstimateCache estimateCache) {
+        this.estimateLoader = estimateLoader;
+        this.estimateCache = estimateCache;
+    }
+
+    /**
+     * Starts loading estimates for all ride parameters with as few requests as possible, skipping those already
+     * running for an earlier call. Parameters without a pickup location are skipped.
+     *
+     * @param rideParametersList parameters of all rows that may be bound.
+     */
+    public synchronized void load(@NonNull Collection<RideParameters> rideParametersList) {
+        final Set<RideParameters.Key> rideParametersKeys = new HashSet<>();
+        final Set<EstimateKey> timeKeys = new HashSet<>();
+        final Set<EstimateKey> priceKeys = new HashSet<>();
+
+        for (RideParameters rideParameters : rideParametersList) {
+            if (!rideParametersKeys.add(rideParameters.getKey())) {
+                continue;
+            }
+
+            if (rideParameters.getPickupLatitude() == null || rideParameters.getPickupLongitude() == null) {
+                continue;
+            }
+
+            final float pickupLatitude = rideParameters.getPickupLatitude().floatValue();
+            final float pickupLongitude = rideParameters.getPickupLongitude().floatValue();
+
+            final EstimateKey timeKey = estimateCache.newTimeKey(pickupLatitude, pickupLongitude, null);
+            if (timeKeys.add(timeKey) && !batchRequests.containsKey(timeKey)) {
+                final BatchRequest<EstimateIndex<TimeEstimate>> request = new BatchRequest<>(timeKey);
+                request.start(estimateLoader.loadTimeEstimates(pickupLatitude, pickupLongitude, null, request));
+            }
+
+            if (rideParameters.getDropoffLatitude() == null || rideParameters.getDropoffLongitude() == null) {
+                continue;
+            }
+
+            final float dropoffLatitude = rideParameters.getDropoffLatitude().floatValue();
+            final float dropoffLongitude = rideParameters.getDropoffLongitude().floatValue();
+
+            final EstimateKey priceKey = estimateCache.newPriceKey(pickupLatitude, pickupLongitude, dropoffLatitude,
+                    dropoffLongitude);
+            if (priceKeys.add(priceKey) && !batchRequests.containsKey(priceKey)) {
+                final BatchRequest<EstimateIndex<PriceEstimate>> request = new BatchRequest<>(priceKey);
+                request.start(estimateLoader.loadPriceEstimates(pickupLatitude, pickupLongitude,
+                        dropoffLatitude, dropoffLongitude, null, request));
+            }
+        }
+    }
+
+    /**
+     * Shows the estimates for rideParameters on view, sharing the requests started by {@link #load(Collection)}.
+     * Any previous binding of view is cancelled, unless it is for equal parameters and the same callback, e.g. when
+     * a list rebinds unchanged rows, in which case it is kept.
+     *
+     * @param view the view to show estimates on.
+     * @param rideParameters the parameters to show estimates for.
+     * @param callback notified once estimates are shown or failed to load.
+     */
+    public synchronized void bind(
+            @NonNull RideRequestButtonView view,
+            @NonNull RideParameters rideParameters,
+            @Nullable RideRequestButtonCallback callback) {
+        final Binding binding = bindings.get(view);
+        if (binding != null && binding.rideParametersKey.equals(rideParameters.getKey())
+                && binding.callback == callback) {
+            return;
+        }
+        unbind(view);
+
+        final RideRequestButtonController controller = new RideRequestButtonController(view, estimateLoader, callback);
+        bindings.put(view, new Binding(controller, rideParameters.getKey(), callback));
+        controller.loadRideInformation(rideParameters);
+    }
+
+    /**
+     * Stops delivering estimates to view, e.g. when its row is recycled. Requests still needed by other views keep
+     * running.
+     */
+    public synchronized void unbind(@NonNull RideRequestButtonView view) {
+        final Binding binding = bindings.remove(view);
+        if (binding != null) {
+            binding.controller.destroy();
+        }
+    }
+
+    /**
+     * Unbinds all views and cancels all requests started by {@link #load(Collection)}.
+     */
+    public synchronized void cancel() {
+        for (Binding binding : bindings.values()) {
+            binding.controller.destroy();
+        }
+        bindings.clear();
+
+        for (BatchRequest<?> request : batchRequests.values()) {
+            request.subscription.cancel();
+        }
+        batchRequests.clear();
+    }
+
+    /**
+     * @return the number of requests started by {@link #load(Collection)} that are still running.
+     */
+    @VisibleForTesting
+    synchronized int getBatchRequestCount() {
+        return batchRequests.size();
+    }
+
+    /**
+     * Controller showing estimates on a bound view, with the parameters and callback it was bound with.
+     */
+    private static class Binding {
+
+        @NonNull final RideRequestButtonController controller;
+        @NonNull final RideParameters.Key rideParametersKey;
+        @Nullable final RideRequestButtonCallback callback;
+
+        Binding(
+                @NonNull RideRequestButtonController controller,
+                @NonNull RideParameters.Key rideParametersKey,
+                @Nullable RideRequestButtonCallback callback) {
+            this.controller = controller;
+            this.rideParametersKey = rideParametersKey;
+            this.callback = callback;
+        }
+    }
+
+    /**
+     * Keeps a batch request running until it completes, without handling its outcome, which is delivered to bound
+     * views. The request is tracked by its key while running, so completed requests are not held on to.
+     */
+    private class BatchRequest<T> implements EstimateCallback<T> {
+
+        @NonNull private final EstimateKey key;
+        @NonNull private Subscription subscription = Subscription.EMPTY;
+        private boolean completed;
+
+        BatchRequest(@NonNull EstimateKey key) {
+            this.key = key;
+        }
+
+        /**
+         * Tracks the request with its subscription, unless it already completed, e.g. from the cache.
+         */
+        void start(@NonNull Subscription subscription) {
+            synchronized (EstimateBatchLoader.this) {
+                if (!completed) {
+                    this.subscription = subscription;
+                    batchRequests.put(key, this);
+                }
+            }
+        }
+
+        @Override
+        public void onEstimatesLoaded(@NonNull T estimates) {
+            complete();
+        }
+
+        @Override
+        public void onError(@NonNull ApiError apiError) {
+            complete();
+        }
+
+        @Override
+        public void onFailure(@NonNull Throwable throwable) {
+            complete();
+        }
+
+        private void complete() {
+            synchronized (EstimateBatchLoader.this) {
+                completed = true;
+                if (batchRequests.get(key) == this) {
+                    batchRequests.remove(key);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,327 @@
+/*
+ * Copyright (c) 2016 Uber Technologies, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.uber.sdk.android.rides.internal;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.VisibleForTesting;
+
+import com.uber.sdk.rides.client.model.PriceEstimate;
+import com.uber.sdk.rides.client.model.TimeEstimate;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static com.uber.sdk.android.core.utils.Preconditions.checkState;
+
+/**
+ * Process-wide, size and age bounded store of estimates shared by all {@link RideRequestButtonController}s.
+ * Least recently used entries are evicted once the size limit is reached.
+ */
+public class EstimateCache {
+
+    static final int DEFAULT_MAX_SIZE = 64;
+    static final long DEFAULT_MAX_AGE_MILLIS = TimeUnit.MINUTES.toMillis(1);
+    static final LocationGrid DEFAULT_GRID = new DecimalGrid(4);
+
+    private static EstimateCache instance;
+
+    @NonNull private final Clock clock;
+    @NonNull private final Store<EstimateIndex<TimeEstimate>> timeEstimates = new Store<>();
+    @NonNull private final Store<EstimateIndex<PriceEstimate>> priceEstimates = new Store<>();
+
+    @NonNull private volatile LocationGrid grid = DEFAULT_GRID;
+    private int maxSize;
+    private long maxAgeMillis;
+    private long largestMaxStalenessMillis;
+    private long hitCount;
+    private long missCount;
+
+    /**
+     * @return the {@link EstimateCache} shared by all {@link RideRequestButtonController}s.
+     */
+    @NonNull
+    public static synchronized EstimateCache getInstance() {
+        if (instance == null) {
+            instance = new EstimateCache(DEFAULT_MAX_SIZE, DEFAULT_MAX_AGE_MILLIS, Clock.SYSTEM);
+        }
+        return instance;
+    }
+
+    @VisibleForTesting
+    EstimateCache(int maxSize, long maxAgeMillis, @NonNull Clock clock) {
+        this.clock = clock;
+        setLimits(maxSize, maxAgeMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Sets the limits of this cache, evicting entries that no longer fit.
+     *
+     * @param maxSize maximum number of time and price responses each kept, 0 to disable caching.
+     * @param maxAge maximum age of a cached response returned by lookups without a max staleness. Responses are
+     * kept for longer once lookups with a larger max staleness have been made.
+     * @param unit unit of maxAge.
+     */
+    public synchronized void setLimits(int maxSize, long maxAge, @NonNull TimeUnit unit) {
+        checkState(maxSize >= 0, "Max size must not be negative.");
+        checkState(maxAge >= 0, "Max age must not be negative.");
+
+        this.maxSize = maxSize;
+        this.maxAgeMillis = unit.toMillis(maxAge);
+        timeEstimates.trimToSize();
+        priceEstimates.trimToSize();
+    }
+
+    /**
+     * Sets the {@link LocationGrid} estimates are keyed by. Estimates requested for locations in the same cell are
+     * shared, while the exact location is still used for the request itself. Clears this cache.
+     *
+     * @param grid the {@link LocationGrid} to use, defaults to a {@link DecimalGrid} of 4 decimal places.
+     */
+    public synchronized void setGrid(@NonNull LocationGrid grid) {
+        this.grid = grid;
+        clear();
+    }
+
+    /**
+     * @return key for a time estimate request.
+     */
+    @NonNull
+    EstimateKey newTimeKey(float latitude, float longitude, @Nullable String productId) {
+        return EstimateKey.forTime(grid, latitude, longitude, productId);
+    }
+
+    /**
+     * @return key for a price estimate request.
+     */
+    @NonNull
+    EstimateKey newPriceKey(
+            float startLatitude,
+            float startLongitude,
+            float endLatitude,
+            float endLongitude) {
+        return EstimateKey.forPrice(grid, startLatitude, startLongitude, endLatitude, endLongitude);
+    }
+
+    /**
+     * @return the number of lookups that were answered from this cache.
+     */
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * @return the number of lookups that had to go to the network.
+     */
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * Discards all cached estimates. Hit and miss counts are kept.
+     */
+    public synchronized void clear() {
+        timeEstimates.clear();
+        priceEstimates.clear();
+    }
+
+    @Nullable
+    synchronized EstimateIndex<TimeEstimate> getTimeEstimates(@NonNull EstimateKey key) {
+        return getTimeEstimates(key, null);
+    }
+
+    /**
+     * Gets cached time estimates, falling back to the estimates cached under fallbackKey.
+     */
+    @Nullable
+    synchronized EstimateIndex<TimeEstimate> getTimeEstimates(
+            @NonNull EstimateKey key,
+            @Nullable EstimateKey fallbackKey) {
+        final Entry<EstimateIndex<TimeEstimate>> entry = get(timeEstimates, key, fallbackKey, maxAgeMillis);
+        return entry != null ? entry.value : null;
+    }
+
+    /**
+     * Gets cached time estimates no older than maxStalenessMillis, which may exceed the max age of this cache,
+     * falling back to the estimates cached under fallbackKey. Does not count as a hit or miss, so loads can check
+     * the cache before the lookup that serves them.
+     */
+    @Nullable
+    synchronized Entry<EstimateIndex<TimeEstimate>> peekTimeEstimates(
+            @NonNull EstimateKey key,
+            @Nullable EstimateKey fallbackKey,
+            long maxStalenessMillis) {
+        return find(timeEstimates, key, fallbackKey, maxStalenessMillis);
+    }
+
+    synchronized void putTimeEstimates(@NonNull EstimateKey key, @NonNull EstimateIndex<TimeEstimate> estimates) {
+        put(timeEstimates, key, estimates);
+    }
+
+    @Nullable
+    synchronized EstimateIndex<PriceEstimate> getPriceEstimates(@NonNull EstimateKey key) {
+        return getPriceEstimates(key, null);
+    }
+
+    /**
+     * Gets cached price estimates, falling back to the estimates cached under fallbackKey.
+     */
+    @Nullable
+    synchronized EstimateIndex<PriceEstimate> getPriceEstimates(
+            @NonNull EstimateKey key,
+            @Nullable EstimateKey fallbackKey) {
+        final Entry<EstimateIndex<PriceEstimate>> entry = get(priceEstimates, key, fallbackKey, maxAgeMillis);
+        return entry != null ? entry.value : null;
+    }
+
+    /**
+     * Gets cached price estimates no older than maxStalenessMillis, which may exceed the max age of this cache,
+     * falling back to the estimates cached under fallbackKey. Does not count as a hit or miss, so loads can check
+     * the cache before the lookup that serves them.
+     */
+    @Nullable
+    synchronized Entry<EstimateIndex<PriceEstimate>> peekPriceEstimates(
+            @NonNull EstimateKey key,
+            @Nullable EstimateKey fallbackKey,
+            long maxStalenessMillis) {
+        return find(priceEstimates, key, fallbackKey, maxStalenessMillis);
+    }
+
+    synchronized void putPriceEstimates(@NonNull EstimateKey key, @NonNull EstimateIndex<PriceEstimate> estimates) {
+        put(priceEstimates, key, estimates);
+    }
+
+    /**
+     * Counts a hit for a load served by an entry found with a peek.
+     */
+    synchronized void recordHit() {
+        hitCount++;
+    }
+
+    /**
+     * @return maximum age of a cached response returned by lookups without a max staleness.
+     */
+    synchronized long getMaxAgeMillis() {
+        return maxAgeMillis;
+    }
+
+    /**
+     * @return how long ago the entry was cached.
+     */
+    long getAgeMillis(@NonNull Entry<?> entry) {
+        return getAgeMillis(entry.createdAtMillis);
+    }
+
+    /**
+     * @return how long ago timeMillis was, by the clock of this cache.
+     */
+    long getAgeMillis(long timeMillis) {
+        return clock.currentTimeMillis() - timeMillis;
+    }
+
+    @Nullable
+    private <V> Entry<V> get(
+            @NonNull Store<V> store,
+            @NonNull EstimateKey key,
+            @Nullable EstimateKey fallbackKey,
+            long maxStalenessMillis) {
+        final Entry<V> entry = find(store, key, fallbackKey, maxStalenessMillis);
+        if (entry == null) {
+            missCount++;
+            return null;
+        }
+
+        hitCount++;
+        return entry;
+    }
+
+    @Nullable
+    private <V> Entry<V> find(
+            @NonNull Store<V> store,
+            @NonNull EstimateKey key,
+            @Nullable EstimateKey fallbackKey,
+            long maxStalenessMillis) {
+        final Entry<V> entry = lookup(store, key, maxStalenessMillis);
+        if (entry == null && fallbackKey != null) {
+            return lookup(store, fallbackKey, maxStalenessMillis);
+        }
+        return entry;
+    }
+
+    /**
+     * Looks up the entry of key. Entries are discarded once older than both the max age and the largest max
+     * staleness looked up so far, so lookups with a max staleness beyond the max age still find them.
+     */
+    @Nullable
+    private <V> Entry<V> lookup(@NonNull Store<V> store, @NonNull EstimateKey key, long maxStalenessMillis) {
+        largestMaxStalenessMillis = Math.max(largestMaxStalenessMillis, maxStalenessMillis);
+        final Entry<V> entry = store.get(key);
+        if (entry == null) {
+            return null;
+        }
+
+        final long ageMillis = getAgeMillis(entry);
+        if (ageMillis > Math.max(maxAgeMillis, largestMaxStalenessMillis)) {
+            store.remove(key);
+            return null;
+        }
+        return ageMillis <= maxStalenessMillis ? entry : null;
+    }
+
+    private <V> void put(@NonNull Store<V> store, @NonNull EstimateKey key, @NonNull V value) {
+        if (maxSize == 0) {
+            return;
+        }
+        store.put(key, new Entry<>(value, clock.currentTimeMillis()));
+    }
+
+    static class Entry<V> {
+
+        @NonNull final V value;
+        final long createdAtMillis;
+
+        Entry(@NonNull V value, long createdAtMillis) {
+            this.value = value;
+            this.createdAtMillis = createdAtMillis;
+        }
+    }
+
+    private class Store<V> extends LinkedHashMap<EstimateKey, Entry<V>> {
+
+        Store() {
+            super(16, 0.75f, true);
+        }
+
+        void trimToSize() {
+            while (size() > maxSize) {
+                remove(keySet().iterator().next());
+            }
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<EstimateKey, Entry<V>> eldest) {
+            return size() > maxSize;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2016 Uber Technologies, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.uber.sdk.android.rides.internal;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.uber.sdk.rides.client.model.PriceEstimate;
+import com.uber.sdk.rides.client.model.TimeEstimate;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Estimates of one response indexed by product id. Built once per response and cached with it, so that buttons
+ * showing different products at the same location each find their estimate in constant time.
+ */
+final class EstimateIndex<E> {
+
+    private static final EstimateIndex<Object> EMPTY =
+            new EstimateIndex<>(Collections.<Object>emptyList(), Collections.<String, Object>emptyMap());
+
+    @NonNull private final List<E> estimates;
+    @NonNull private final Map<String, E> estimatesByProductId;
+
+    private EstimateIndex(@NonNull List<E> estimates, @NonNull Map<String, E> estimatesByProductId) {
+        this.estimates = estimates;
+        this.estimatesByProductId = estimatesByProductId;
+    }
+
+    @NonNull
+    @SuppressWarnings("unchecked")
+    static <E> EstimateIndex<E> empty() {
+        return (EstimateIndex<E>) EMPTY;
+    }
+
+    @NonNull
+    static EstimateIndex<TimeEstimate> ofTimeEstimates(@Nullable List<TimeEstimate> estimates) {
+        if (estimates == null || estimates.isEmpty()) {
+            return empty();
+        }
+
+        final Map<String, TimeEstimate> estimatesByProductId = new HashMap<>(capacityFor(estimates.size()));
+        for (TimeEstimate estimate : estimates) {
+            putIfAbsent(estimatesByProductId, estimate.getProductId(), estimate);
+        }
+        return new EstimateIndex<>(estimates, estimatesByProductId);
+    }
+
+    @NonNull
+    static EstimateIndex<PriceEstimate> ofPriceEstimates(@Nullable List<PriceEstimate> estimates) {
+        if (estimates == null || estimates.isEmpty()) {
+            return empty();
+        }
+
+        final Map<String, PriceEstimate> estimatesByProductId = new HashMap<>(capacityFor(estimates.size()));
+        for (PriceEstimate estimate : estimates) {
+            putIfAbsent(estimatesByProductId, estimate.getProductId(), estimate);
+        }
+        return new EstimateIndex<>(estimates, estimatesByProductId);
+    }
+
+    boolean isEmpty() {
+        return estimates.isEmpty();
+    }
+
+    /**
+     * @return the estimates in the order of the response.
+     */
+    @NonNull
+    List<E> getEstimates() {
+        return estimates;
+    }
+
+    /**
+     * @return the estimate for productId, the first estimate if productId is null, or null if there is none.
+     */
+    @Nullable
+    E find(@Nullable String productId) {
+        if (productId == null) {
+            return estimates.isEmpty() ? null : estimates.get(0);
+        }
+        return estimatesByProductId.get(productId);
+    }
+
+    /**
+     * Keeps the first estimate of a product, matching a scan of the response in order.
+     */
+    private static <E> void putIfAbsent(@NonNull Map<String, E> map, @Nullable String productId, @NonNull E estimate) {
+        if (productId != null && !map.containsKey(productId)) {
+            map.put(productId, estimate);
+        }
+    }
+
+    private static int capacityFor(int size) {
+        return (int) (size / 0.75f) + 1;
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2016 Uber Technologies, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.uber.sdk.android.rides.internal;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+/**
+ * Identifies an estimate request in the {@link EstimateCache}. Coordinates are snapped to cells of a
+ * {@link LocationGrid} so that requests for nearby locations share a key.
+ */
+final class EstimateKey {
+
+    private static final long NO_LOCATION = Long.MIN_VALUE;
+
+    private final long pickup;
+    private final long dropoff;
+    @Nullable private final String productId;
+    private final boolean single;
+    private final int hashCode;
+
+    private EstimateKey(long pickup, long dropoff, @Nullable String productId, boolean single) {
+        this.pickup = pickup;
+        this.dropoff = dropoff;
+        this.productId = productId;
+        this.single = single;
+        this.hashCode = computeHashCode();
+    }
+
+    /**
+     * Creates a key for a time estimate request.
+     */
+    @NonNull
+    static EstimateKey forTime(
+            @NonNull LocationGrid grid,
+            float latitude,
+            float longitude,
+            @Nullable String productId) {
+        return new EstimateKey(grid.getCellId(latitude, longitude), NO_LOCATION, productId, false);
+    }
+
+    /**
+     * Creates a key for a price estimate request. Price estimates are always returned for all products, so the key
+     * does not include a product ID.
+     */
+    @NonNull
+    static EstimateKey forPrice(
+            @NonNull LocationGrid grid,
+            float startLatitude,
+            float startLongitude,
+            float endLatitude,
+            float endLongitude) {
+        return new EstimateKey(grid.getCellId(startLatitude, startLongitude),
+                grid.getCellId(endLatitude, endLongitude), null, false);
+    }
+
+    /**
+     * Creates a key for a request of this key's location whose response is reduced to the single estimate of
+     * productId, or the first estimate if productId is null. Such responses never stand in for complete ones.
+     */
+    @NonNull
+    EstimateKey forSingleEstimate(@Nullable String productId) {
+        return new EstimateKey(pickup, dropoff, productId, true);
+    }
+
+    private int computeHashCode() {
+        int result = (int) (pickup ^ (pickup >>> 32));
+        result = 31 * result + (int) (dropoff ^ (dropoff >>> 32));
+        result = 31 * result + (productId != null ? productId.hashCode() : 0);
+        result = 31 * result + (single ? 1 : 0);
+        return result;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+
+        EstimateKey that = (EstimateKey) o;
+        return pickup == that.pickup
+                && dropoff == that.dropoff
+                && single == that.single
+                && (productId != null ? productId.equals(that.productId) : that.productId == null);
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+}
@@ -0,0 +1,685 @@
+/*
+ * Copyright (c) 2016 Uber Technologies, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.uber.sdk.android.rides.internal;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.uber.sdk.android.rides.RetryPolicy;
+import com.uber.sdk.rides.client.error.ApiError;
+import com.uber.sdk.rides.client.error.ErrorParser;
+import com.uber.sdk.rides.client.model.PriceEstimate;
+import com.uber.sdk.rides.client.model.PriceEstimatesResponse;
+import com.uber.sdk.rides.client.model.TimeEstimate;
+import com.uber.sdk.rides.client.model.TimeEstimatesResponse;
+import com.uber.sdk.rides.client.services.RidesService;
+
+import java.io.IOException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+import static com.uber.sdk.android.core.utils.Preconditions.checkState;
+
+/**
+ * Loads time and price estimates, answering from the {@link EstimateCache} when possible and sharing identical
+ * in-flight requests through the {@link EstimateRequestCoalescer}. Time estimates for a specific product are also
+ * answered by time estimates loaded for all products at the same pickup.
+ */
+class EstimateLoader {
+
+    /**
+     * Set while a response is processed on a processing executor. Requests are shared, so subscribers that did not
+     * set a processing executor may be called on the executor of the loader that started the request.
+     */
+    private static final ThreadLocal<Boolean> PROCESSING_THREAD = new ThreadLocal<>();
+
+    @NonNull private final RidesService ridesService;
+    @NonNull private final EstimateCache estimateCache;
+    @NonNull private final EstimateRequestCoalescer coalescer;
+    @NonNull private volatile RetryPolicy retryPolicy = RetryPolicy.NONE;
+    @Nullable private volatile StreamingEstimateInterceptor streamingInterceptor;
+    @Nullable private volatile StoredEstimateInterceptor storedInterceptor;
+    @Nullable private volatile Executor processingExecutor;
+
+    EstimateLoader(
+            @NonNull RidesService ridesService,
+            @NonNull EstimateCache estimateCache,
+            @NonNull EstimateRequestCoalescer coalescer) {
+        this.ridesService = ridesService;
+        this.estimateCache = estimateCache;
+        this.coalescer = coalescer;
+    }
+
+    /**
+     * Sets how failed requests started by this loader are retried, defaults to {@link RetryPolicy#NONE}. A request
+     * shared with other loaders uses the policy of the loader that started it.
+     */
+    void setRetryPolicy(@NonNull RetryPolicy retryPolicy) {
+        this.retryPolicy = retryPolicy;
+    }
+
+    /**
+     * Sets the interceptor that reduces responses of requests started by this loader to the single estimate asked
+     * for, null to keep complete responses, which is the default. Complete responses cached or in flight are still
+     * used when available. Requires the interceptor to be installed on the HTTP client of the {@link RidesService}.
+     */
+    void setStreamingInterceptor(@Nullable StreamingEstimateInterceptor streamingInterceptor) {
+        this.streamingInterceptor = streamingInterceptor;
+    }
+
+    /**
+     * Sets the interceptor that answers requests from the persistent HTTP response cache, null if no such cache is
+     * set, which is the default. Requires the interceptor to be installed on the HTTP client of the
+     * {@link RidesService}.
+     */
+    void setStoredEstimateInterceptor(@Nullable StoredEstimateInterceptor storedInterceptor) {
+        this.storedInterceptor = storedInterceptor;
+    }
+
+    /**
+     * @return true if estimates stored in the persistent HTTP response cache can be loaded.
+     */
+    boolean canLoadStoredEstimates() {
+        return storedInterceptor != null;
+    }
+
+    /**
+     * Sets the executor that processes responses of requests started by this loader and notifies their callbacks,
+     * null to do so on the thread Retrofit delivers responses on, which is the default. With an executor, requests
+     * are run on a background thread that hands responses to it directly instead of through Retrofit's callbacks.
+     */
+    void setProcessingExecutor(@Nullable Executor processingExecutor) {
+        this.processingExecutor = processingExecutor;
+    }
+
+    /**
+     * @return true if the current thread is processing a response on the processing executor of a loader, which
+     * may be that of another loader sharing the request.
+     */
+    static boolean isProcessingThread() {
+        return PROCESSING_THREAD.get() != null;
+    }
+
+    /**
+     * Gets time estimates from the cache only, without counting a cache hit or miss.
+     *
+     * @return cached estimates no older than maxStalenessMillis, or null.
+     */
+    @Nullable
+    EstimateCache.Entry<EstimateIndex<TimeEstimate>> peekTimeEstimates(
+            float latitude,
+            float longitude,
+            @Nullable String productId,
+            long maxStalenessMillis) {
+        final EstimateKey key = estimateCache.newTimeKey(latitude, longitude, productId);
+        final EstimateKey allProductsKey = getAllProductsTimeKey(latitude, longitude, productId);
+        final EstimateKey fallbackKey = allProductsKey == null && streamingInterceptor != null && productId == null
+                ? key.forSingleEstimate(null)
+                : allProductsKey;
+        return estimateCache.peekTimeEstimates(key, fallbackKey, maxStalenessMillis);
+    }
+
+    /**
+     * Gets price estimates from the cache only, without counting a cache hit or miss.
+     *
+     * @return cached estimates no older than maxStalenessMillis, or null.
+     */
+    @Nullable
+    EstimateCache.Entry<EstimateIndex<PriceEstimate>> peekPriceEstimates(
+            float startLatitude,
+            float startLongitude,
+            float endLatitude,
+            float endLongitude,
+            @Nullable String productId,
+            long maxStalenessMillis) {
+        final EstimateKey key = estimateCache.newPriceKey(startLatitude, startLongitude, endLatitude, endLongitude);
+        return estimateCache.peekPriceEstimates(key,
+                streamingInterceptor != null ? key.forSingleEstimate(productId) : null,
+                maxStalenessMillis);
+    }
+
+    /**
+     * Counts a cache hit for a load served by estimates found with a peek.
+     */
+    void recordCacheHit() {
+        estimateCache.recordHit();
+    }
+
+    /**
+     * @return maximum age of cached estimates loaded without a max staleness.
+     */
+    long getMaxAgeMillis() {
+        return estimateCache.getMaxAgeMillis();
+    }
+
+    /**
+     * @return how long ago the entry was cached.
+     */
+    long getAgeMillis(@NonNull EstimateCache.Entry<?> entry) {
+        return estimateCache.getAgeMillis(entry);
+    }
+
+    @NonNull
+    Subscription loadTimeEstimates(
+            final float latitude,
+            final float longitude,
+            @Nullable final String productId,
+            @NonNull EstimateCallback<EstimateIndex<TimeEstimate>> callback) {
+        return loadTimeEstimates(latitude, longitude, productId, true, callback);
+    }
+
+    /**
+     * Loads time estimates.
+     *
+     * @param useCache false to skip the cache and refresh it from the network.
+     */
+    @NonNull
+    Subscription loadTimeEstimates(
+            final float latitude,
+            final float longitude,
+            @Nullable final String productId,
+            boolean useCache,
+            @NonNull EstimateCallback<EstimateIndex<TimeEstimate>> callback) {
+        final StreamingEstimateInterceptor streamingInterceptor = this.streamingInterceptor;
+        final EstimateKey key = estimateCache.newTimeKey(latitude, longitude, productId);
+        final EstimateKey allProductsKey = getAllProductsTimeKey(latitude, longitude, productId);
+
+        // Time estimates for a product are reduced to that product by the server already, so only requests for all
+        // products have a separate key when streaming.
+        final EstimateKey singleKey = streamingInterceptor != null && productId == null
+                ? key.forSingleEstimate(null)
+                : null;
+        if (useCache) {
+            final EstimateIndex<TimeEstimate> cachedEstimates = estimateCache.getTimeEstimates(key,
+                    allProductsKey != null ? allProductsKey : singleKey);
+            if (cachedEstimates != null) {
+                callback.onEstimatesLoaded(cachedEstimates);
+                return Subscription.EMPTY;
+            }
+        }
+
+        if (allProductsKey != null && coalescer.isInFlight(allProductsKey)) {
+            return subscribeTimeEstimates(allProductsKey, latitude, longitude, null, null, callback);
+        }
+        if (singleKey != null && !coalescer.isInFlight(key)) {
+            return subscribeTimeEstimates(singleKey, latitude, longitude, null, streamingInterceptor, callback);
+        }
+        return subscribeTimeEstimates(key, latitude, longitude, productId, streamingInterceptor, callback);
+    }
+
+    @NonNull
+    private Subscription subscribeTimeEstimates(
+            @NonNull final EstimateKey key,
+            final float latitude,
+            final float longitude,
+            @Nullable final String productId,
+            @Nullable StreamingEstimateInterceptor streamingInterceptor,
+            @NonNull EstimateCallback<EstimateIndex<TimeEstimate>> callback) {
+        final RetrofitRequest<TimeEstimatesResponse, EstimateIndex<TimeEstimate>> request =
+                new RetrofitRequest<TimeEstimatesResponse, EstimateIndex<TimeEstimate>>(
+                        retryPolicy, processingExecutor) {
+                    @NonNull
+                    @Override
+                    Call<TimeEstimatesResponse> createCall() {
+                        return ridesService.getPickupTimeEstimate(latitude, longitude, productId);
+                    }
+
+                    @NonNull
+                    @Override
+                    EstimateIndex<TimeEstimate> onSuccess(@NonNull Response<TimeEstimatesResponse> response) {
+                        final EstimateIndex<TimeEstimate> estimates =
+                                EstimateIndex.ofTimeEstimates(response.body().getTimes());
+                        if (!estimates.isEmpty()) {
+                            estimateCache.putTimeEstimates(key, estimates);
+                        }
+                        return estimates;
+                    }
+                };
+        if (streamingInterceptor != null) {
+            request.streamSingleEstimate(streamingInterceptor, productId);
+        }
+        return coalescer.subscribe(key, request, callback);
+    }
+
+    /**
+     * @return key of the time estimates for all products at the pickup, null if productId is already null.
+     */
+    @Nullable
+    private EstimateKey getAllProductsTimeKey(float latitude, float longitude, @Nullable String productId) {
+        return productId != null ? estimateCache.newTimeKey(latitude, longitude, null) : null;
+    }
+
+    @NonNull
+    Subscription loadPriceEstimates(
+            final float startLatitude,
+            final float startLongitude,
+            final float endLatitude,
+            final float endLongitude,
+            @Nullable final String productId,
+            @NonNull EstimateCallback<EstimateIndex<PriceEstimate>> callback) {
+        return loadPriceEstimates(startLatitude, startLongitude, endLatitude, endLongitude, productId, true, callback);
+    }
+
+    /**
+     * Loads price estimates.
+     *
+     * @param productId product the estimates are shown for, only used to reduce streamed responses.
+     * @param useCache false to skip the cache and refresh it from the network.
+     */
+    @NonNull
+    Subscription loadPriceEstimates(
+            final float startLatitude,
+            final float startLongitude,
+            final float endLatitude,
+            final float endLongitude,
+            @Nullable final String productId,
+            boolean useCache,
+            @NonNull EstimateCallback<EstimateIndex<PriceEstimate>> callback) {
+        final StreamingEstimateInterceptor streamingInterceptor = this.streamingInterceptor;
+        final EstimateKey fullKey = estimateCache.newPriceKey(startLatitude, startLongitude, endLatitude, endLongitude);
+        final EstimateKey singleKey = streamingInterceptor != null ? fullKey.forSingleEstimate(productId) : null;
+        if (useCache) {
+            final EstimateIndex<PriceEstimate> cachedEstimates = estimateCache.getPriceEstimates(fullKey, singleKey);
+            if (cachedEstimates != null) {
+                callback.onEstimatesLoaded(cachedEstimates);
+                return Subscription.EMPTY;
+            }
+        }
+
+        final EstimateKey key = singleKey != null && !coalescer.isInFlight(fullKey) ? singleKey : fullKey;
+
+        final RetrofitRequest<PriceEstimatesResponse, EstimateIndex<PriceEstimate>> request =
+                new RetrofitRequest<PriceEstimatesResponse, EstimateIndex<PriceEstimate>>(
+                        retryPolicy, processingExecutor) {
+                    @NonNull
+                    @Override
+                    Call<PriceEstimatesResponse> createCall() {
+                        return ridesService.getPriceEstimates(startLatitude, startLongitude, endLatitude, endLongitude);
+                    }
+
+                    @NonNull
+                    @Override
+                    EstimateIndex<PriceEstimate> onSuccess(@NonNull Response<PriceEstimatesResponse> response) {
+                        final EstimateIndex<PriceEstimate> estimates =
+                                EstimateIndex.ofPriceEstimates(response.body().getPrices());
+                        if (!estimates.isEmpty()) {
+                            estimateCache.putPriceEstimates(key, estimates);
+                        }
+                        return estimates;
+                    }
+                };
+        if (key == singleKey) {
+            request.streamSingleEstimate(streamingInterceptor, productId);
+        }
+        return coalescer.subscribe(key, request, callback);
+    }
+
+    /**
+     * Loads time estimates stored in the persistent HTTP response cache by an earlier request, however stale, without
+     * going to the network. Neither the {@link EstimateCache} nor in-flight requests are used.
+     *
+     * @param maxStalenessMillis age up to which stored estimates are used, older ones are loaded as no estimates.
+     * @param callback notified with the stored estimates, or of an error if none are stored.
+     */
+    @NonNull
+    Subscription loadStoredTimeEstimates(
+            final float latitude,
+            final float longitude,
+            @Nullable final String productId,
+            final long maxStalenessMillis,
+            @NonNull EstimateCallback<EstimateIndex<TimeEstimate>> callback) {
+        final RetrofitRequest<TimeEstimatesResponse, EstimateIndex<TimeEstimate>> request =
+                new RetrofitRequest<TimeEstimatesResponse, EstimateIndex<TimeEstimate>>(
+                        RetryPolicy.NONE, processingExecutor) {
+                    @NonNull
+                    @Override
+                    Call<TimeEstimatesResponse> createCall() {
+                        return ridesService.getPickupTimeEstimate(latitude, longitude, productId);
+                    }
+
+                    @NonNull
+                    @Override
+                    EstimateIndex<TimeEstimate> onSuccess(@NonNull Response<TimeEstimatesResponse> response) {
+                        return isStale(response, maxStalenessMillis)
+                                ? EstimateIndex.<TimeEstimate>empty()
+                                : EstimateIndex.ofTimeEstimates(response.body().getTimes());
+                    }
+                };
+        return startStored(request, callback);
+    }
+
+    /**
+     * Loads price estimates stored in the persistent HTTP response cache by an earlier request, however stale,
+     * without going to the network. Neither the {@link EstimateCache} nor in-flight requests are used.
+     *
+     * @param maxStalenessMillis age up to which stored estimates are used, older ones are loaded as no estimates.
+     * @param callback notified with the stored estimates, or of an error if none are stored.
+     */
+    @NonNull
+    Subscription loadStoredPriceEstimates(
+            final float startLatitude,
+            final float startLongitude,
+            final float endLatitude,
+            final float endLongitude,
+            final long maxStalenessMillis,
+            @NonNull EstimateCallback<EstimateIndex<PriceEstimate>> callback) {
+        final RetrofitRequest<PriceEstimatesResponse, EstimateIndex<PriceEstimate>> request =
+                new RetrofitRequest<PriceEstimatesResponse, EstimateIndex<PriceEstimate>>(
+                        RetryPolicy.NONE, processingExecutor) {
+                    @NonNull
+                    @Override
+                    Call<PriceEstimatesResponse> createCall() {
+                        return ridesService.getPriceEstimates(startLatitude, startLongitude, endLatitude, endLongitude);
+                    }
+
+                    @NonNull
+                    @Override
+                    EstimateIndex<PriceEstimate> onSuccess(@NonNull Response<PriceEstimatesResponse> response) {
+                        return isStale(response, maxStalenessMillis)
+                                ? EstimateIndex.<PriceEstimate>empty()
+                                : EstimateIndex.ofPriceEstimates(response.body().getPrices());
+                    }
+                };
+        return startStored(request, callback);
+    }
+
+    @NonNull
+    private <T> Subscription startStored(
+            @NonNull final RetrofitRequest<?, T> request,
+            @NonNull EstimateCallback<T> callback) {
+        final StoredEstimateInterceptor storedInterceptor = this.storedInterceptor;
+        checkState(storedInterceptor != null, "No persistent HTTP response cache is set.");
+
+        request.forceCache(storedInterceptor);
+        request.start(callback);
+        return new Subscription() {
+            @Override
+            public void cancel() {
+                request.cancel();
+            }
+        };
+    }
+
+    /**
+     * @return true if the response was received longer than maxStalenessMillis ago by the clock of the cache.
+     */
+    private boolean isStale(@NonNull Response<?> response, long maxStalenessMillis) {
+        return estimateCache.getAgeMillis(response.raw().receivedResponseAtMillis()) > maxStalenessMillis;
+    }
+
+    /**
+     * Runs a Retrofit {@link Call}, retrying it according to the {@link RetryPolicy} and parsing its outcome once for
+     * all subscribers.
+     */
+    private abstract static class RetrofitRequest<R, T> implements EstimateRequestCoalescer.Request<T> {
+
+        private static ExecutorService callExecutor;
+        private static ScheduledExecutorService retryExecutor;
+
+        @NonNull private final RetryPolicy retryPolicy;
+        @Nullable private final Executor processingExecutor;
+        @Nullable private StreamingEstimateInterceptor streamingInterceptor;
+        @Nullable private String streamingProductId;
+        @Nullable private StoredEstimateInterceptor storedInterceptor;
+        private Call<R> call;
+        private ScheduledFuture<?> retry;
+        private int attempt;
+        private boolean cancelled;
+
+        RetrofitRequest(@NonNull RetryPolicy retryPolicy, @Nullable Executor processingExecutor) {
+            this.retryPolicy = retryPolicy;
+            this.processingExecutor = processingExecutor;
+        }
+
+        /**
+         * Reduces the responses of this request to the estimate of productId, or the first estimate if productId is
+         * null.
+         */
+        void streamSingleEstimate(
+                @NonNull StreamingEstimateInterceptor streamingInterceptor,
+                @Nullable String productId) {
+            this.streamingInterceptor = streamingInterceptor;
+            this.streamingProductId = productId;
+        }
+
+        /**
+         * Answers this request from the persistent HTTP response cache only.
+         */
+        void forceCache(@NonNull StoredEstimateInterceptor storedInterceptor) {
+            this.storedInterceptor = storedInterceptor;
+        }
+
+        @NonNull
+        abstract Call<R> createCall();
+
+        /**
+         * @return the result of a successful response.
+         */
+        @NonNull
+        abstract T onSuccess(@NonNull Response<R> response);
+
+        @Override
+        public boolean usesCallbackExecutor() {
+            return processingExecutor == null;
+        }
+
+        @Override
+        public synchronized void start(@NonNull final EstimateCallback<T> callback) {
+            attempt = 1;
+            enqueue(createCall(), callback);
+        }
+
+        private synchronized void enqueue(@NonNull Call<R> call, @NonNull final EstimateCallback<T> callback) {
+            if (cancelled) {
+                return;
+            }
+
+            this.call = call;
+            if (streamingInterceptor != null) {
+                streamingInterceptor.filter(call.request(), streamingProductId);
+            }
+            if (storedInterceptor != null) {
+                storedInterceptor.forceCache(call.request());
+            }
+            if (processingExecutor != null) {
+                execute(call, callback);
+                return;
+            }
+            call.enqueue(new Callback<R>() {
+                @Override
+                public void onResponse(final Call<R> call, final Response<R> response) {
+                    process(new Runnable() {
+                        @Override
+                        public void run() {
+                            onResponseReceived(call, response, callback);
+                        }
+                    });
+                }
+
+                @Override
+                public void onFailure(final Call<R> call, final Throwable throwable) {
+                    process(new Runnable() {
+                        @Override
+                        public void run() {
+                            onFailureReceived(call, throwable, callback);
+                        }
+                    });
+                }
+            });
+        }
+
+        /**
+         * Runs call on a background thread and hands its outcome straight to the processing executor, so responses
+         * do not pass through the thread Retrofit delivers callbacks on.
+         */
+        private void execute(@NonNull final Call<R> call, @NonNull final EstimateCallback<T> callback) {
+            getCallExecutor().execute(new Runnable() {
+                @Override
+                public void run() {
+                    final Response<R> response;
+                    try {
+                        response = call.execute();
+                    } catch (final IOException | RuntimeException e) {
+                        process(new Runnable() {
+                            @Override
+                            public void run() {
+                                onFailureReceived(call, e, callback);
+                            }
+                        });
+                        return;
+                    }
+                    process(new Runnable() {
+                        @Override
+                        public void run() {
+                            onResponseReceived(call, response, callback);
+                        }
+                    });
+                }
+            });
+        }
+
+        private void process(@NonNull final Runnable task) {
+            if (processingExecutor != null) {
+                processingExecutor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        PROCESSING_THREAD.set(Boolean.TRUE);
+                        try {
+                            task.run();
+                        } finally {
+                            PROCESSING_THREAD.remove();
+                        }
+                    }
+                });
+            } else {
+                task.run();
+            }
+        }
+
+        private void onResponseReceived(
+                @NonNull Call<R> call,
+                @NonNull Response<R> response,
+                @NonNull EstimateCallback<T> callback) {
+            if (retryPolicy.shouldRetry(getAttempt(), response.code()) && scheduleRetry(call, callback)) {
+                if (response.errorBody() != null) {
+                    response.errorBody().close();
+                }
+                return;
+            }
+
+            final ApiError apiError = ErrorParser.parseError(response);
+            if (apiError != null) {
+                callback.onError(apiError);
+                return;
+            }
+
+            callback.onEstimatesLoaded(onSuccess(response));
+        }
+
+        private void onFailureReceived(
+                @NonNull Call<R> call,
+                @NonNull Throwable throwable,
+                @NonNull EstimateCallback<T> callback) {
+            if (retryPolicy.shouldRetry(getAttempt(), throwable) && scheduleRetry(call, callback)) {
+                return;
+            }
+
+            callback.onFailure(throwable);
+        }
+
+        private synchronized int getAttempt() {
+            return attempt;
+        }
+
+        /**
+         * @return true if the retry was scheduled, false if this request was cancelled.
+         */
+        private synchronized boolean scheduleRetry(
+                @NonNull final Call<R> failedCall,
+                @NonNull final EstimateCallback<T> callback) {
+            if (cancelled) {
+                return false;
+            }
+
+            final long delayMillis = retryPolicy.getDelayMillis(attempt);
+            attempt++;
+            retry = getRetryExecutor().schedule(new Runnable() {
+                @Override
+                public void run() {
+                    enqueue(failedCall.clone(), callback);
+                }
+            }, delayMillis, TimeUnit.MILLISECONDS);
+            return true;
+        }
+
+        @Override
+        public synchronized void cancel() {
+            cancelled = true;
+            if (retry != null) {
+                retry.cancel(false);
+            }
+            if (call != null) {
+                call.cancel();
+            }
+        }
+
+        @NonNull
+        private static synchronized ExecutorService getCallExecutor() {
+            if (callExecutor == null) {
+                callExecutor = Executors.newCachedThreadPool(new ThreadFactory() {
+                    @Override
+                    public Thread newThread(@NonNull Runnable runnable) {
+                        final Thread thread = new Thread(runnable, "UberSDK-EstimateCall");
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+            }
+            return callExecutor;
+        }
+
+        @NonNull
+        private static synchronized ScheduledExecutorService getRetryExecutor() {
+            if (retryExecutor == null) {
+                retryExecutor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                    @Override
+                    public Thread newThread(@NonNull Runnable runnable) {
+                        final Thread thread = new Thread(runnable, "UberSDK-EstimateRetry");
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+            }
+            return retryExecutor;
+        }
+    }
+}
@@ -0,0 +1,381 @@
+/*
+ * Copyright (c) 2016 Uber Technologies, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.uber.sdk.android.rides.internal;
+
+import android.Manifest;
+import android.annotation.TargetApi;
+import android.app.Activity;
+import android.app.Application;
+import android.content.Context;
+import android.content.ContextWrapper;
+import android.content.pm.PackageManager;
+import android.net.ConnectivityManager;
+import android.os.Build;
+import android.os.Bundle;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.VisibleForTesting;
+import android.view.View;
+import android.view.ViewTreeObserver;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static com.uber.sdk.android.core.utils.Preconditions.checkState;
+
+/**
+ * Refreshes the estimates of registered {@link RideRequestButtonController}s on one shared timer, so that refreshes
+ * of all buttons happen together and identical requests are merged. The interval grows while the app is idle and
+ * on metered networks, and the timer stops while all registered controllers are paused. The app counts as in use
+ * when an activity resumes or content of the window in front scrolls or changes focus. Must be used from the main
+ * thread.
+ */
+public class EstimateRefreshScheduler {
+
+    static final long DEFAULT_INTERVAL_MILLIS = TimeUnit.MINUTES.toMillis(1);
+    static final long IDLE_TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(2);
+    static final int MAX_IDLE_MULTIPLIER = 8;
+    static final int METERED_MULTIPLIER = 2;
+
+    /**
+     * Tells whether the active network is metered.
+     */
+    interface NetworkMonitor {
+
+        NetworkMonitor UNMETERED = new NetworkMonitor() {
+            @Override
+            public boolean isMetered() {
+                return false;
+            }
+        };
+
+        boolean isMetered();
+    }
+
+    private static EstimateRefreshScheduler instance;
+
+    private final Set<RideRequestButtonController> controllers = new LinkedHashSet<>();
+
+    @NonNull
+    private final Scheduler scheduler;
+
+    @NonNull
+    private final Clock clock;
+
+    @NonNull
+    private NetworkMonitor networkMonitor = NetworkMonitor.UNMETERED;
+    private boolean networkMonitorSet;
+
+    @NonNull
+    private final UserActivityMonitor userActivityMonitor = new UserActivityMonitor();
+
+    @NonNull
+    private Subscription tickSubscription = Subscription.EMPTY;
+    private long intervalMillis = DEFAULT_INTERVAL_MILLIS;
+    private long lastActivityMillis;
+    private int idleMultiplier = 1;
+
+    @NonNull
+    public static synchronized EstimateRefreshScheduler getInstance() {
+        if (instance == null) {
+            instance = new EstimateRefreshScheduler(Scheduler.MAIN_THREAD, Clock.SYSTEM);
+        }
+        return instance;
+    }
+
+    @VisibleForTesting
+    EstimateRefreshScheduler(@NonNull Scheduler scheduler, @NonNull Clock clock) {
+        this.scheduler = scheduler;
+        this.clock = clock;
+        this.lastActivityMillis = clock.currentTimeMillis();
+    }
+
+    /**
+     * Sets how often estimates are refreshed while the app is in use on an unmetered network, defaults to one
+     * minute.
+     */
+    public void setInterval(long interval, @NonNull TimeUnit unit) {
+        checkState(interval > 0, "Refresh interval must be positive.");
+        intervalMillis = unit.toMillis(interval);
+        reschedule();
+    }
+
+    /**
+     * Refreshes the estimates of controller on the shared timer until it is unregistered.
+     *
+     * @param context used to find out whether the active network is metered, and to observe user activity in the
+     * window of its activity.
+     */
+    public void register(@NonNull Context context, @NonNull RideRequestButtonController controller) {
+        if (!networkMonitorSet) {
+            setNetworkMonitor(createNetworkMonitor(context.getApplicationContext()));
+        }
+
+        if (controllers.isEmpty()) {
+            userActivityMonitor.start(context.getApplicationContext());
+        }
+        final Activity activity = findActivity(context);
+        if (activity != null && activity.getWindow() != null) {
+            userActivityMonitor.observe(activity.getWindow().getDecorView());
+        }
+
+        controllers.add(controller);
+        onUserActivity();
+        updateTimer();
+    }
+
+    public void unregister(@NonNull RideRequestButtonController controller) {
+        controllers.remove(controller);
+        if (controllers.isEmpty()) {
+            userActivityMonitor.stop();
+        }
+        updateTimer();
+    }
+
+    /**
+     * Stops the shared timer while all registered controllers are paused and starts it again once one is resumed.
+     * Must be called after a registered controller is paused or resumed.
+     */
+    public void updateTimer() {
+        if (!hasActiveController()) {
+            tickSubscription.cancel();
+            tickSubscription = Subscription.EMPTY;
+        } else if (tickSubscription == Subscription.EMPTY) {
+            scheduleTick();
+        }
+    }
+
+    /**
+     * Marks the app as in use, restoring the refresh interval if it grew while the app was idle.
+     */
+    public void onUserActivity() {
+        lastActivityMillis = clock.currentTimeMillis();
+        if (idleMultiplier > 1) {
+            idleMultiplier = 1;
+            reschedule();
+        }
+    }
+
+    @VisibleForTesting
+    void setNetworkMonitor(@NonNull NetworkMonitor networkMonitor) {
+        this.networkMonitor = networkMonitor;
+        this.networkMonitorSet = true;
+    }
+
+    /**
+     * @return delay until the next refresh, given idleness and the active network.
+     */
+    @VisibleForTesting
+    long getCurrentIntervalMillis() {
+        return intervalMillis * idleMultiplier * (networkMonitor.isMetered() ? METERED_MULTIPLIER : 1);
+    }
+
+    private void reschedule() {
+        if (tickSubscription == Subscription.EMPTY) {
+            return;
+        }
+
+        tickSubscription.cancel();
+        scheduleTick();
+    }
+
+    private void scheduleTick() {
+        tickSubscription = scheduler.schedule(new Runnable() {
+            @Override
+            public void run() {
+                onTick();
+            }
+        }, getCurrentIntervalMillis());
+    }
+
+    private void onTick() {
+        tickSubscription = Subscription.EMPTY;
+
+        for (RideRequestButtonController controller : new ArrayList<>(controllers)) {
+            controller.refresh();
+        }
+
+        if (clock.currentTimeMillis() - lastActivityMillis >= IDLE_TIMEOUT_MILLIS) {
+            idleMultiplier = Math.min(idleMultiplier * 2, MAX_IDLE_MULTIPLIER);
+        }
+
+        if (hasActiveController()) {
+            scheduleTick();
+        }
+    }
+
+    private boolean hasActiveController() {
+        for (RideRequestButtonController controller : controllers) {
+            if (!controller.isPaused()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Nullable
+    private static Activity findActivity(@NonNull Context context) {
+        while (context instanceof ContextWrapper) {
+            if (context instanceof Activity) {
+                return (Activity) context;
+            }
+            context = ((ContextWrapper) context).getBaseContext();
+        }
+        return null;
+    }
+
+    @NonNull
+    private static NetworkMonitor createNetworkMonitor(@NonNull Context context) {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.JELLY_BEAN
+                || context.checkCallingOrSelfPermission(Manifest.permission.ACCESS_NETWORK_STATE)
+                != PackageManager.PERMISSION_GRANTED) {
+            return NetworkMonitor.UNMETERED;
+        }
+        return new ConnectivityNetworkMonitor(
+                (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE));
+    }
+
+    /**
+     * Marks the app as in use when an activity resumes, and when content of the observed window scrolls, focus moves
+     * within it or it switches touch mode, so activity anywhere in the app counts and not only on the buttons.
+     */
+    private class UserActivityMonitor implements Application.ActivityLifecycleCallbacks,
+            ViewTreeObserver.OnScrollChangedListener,
+            ViewTreeObserver.OnGlobalFocusChangeListener,
+            ViewTreeObserver.OnTouchModeChangeListener {
+
+        @Nullable
+        private Application application;
+
+        @Nullable
+        private ViewTreeObserver observer;
+
+        void start(@Nullable Context applicationContext) {
+            if (application == null && applicationContext instanceof Application) {
+                application = (Application) applicationContext;
+                application.registerActivityLifecycleCallbacks(this);
+            }
+        }
+
+        void stop() {
+            if (application != null) {
+                application.unregisterActivityLifecycleCallbacks(this);
+                application = null;
+            }
+            stopObserving();
+        }
+
+        void observe(@NonNull View rootView) {
+            final ViewTreeObserver rootObserver = rootView.getViewTreeObserver();
+            if (rootObserver == null || rootObserver == observer) {
+                return;
+            }
+
+            stopObserving();
+            observer = rootObserver;
+            observer.addOnScrollChangedListener(this);
+            observer.addOnGlobalFocusChangeListener(this);
+            observer.addOnTouchModeChangeListener(this);
+        }
+
+        private void stopObserving() {
+            if (observer != null && observer.isAlive()) {
+                observer.removeOnScrollChangedListener(this);
+                observer.removeOnGlobalFocusChangeListener(this);
+                observer.removeOnTouchModeChangeListener(this);
+            }
+            observer = null;
+        }
+
+        @Override
+        public void onActivityResumed(Activity activity) {
+            onUserActivity();
+            if (activity.getWindow() != null) {
+                observe(activity.getWindow().getDecorView());
+            }
+        }
+
+        @Override
+        public void onActivityPaused(Activity activity) {
+            stopObserving();
+        }
+
+        @Override
+        public void onScrollChanged() {
+            onUserActivity();
+        }
+
+        @Override
+        public void onGlobalFocusChanged(View oldFocus, View newFocus) {
+            onUserActivity();
+        }
+
+        @Override
+        public void onTouchModeChanged(boolean isInTouchMode) {
+            onUserActivity();
+        }
+
+        @Override
+        public void onActivityCreated(Activity activity, Bundle savedInstanceState) {
+        }
+
+        @Override
+        public void onActivityStarted(Activity activity) {
+        }
+
+        @Override
+        public void onActivityStopped(Activity activity) {
+        }
+
+        @Override
+        public void onActivitySaveInstanceState(Activity activity, Bundle outState) {
+        }
+
+        @Override
+        public void onActivityDestroyed(Activity activity) {
+        }
+    }
+
+    /**
+     * Reads whether the active network is metered from {@link ConnectivityManager}, which requires the
+     * ACCESS_NETWORK_STATE permission.
+     */
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+    private static class ConnectivityNetworkMonitor implements NetworkMonitor {
+
+        @NonNull
+        private final ConnectivityManager connectivityManager;
+
+        ConnectivityNetworkMonitor(@NonNull ConnectivityManager connectivityManager) {
+            this.connectivityManager = connectivityManager;
+        }
+
+        @Override
+        public boolean isMetered() {
+            return connectivityManager.isActiveNetworkMetered();
+        }
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ * Copyright (c) 2016 Uber Technologies, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.uber.sdk.android.rides.internal;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.VisibleForTesting;
+
+import com.uber.sdk.rides.client.error.ApiError;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Merges identical in-flight estimate requests so that a single network call serves every subscriber waiting on
+ * the same {@link EstimateKey}.
+ */
+class EstimateRequestCoalescer {
+
+    private static EstimateRequestCoalescer instance;
+
+    private final Map<EstimateKey, SharedRequest<?>> requests = new HashMap<>();
+
+    @NonNull
+    static synchronized EstimateRequestCoalescer getInstance() {
+        if (instance == null) {
+            instance = new EstimateRequestCoalescer();
+        }
+        return instance;
+    }
+
+    /**
+     * Subscribes to the request identified by key, starting it if no identical request is in flight. A request that
+     * does not use the callback executor is not shared with one in flight that does, it replaces it for later
+     * subscribers instead, so it completes even while the callback executor is busy.
+     *
+     * @param key identifies the request.
+     * @param request started if no request with the same key is in flight.
+     * @param callback notified once the request completes.
+     * @return {@link Subscription} to stop listening for the result.
+     */
+    @NonNull
+    <T> Subscription subscribe(
+            @NonNull EstimateKey key,
+            @NonNull Request<T> request,
+            @NonNull final EstimateCallback<T> callback) {
+        final SharedRequest<T> sharedRequest;
+        boolean start = false;
+
+        synchronized (this) {
+            @SuppressWarnings("unchecked")
+            SharedRequest<T> existing = (SharedRequest<T>) requests.get(key);
+            if (existing == null || (existing.request.usesCallbackExecutor() && !request.usesCallbackExecutor())) {
+                existing = new SharedRequest<>(key, request);
+                requests.put(key, existing);
+                start = true;
+            }
+            existing.subscribers.add(callback);
+            sharedRequest = existing;
+        }
+
+        if (start) {
+            request.start(sharedRequest);
+        }
+
+        return new Subscription() {
+            @Override
+            public void cancel() {
+                sharedRequest.unsubscribe(callback);
+            }
+        };
+    }
+
+    /**
+     * @return true if a request with the given key is in flight.
+     */
+    synchronized boolean isInFlight(@NonNull EstimateKey key) {
+        return requests.containsKey(key);
+    }
+
+    @VisibleForTesting
+    synchronized int getInFlightCount() {
+        return requests.size();
+    }
+
+    /**
+     * An estimate request that can be shared amongst subscribers.
+     */
+    interface Request<T> {
+
+        void start(@NonNull EstimateCallback<T> callback);
+
+        /**
+         * @return true if the request completes on Retrofit's callback executor, which is the main thread in apps.
+         */
+        boolean usesCallbackExecutor();
+
+        void cancel();
+    }
+
+    private class SharedRequest<T> implements EstimateCallback<T> {
+
+        @NonNull private final EstimateKey key;
+        @NonNull private final Request<T> request;
+        @NonNull private final List<EstimateCallback<T>> subscribers = new ArrayList<>();
+
+        SharedRequest(@NonNull EstimateKey key, @NonNull Request<T> request) {
+            this.key = key;
+            this.request = request;
+        }
+
+        @Override
+        public void onEstimatesLoaded(@NonNull T estimates) {
+            for (EstimateCallback<T> subscriber : complete()) {
+                subscriber.onEstimatesLoaded(estimates);
+            }
+        }
+
+        @Override
+        public void onError(@NonNull ApiError apiError) {
+            for (EstimateCallback<T> subscriber : complete()) {
+                subscriber.onError(apiError);
+            }
+        }
+
+        @Override
+        public void onFailure(@NonNull Throwable throwable) {
+            for (EstimateCallback<T> subscriber : complete()) {
+                subscriber.onFailure(throwable);
+            }
+        }
+
+        void unsubscribe(@NonNull EstimateCallback<T> callback) {
+            boolean cancel = false;
+            synchronized (EstimateRequestCoalescer.this) {
+                if (subscribers.remove(callback) && subscribers.isEmpty()) {
+                    if (requests.get(key) == this) {
+                        requests.remove(key);
+                    }
+                    cancel = true;
+                }
+            }
+
+            if (cancel) {
+                request.cancel();
+            }
+        }
+
+        @NonNull
+        private List<EstimateCallback<T>> complete() {
+            synchronized (EstimateRequestCoalescer.this) {
+                if (requests.get(key) == this) {
+                    requests.remove(key);
+                }
+                List<EstimateCallback<T>> completed = new ArrayList<>(subscribers);
+                subscribers.clear();
+                return completed;
+            }
+        }
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2016 Uber Technologies, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.uber.sdk.android.rides.internal;
+
+import static com.uber.sdk.android.core.utils.Preconditions.checkState;
+
+/**
+ * {@link LocationGrid} of geohash cells. The cell ID holds the bits of the geohash of the given precision, e.g. a
+ * precision of 7 gives cells of about 150 by 150 meters.
+ */
+public class GeohashGrid implements LocationGrid {
+
+    static final int MAX_PRECISION = 12;
+
+    private static final int BITS_PER_CHARACTER = 5;
+
+    private final int bits;
+    private final int longitudeBits;
+    private final int latitudeBits;
+
+    /**
+     * @param precision number of geohash characters, between 1 and 12.
+     */
+    public GeohashGrid(int precision) {
+        checkState(precision >= 1 && precision <= MAX_PRECISION,
+                "Precision must be between 1 and " + MAX_PRECISION + ".");
+
+        this.bits = precision * BITS_PER_CHARACTER;
+        this.longitudeBits = (bits + 1) / 2;
+        this.latitudeBits = bits / 2;
+    }
+
+    @Override
+    public long getCellId(double latitude, double longitude) {
+        final long latitudeCell = quantize(latitude, -90, 180, latitudeBits);
+        final long longitudeCell = quantize(longitude, -180, 360, longitudeBits);
+
+        // Geohash bits alternate between longitude and latitude, starting with longitude.
+        int longitudeIndex = longitudeBits;
+        int latitudeIndex = latitudeBits;
+        long cellId = 0;
+        for (int bit = 0; bit < bits; bit++) {
+            if ((bit & 1) == 0) {
+                cellId = (cellId << 1) | ((longitudeCell >>> --longitudeIndex) & 1);
+            } else {
+                cellId = (cellId << 1) | ((latitudeCell >>> --latitudeIndex) & 1);
+            }
+        }
+        return cellId;
+    }
+
+    private static long quantize(double value, double min, double range, int bits) {
+        final long cells = 1L << bits;
+        final long cell = (long) Math.floor((value - min) / range * cells);
+        return Math.max(0, Math.min(cells - 1, cell));
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2016 Uber Technologies, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.uber.sdk.android.rides.internal;
+
+import android.support.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * Runs tasks on the main thread. Tasks queued before the main thread gets to them run together in one message, so
+ * results processed in the background reach the views in batches rather than one message each.
+ */
+final class MainThreadExecutor implements Executor {
+
+    private static final MainThreadExecutor INSTANCE = new MainThreadExecutor();
+
+    private final List<Runnable> tasks = new ArrayList<>();
+    private boolean drainScheduled;
+
+    private final Runnable drain = new Runnable() {
+        @Override
+        public void run() {
+            final List<Runnable> pending;
+            synchronized (MainThreadExecutor.this) {
+                pending = new ArrayList<>(tasks);
+                tasks.clear();
+                drainScheduled = false;
+            }
+            for (Runnable task : pending) {
+                task.run();
+            }
+        }
+    };
+
+    @NonNull
+    static MainThreadExecutor getInstance() {
+        return INSTANCE;
+    }
+
+    private MainThreadExecutor() {
+    }
+
+    @Override
+    public void execute(@NonNull Runnable task) {
+        synchronized (this) {
+            tasks.add(task);
+            if (drainScheduled) {
+                return;
+            }
+            drainScheduled = true;
+        }
+        Scheduler.MainHandler.get().post(drain);
+    }
+}
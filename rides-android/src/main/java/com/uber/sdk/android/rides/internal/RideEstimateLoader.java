@@ -0,0 +1,322 @@
+/*
+ * Copyright (c) 2016 Uber Technologies, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.uber.sdk.android.rides.internal;
+
+import android.os.Looper;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.VisibleForTesting;
+
+import com.uber.sdk.android.rides.EstimateApiException;
+import com.uber.sdk.android.rides.EstimateClient;
+import com.uber.sdk.android.rides.RetryPolicy;
+import com.uber.sdk.android.rides.RideEstimate;
+import com.uber.sdk.android.rides.RideParameters;
+import com.uber.sdk.rides.client.Session;
+import com.uber.sdk.rides.client.error.ApiError;
+import com.uber.sdk.rides.client.model.PriceEstimate;
+import com.uber.sdk.rides.client.model.TimeEstimate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static com.uber.sdk.android.core.utils.Preconditions.checkState;
+
+/**
+ * Loads the {@link RideEstimate}s of an {@link EstimateClient}. Shares the estimate cache, in-flight requests and
+ * HTTP client with {@link RideRequestButtonController}s and may be used from any number of threads at once.
+ * <p>
+ * Responses are processed on the threads running the requests and never wait for the main thread, so estimates load
+ * while it is busy. Requests in flight for buttons that process responses on the main thread are not joined.
+ */
+public class RideEstimateLoader {
+
+    /**
+     * Processes responses on the thread that received them.
+     */
+    private static final Executor DIRECT_EXECUTOR = new Executor() {
+        @Override
+        public void execute(@NonNull Runnable task) {
+            task.run();
+        }
+    };
+
+    @NonNull private final EstimateLoader estimateLoader;
+
+    public RideEstimateLoader(@NonNull Session session) {
+        this(new EstimateLoader(RidesServiceRegistry.getInstance().getService(session),
+                EstimateCache.getInstance(),
+                EstimateRequestCoalescer.getInstance()));
+    }
+
+    @VisibleForTesting
+    RideEstimateLoader(@NonNull EstimateLoader estimateLoader) {
+        this.estimateLoader = estimateLoader;
+        this.estimateLoader.setProcessingExecutor(DIRECT_EXECUTOR);
+    }
+
+    /**
+     * Sets how failed estimate requests are retried, defaults to {@link RetryPolicy#NONE}.
+     */
+    public void setRetryPolicy(@NonNull RetryPolicy retryPolicy) {
+        estimateLoader.setRetryPolicy(retryPolicy);
+    }
+
+    /**
+     * Starts loading the estimates for rideParameters. The price estimate is only loaded if a dropoff location is
+     * set. The {@link Future} fails with an {@link EstimateApiException} if the API returns an error or the product
+     * has no estimate, and with the cause of any other failure. Cancelling it cancels the requests unless they are
+     * shared with others.
+     */
+    @NonNull
+    public Future<RideEstimate> getEstimateAsync(@NonNull RideParameters rideParameters) {
+        RideRequestButtonController.checkRideParameters(rideParameters);
+
+        final String productId = rideParameters.getProductId();
+        final boolean loadPrice = rideParameters.getDropoffLatitude() != null;
+        final EstimateFuture future = new EstimateFuture(loadPrice);
+
+        final Subscription timeSubscription = estimateLoader.loadTimeEstimates(
+                rideParameters.getPickupLatitude().floatValue(),
+                rideParameters.getPickupLongitude().floatValue(),
+                productId,
+                true,
+                new EstimateCallback<EstimateIndex<TimeEstimate>>() {
+                    @Override
+                    public void onEstimatesLoaded(@NonNull EstimateIndex<TimeEstimate> estimates) {
+                        final TimeEstimate timeEstimate = estimates.find(productId);
+                        if (timeEstimate != null) {
+                            future.setTimeEstimate(timeEstimate);
+                        } else {
+                            future.setError(RideRequestButtonController.createProductNoFoundError());
+                        }
+                    }
+
+                    @Override
+                    public void onError(@NonNull ApiError apiError) {
+                        future.setError(apiError);
+                    }
+
+                    @Override
+                    public void onFailure(@NonNull Throwable throwable) {
+                        future.setError(throwable);
+                    }
+                });
+        future.addSubscription(timeSubscription);
+
+        if (loadPrice) {
+            final Subscription priceSubscription = estimateLoader.loadPriceEstimates(
+                    rideParameters.getPickupLatitude().floatValue(),
+                    rideParameters.getPickupLongitude().floatValue(),
+                    rideParameters.getDropoffLatitude().floatValue(),
+                    rideParameters.getDropoffLongitude().floatValue(),
+                    productId,
+                    true,
+                    new EstimateCallback<EstimateIndex<PriceEstimate>>() {
+                        @Override
+                        public void onEstimatesLoaded(@NonNull EstimateIndex<PriceEstimate> estimates) {
+                            final PriceEstimate priceEstimate = estimates.find(productId);
+                            if (priceEstimate != null) {
+                                future.setPriceEstimate(priceEstimate);
+                            } else {
+                                future.setError(RideRequestButtonController.createProductNoFoundError());
+                            }
+                        }
+
+                        @Override
+                        public void onError(@NonNull ApiError apiError) {
+                            future.setError(apiError);
+                        }
+
+                        @Override
+                        public void onFailure(@NonNull Throwable throwable) {
+                            future.setError(throwable);
+                        }
+                    });
+            future.addSubscription(priceSubscription);
+        }
+        return future;
+    }
+
+    /**
+     * Loads the estimates for rideParameters, blocking until they are loaded. Must not be called on the main thread.
+     *
+     * @throws ExecutionException with an {@link EstimateApiException} if the API returns an error or the product
+     * has no estimate, or the cause of any other failure.
+     */
+    @NonNull
+    public RideEstimate getEstimate(@NonNull RideParameters rideParameters)
+            throws InterruptedException, ExecutionException {
+        checkNotMainThread();
+        return getEstimateAsync(rideParameters).get();
+    }
+
+    /**
+     * Loads the estimates for rideParameters, blocking until they are loaded or timeout passes, in which case the
+     * requests are cancelled. Must not be called on the main thread.
+     *
+     * @throws ExecutionException with an {@link EstimateApiException} if the API returns an error or the product
+     * has no estimate, or the cause of any other failure.
+     */
+    @NonNull
+    public RideEstimate getEstimate(@NonNull RideParameters rideParameters, long timeout, @NonNull TimeUnit unit)
+            throws InterruptedException, ExecutionException, TimeoutException {
+        checkNotMainThread();
+        final Future<RideEstimate> future = getEstimateAsync(rideParameters);
+        try {
+            return future.get(timeout, unit);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw e;
+        }
+    }
+
+    private static void checkNotMainThread() {
+        checkState(Looper.myLooper() == null || Looper.myLooper() != Looper.getMainLooper(),
+                "Blocking estimate calls must not be made on the main thread.");
+    }
+
+    /**
+     * {@link Future} completed once the time estimate and, if needed, the price estimate are loaded, or on the first
+     * error.
+     */
+    private static class EstimateFuture implements Future<RideEstimate> {
+
+        private final CountDownLatch done = new CountDownLatch(1);
+        private final boolean needsPrice;
+
+        private final List<Subscription> subscriptions = new ArrayList<>();
+        @Nullable private TimeEstimate timeEstimate;
+        @Nullable private PriceEstimate priceEstimate;
+        @Nullable private RideEstimate result;
+        @Nullable private Throwable error;
+        private boolean cancelled;
+
+        EstimateFuture(boolean needsPrice) {
+            this.needsPrice = needsPrice;
+        }
+
+        synchronized void addSubscription(@NonNull Subscription subscription) {
+            if (isDone()) {
+                subscription.cancel();
+                return;
+            }
+
+            subscriptions.add(subscription);
+        }
+
+        synchronized void setTimeEstimate(@NonNull TimeEstimate timeEstimate) {
+            this.timeEstimate = timeEstimate;
+            completeIfLoaded();
+        }
+
+        synchronized void setPriceEstimate(@NonNull PriceEstimate priceEstimate) {
+            this.priceEstimate = priceEstimate;
+            completeIfLoaded();
+        }
+
+        synchronized void setError(@NonNull ApiError apiError) {
+            setError(new EstimateApiException(apiError));
+        }
+
+        synchronized void setError(@NonNull Throwable throwable) {
+            if (isDone()) {
+                return;
+            }
+
+            error = throwable;
+            finish();
+        }
+
+        private void completeIfLoaded() {
+            if (isDone() || timeEstimate == null || (needsPrice && priceEstimate == null)) {
+                return;
+            }
+
+            result = new RideEstimate(timeEstimate, priceEstimate);
+            finish();
+        }
+
+        private void finish() {
+            done.countDown();
+            for (Subscription subscription : subscriptions) {
+                subscription.cancel();
+            }
+            subscriptions.clear();
+        }
+
+        @Override
+        public synchronized boolean cancel(boolean mayInterruptIfRunning) {
+            if (isDone()) {
+                return false;
+            }
+
+            cancelled = true;
+            finish();
+            return true;
+        }
+
+        @Override
+        public synchronized boolean isCancelled() {
+            return cancelled;
+        }
+
+        @Override
+        public boolean isDone() {
+            return done.getCount() == 0;
+        }
+
+        @Override
+        public RideEstimate get() throws InterruptedException, ExecutionException {
+            done.await();
+            return getResult();
+        }
+
+        @Override
+        public RideEstimate get(long timeout, @NonNull TimeUnit unit)
+                throws InterruptedException, ExecutionException, TimeoutException {
+            if (!done.await(timeout, unit)) {
+                throw new TimeoutException("Estimates not loaded within " + unit.toMillis(timeout) + " ms.");
+            }
+            return getResult();
+        }
+
+        private synchronized RideEstimate getResult() throws ExecutionException {
+            if (cancelled) {
+                throw new CancellationException();
+            }
+            if (error != null) {
+                throw new ExecutionException(error);
+            }
+            return result;
+        }
+    }
+}
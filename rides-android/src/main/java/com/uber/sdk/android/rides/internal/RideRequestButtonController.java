@@ -26,87 +26,363 @@ import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import android.support.annotation.VisibleForTesting;
 
+import com.uber.sdk.android.rides.EstimateLoadingPolicy;
+import com.uber.sdk.android.rides.EstimateTimeoutException;
+import com.uber.sdk.android.rides.ProgressiveRideRequestButtonCallback;
+import com.uber.sdk.android.rides.RetryPolicy;
 import com.uber.sdk.android.rides.RideParameters;
 import com.uber.sdk.android.rides.RideRequestButtonCallback;
 import com.uber.sdk.rides.client.Session;
-import com.uber.sdk.rides.client.UberRidesApi;
 import com.uber.sdk.rides.client.error.ApiError;
 import com.uber.sdk.rides.client.error.ClientError;
-import com.uber.sdk.rides.client.error.ErrorParser;
 import com.uber.sdk.rides.client.model.PriceEstimate;
-import com.uber.sdk.rides.client.model.PriceEstimatesResponse;
 import com.uber.sdk.rides.client.model.TimeEstimate;
-import com.uber.sdk.rides.client.model.TimeEstimatesResponse;
-import com.uber.sdk.rides.client.services.RidesService;
 
 import java.util.Arrays;
-import java.util.List;
-
-import retrofit2.Call;
-import retrofit2.Callback;
-import retrofit2.Response;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 
+import static com.uber.sdk.android.core.utils.Preconditions.checkState;
 import static com.uber.sdk.rides.client.utils.Preconditions.checkNotNull;
 
 
 public class RideRequestButtonController {
 
     @NonNull
-    private final RidesService ridesService;
+    private final EstimateLoader estimateLoader;
 
     @VisibleForTesting
     @NonNull
     TimeDelegate pendingDelegate;
 
-    private Call<PriceEstimatesResponse> priceEstimateCall;
-    private Call<TimeEstimatesResponse> timeEstimateCall;
+    private Subscription priceEstimateSubscription = Subscription.EMPTY;
+    private Subscription timeEstimateSubscription = Subscription.EMPTY;
+    private Subscription deadlineSubscription = Subscription.EMPTY;
     private RideRequestButtonView rideRequestButtonView;
     private RideRequestButtonCallback rideRequestButtonCallback;
 
+    @NonNull
+    private EstimateLoadingPolicy loadingPolicy = EstimateLoadingPolicy.CACHE_FIRST;
+
+    @NonNull
+    private Scheduler scheduler = Scheduler.MAIN_THREAD;
+    private long latencyBudgetMillis;
+    private boolean progressiveRendering;
+
+    @Nullable
+    private volatile Executor deliveryExecutor;
+
+    @NonNull
+    private Executor mainThreadExecutor = MainThreadExecutor.getInstance();
+
+    @Nullable
+    private RideParameters rideParameters;
+    @Nullable
+    private StoredEstimates pendingStoredEstimates;
+    private boolean paused;
+    private boolean reloadOnResume;
+
+    @Nullable
+    private TimeEstimate shownTimeEstimate;
+    @Nullable
+    private PriceEstimate shownPriceEstimate;
+
+    /**
+     * Forwards to the button, keeping track of the estimates on screen so they can be refreshed.
+     */
+    private final RideRequestButtonView shownEstimatesView = new RideRequestButtonView() {
+        @Override
+        public void showEstimate(@NonNull TimeEstimate timeEstimate) {
+            shownTimeEstimate = timeEstimate;
+            shownPriceEstimate = null;
+            if (rideRequestButtonView != null) {
+                rideRequestButtonView.showEstimate(timeEstimate);
+            }
+        }
+
+        @Override
+        public void showEstimate(@NonNull TimeEstimate timeEstimate, @NonNull PriceEstimate priceEstimate) {
+            shownTimeEstimate = timeEstimate;
+            shownPriceEstimate = priceEstimate;
+            if (rideRequestButtonView != null) {
+                rideRequestButtonView.showEstimate(timeEstimate, priceEstimate);
+            }
+        }
+
+        @Override
+        public void showDefaultView() {
+            shownTimeEstimate = null;
+            shownPriceEstimate = null;
+            if (rideRequestButtonView != null) {
+                rideRequestButtonView.showDefaultView();
+            }
+        }
+    };
+
     @VisibleForTesting
     RideRequestButtonController(
             @NonNull RideRequestButtonView rideRequestButtonView,
-            @NonNull RidesService ridesService,
+            @NonNull EstimateLoader estimateLoader,
             @Nullable RideRequestButtonCallback callback) {
         this.rideRequestButtonView = rideRequestButtonView;
         this.rideRequestButtonCallback = callback;
-        this.ridesService = ridesService;
-        this.pendingDelegate = new TimeDelegate(rideRequestButtonView, callback);
+        this.estimateLoader = estimateLoader;
+        this.pendingDelegate = new TimeDelegate(shownEstimatesView, callback);
     }
 
     public RideRequestButtonController(
             @NonNull RideRequestButtonView rideRequestButtonView,
             @NonNull Session session,
             @Nullable RideRequestButtonCallback callback) {
-        this.rideRequestButtonView = rideRequestButtonView;
-        this.rideRequestButtonCallback = callback;
-        this.ridesService = UberRidesApi.with(session)
-                .build()
-                .createService();
-        this.pendingDelegate = new TimeDelegate(rideRequestButtonView, callback);
+        this(rideRequestButtonView,
+                new EstimateLoader(RidesServiceRegistry.getInstance().getService(session),
+                        EstimateCache.getInstance(),
+                        EstimateRequestCoalescer.getInstance()),
+                callback);
+        if (RidesServiceRegistry.getInstance().hasHttpCache()) {
+            estimateLoader.setStoredEstimateInterceptor(StoredEstimateInterceptor.getInstance());
+        }
+    }
+
+    /**
+     * Sets how previously loaded estimates are used, defaults to {@link EstimateLoadingPolicy#CACHE_FIRST}.
+     */
+    public void setLoadingPolicy(@NonNull EstimateLoadingPolicy loadingPolicy) {
+        this.loadingPolicy = loadingPolicy;
+    }
+
+    /**
+     * Sets how failed estimate requests are retried, defaults to {@link RetryPolicy#NONE}. Retries stop once
+     * {@link #destroy()} is called or the estimates are loaded again.
+     */
+    public void setRetryPolicy(@NonNull RetryPolicy retryPolicy) {
+        estimateLoader.setRetryPolicy(retryPolicy);
+    }
+
+    /**
+     * Sets the time estimates may take to load, 0 to wait for them indefinitely, which is the default. Once it is
+     * used up, pending requests are cancelled, a time estimate that already loaded is shown alone and an
+     * {@link EstimateTimeoutException} is reported. Refreshes of estimates already shown are not limited.
+     *
+     * @param latencyBudget time from {@link #loadRideInformation(RideParameters)} until estimates should be shown.
+     * @param unit unit of latencyBudget.
+     */
+    public void setLatencyBudget(long latencyBudget, @NonNull TimeUnit unit) {
+        checkState(latencyBudget >= 0, "Latency budget must not be negative.");
+        this.latencyBudgetMillis = unit.toMillis(latencyBudget);
+    }
+
+    /**
+     * Sets whether the time estimate is shown as soon as it loads, before the price estimate, defaults to false.
+     * A {@link ProgressiveRideRequestButtonCallback} is notified when that happens.
+     */
+    public void setProgressiveRendering(boolean progressiveRendering) {
+        this.progressiveRendering = progressiveRendering;
+    }
+
+    /**
+     * Sets whether estimate responses are parsed as a stream and reduced to the estimate shown, defaults to false.
+     * Lowers allocations on low-end devices, but the reduced responses cannot be shared with buttons showing other
+     * products. Complete responses loaded by other buttons are still used when available.
+     */
+    public void setStreamingParse(boolean streamingParse) {
+        estimateLoader.setStreamingInterceptor(streamingParse ? StreamingEstimateInterceptor.getInstance() : null);
+    }
+
+    /**
+     * Sets the executors estimates are handled on. Responses are processed and the estimate shown is looked up on
+     * processingExecutor, while the button is updated and callbacks are notified on deliveryExecutor.
+     *
+     * @param processingExecutor executor for response processing, null for the thread responses arrive on, which
+     * is the main thread by default.
+     * @param deliveryExecutor executor running on the main thread for view updates, null for the default. Defaults
+     * to batching updates into one main thread message if a processingExecutor is set, and to delivering them right
+     * away otherwise.
+     */
+    public void setExecutors(@Nullable Executor processingExecutor, @Nullable Executor deliveryExecutor) {
+        estimateLoader.setProcessingExecutor(processingExecutor);
+        if (deliveryExecutor == null && processingExecutor != null) {
+            deliveryExecutor = mainThreadExecutor;
+        }
+        this.deliveryExecutor = deliveryExecutor;
+    }
+
+    @VisibleForTesting
+    void setMainThreadExecutor(@NonNull Executor mainThreadExecutor) {
+        this.mainThreadExecutor = mainThreadExecutor;
+    }
+
+    @VisibleForTesting
+    void setScheduler(@NonNull Scheduler scheduler) {
+        this.scheduler = scheduler;
     }
 
     public void loadRideInformation(@NonNull RideParameters rideParameters) {
-        checkNotNull(rideParameters.getPickupLatitude(), "Must set pick up point latitude in " +
-                "RideParameters.");
+        checkRideParameters(rideParameters);
 
-        checkNotNull(rideParameters.getPickupLongitude(), "Must set pick up point longitude in " +
-                "RideParameters.");
+        cancelAllPending();
+        this.rideParameters = rideParameters;
+
+        if (paused) {
+            reloadOnResume = true;
+            return;
+        }
+        reloadOnResume = false;
+
+        if (loadingPolicy != EstimateLoadingPolicy.CACHE_FIRST && showCachedEstimates(rideParameters)) {
+            return;
+        }
+
+        if (estimateLoader.canLoadStoredEstimates() && !hasCachedTimeEstimates(rideParameters)) {
+            loadStoredEstimates(rideParameters);
+            return;
+        }
+
+        loadEstimates(rideParameters, null, null);
+    }
+
+    private boolean hasCachedTimeEstimates(@NonNull RideParameters rideParameters) {
+        return estimateLoader.peekTimeEstimates(
+                rideParameters.getPickupLatitude().floatValue(),
+                rideParameters.getPickupLongitude().floatValue(),
+                rideParameters.getProductId(),
+                estimateLoader.getMaxAgeMillis()) != null;
+    }
+
+    /**
+     * Loads the estimates stored in the persistent HTTP response cache by an earlier app start, however stale, then
+     * shows them and refreshes them from the network. Falls back to loading estimates from the network if none
+     * within the max staleness of the {@link EstimateLoadingPolicy} are stored.
+     */
+    private void loadStoredEstimates(@NonNull RideParameters rideParameters) {
+        final StoredEstimates storedEstimates = new StoredEstimates(rideParameters);
+        pendingStoredEstimates = storedEstimates;
+
+        final float pickupLatitude = rideParameters.getPickupLatitude().floatValue();
+        final float pickupLongitude = rideParameters.getPickupLongitude().floatValue();
+        final String productId = rideParameters.getProductId();
+        final long maxStalenessMillis = loadingPolicy.getMaxStalenessMillis();
+
+        timeEstimateSubscription = estimateLoader.loadStoredTimeEstimates(pickupLatitude, pickupLongitude, productId,
+                maxStalenessMillis, new StoredEstimateCallback<TimeEstimate>(productId) {
+                    @Override
+                    void onStoredEstimate(@Nullable TimeEstimate timeEstimate) {
+                        storedEstimates.onTimeEstimate(timeEstimate);
+                    }
+                });
 
         if (rideParameters.getDropoffLatitude() != null) {
-            checkNotNull(rideParameters.getDropoffLongitude(), "Dropoff point latitude is set in " +
-                    "RideParameters but not the longitude.");
+            priceEstimateSubscription = estimateLoader.loadStoredPriceEstimates(
+                    pickupLatitude,
+                    pickupLongitude,
+                    rideParameters.getDropoffLatitude().floatValue(),
+                    rideParameters.getDropoffLongitude().floatValue(),
+                    maxStalenessMillis,
+                    new StoredEstimateCallback<PriceEstimate>(productId) {
+                        @Override
+                        void onStoredEstimate(@Nullable PriceEstimate priceEstimate) {
+                            storedEstimates.onPriceEstimate(priceEstimate);
+                        }
+                    });
         }
+    }
 
-        if (rideParameters.getDropoffLongitude() != null) {
-            checkNotNull(rideParameters.getDropoffLatitude(), "Dropoff point longitude is set in" +
-                    " RideParameters but not the latitude.");
+    private void onStoredEstimatesLoaded(@NonNull StoredEstimates storedEstimates) {
+        if (storedEstimates != pendingStoredEstimates) {
+            return;
+        }
+        pendingStoredEstimates = null;
+
+        final RideParameters rideParameters = storedEstimates.rideParameters;
+        final TimeEstimate timeEstimate = storedEstimates.timeEstimate;
+        final PriceEstimate priceEstimate = storedEstimates.priceEstimate;
+        if (timeEstimate == null || (rideParameters.getDropoffLatitude() != null && priceEstimate == null)) {
+            loadEstimates(rideParameters, null, null);
+            return;
         }
 
-        cancelAllPending();
+        showEstimates(timeEstimate, priceEstimate);
+        loadEstimates(rideParameters, timeEstimate, priceEstimate);
+    }
+
+    /**
+     * Shows estimates still within the max staleness of the {@link EstimateLoadingPolicy}, refreshing them if they
+     * are no longer fresh.
+     *
+     * @return true if cached estimates were shown.
+     */
+    private boolean showCachedEstimates(@NonNull RideParameters rideParameters) {
+        final float pickupLatitude = rideParameters.getPickupLatitude().floatValue();
+        final float pickupLongitude = rideParameters.getPickupLongitude().floatValue();
+        final String productId = rideParameters.getProductId();
+        final long maxStalenessMillis = loadingPolicy.getMaxStalenessMillis();
+
+        final EstimateCache.Entry<EstimateIndex<TimeEstimate>> timeEntry =
+                estimateLoader.peekTimeEstimates(pickupLatitude, pickupLongitude, productId, maxStalenessMillis);
+        final TimeEstimate timeEstimate = timeEntry != null ? timeEntry.value.find(productId) : null;
+        if (timeEstimate == null) {
+            return false;
+        }
+
+        boolean revalidate = loadingPolicy.shouldRevalidate(estimateLoader.getAgeMillis(timeEntry));
+        PriceEstimate priceEstimate = null;
+        if (rideParameters.getDropoffLatitude() != null) {
+            final EstimateCache.Entry<EstimateIndex<PriceEstimate>> priceEntry = estimateLoader.peekPriceEstimates(
+                    pickupLatitude,
+                    pickupLongitude,
+                    rideParameters.getDropoffLatitude().floatValue(),
+                    rideParameters.getDropoffLongitude().floatValue(),
+                    productId,
+                    maxStalenessMillis);
+            priceEstimate = priceEntry != null ? priceEntry.value.find(productId) : null;
+            if (priceEstimate == null) {
+                return false;
+            }
+            revalidate |= loadingPolicy.shouldRevalidate(estimateLoader.getAgeMillis(priceEntry));
+        }
+
+        showEstimates(timeEstimate, priceEstimate);
+
+        if (revalidate) {
+            // The revalidating load counts its own cache lookup.
+            loadEstimates(rideParameters, timeEstimate, priceEstimate);
+        } else {
+            estimateLoader.recordCacheHit();
+            if (priceEstimate != null) {
+                estimateLoader.recordCacheHit();
+            }
+        }
+        return true;
+    }
+
+    private void showEstimates(@NonNull TimeEstimate timeEstimate, @Nullable PriceEstimate priceEstimate) {
+        if (priceEstimate != null) {
+            TimePriceDelegate delegate = new TimePriceDelegate(shownEstimatesView, rideRequestButtonCallback);
+            delegate.onPriceReceived(priceEstimate);
+            delegate.onTimeReceived(timeEstimate);
+        } else {
+            new TimeDelegate(shownEstimatesView, rideRequestButtonCallback).onTimeReceived(timeEstimate);
+        }
+    }
+
+    /**
+     * Loads estimates, refreshing the cache if estimates are already shown.
+     *
+     * @param shownTimeEstimate time estimate on screen that is being refreshed, null if none.
+     * @param shownPriceEstimate price estimate on screen that is being refreshed, null if none.
+     */
+    private void loadEstimates(
+            @NonNull RideParameters rideParameters,
+            @Nullable TimeEstimate shownTimeEstimate,
+            @Nullable PriceEstimate shownPriceEstimate) {
+        final boolean useCache = shownTimeEstimate == null;
 
         if (rideParameters.getDropoffLatitude() != null) {
-            TimePriceDelegate pendingDelegate = new TimePriceDelegate(rideRequestButtonView, rideRequestButtonCallback);
+            TimePriceDelegate pendingDelegate = new TimePriceDelegate(shownEstimatesView, rideRequestButtonCallback);
+            pendingDelegate.setProgressive(progressiveRendering);
+            if (shownTimeEstimate != null && shownPriceEstimate != null) {
+                pendingDelegate.setShownEstimates(shownTimeEstimate, shownPriceEstimate);
+            }
 
             loadPriceEstimate(
                     rideParameters.getPickupLatitude().floatValue(),
@@ -114,59 +390,88 @@ public class RideRequestButtonController {
                     rideParameters.getDropoffLatitude().floatValue(),
                     rideParameters.getDropoffLongitude().floatValue(),
                     rideParameters.getProductId(),
+                    useCache,
                     pendingDelegate);
 
             this.pendingDelegate = pendingDelegate;
         } else {
-            pendingDelegate = new TimeDelegate(rideRequestButtonView, rideRequestButtonCallback);
+            pendingDelegate = new TimeDelegate(shownEstimatesView, rideRequestButtonCallback);
+            if (shownTimeEstimate != null) {
+                pendingDelegate.setShownEstimate(shownTimeEstimate);
+            }
         }
 
         loadTimeEstimate(
                 pendingDelegate,
                 rideParameters.getPickupLatitude().floatValue(),
                 rideParameters.getPickupLongitude().floatValue(),
-                rideParameters.getProductId());
-    }
+                rideParameters.getProductId(),
+                useCache);
 
-    private void loadTimeEstimate(
-            @NonNull final TimeDelegate delegate,
-            final float latitude,
-            final float longitude,
-            final @Nullable String productId) {
-
-        timeEstimateCall = ridesService.getPickupTimeEstimate(latitude, longitude, productId);
+        if (latencyBudgetMillis > 0 && !pendingDelegate.isRevalidating() && !pendingDelegate.isFinished()) {
+            scheduleDeadline(pendingDelegate, latencyBudgetMillis);
+        }
+    }
 
-        timeEstimateCall.enqueue(new Callback<TimeEstimatesResponse>() {
+    private void scheduleDeadline(@NonNull final TimeDelegate delegate, final long latencyBudgetMillis) {
+        deadlineSubscription = scheduler.schedule(new Runnable() {
             @Override
-            public void onResponse(Call<TimeEstimatesResponse> call, Response<TimeEstimatesResponse> response) {
-                final ApiError apiError = ErrorParser.parseError(response);
-                if (apiError != null) {
-                    delegate.finishWithError(apiError);
+            public void run() {
+                if (delegate != pendingDelegate) {
                     return;
                 }
 
-                final List<TimeEstimate> estimates = response.body().getTimes();
-                if (estimates == null || estimates.size() < 1) {
-                    delegate.finishWithError(createProductNoFoundError());
-                    return;
-                }
+                timeEstimateSubscription.cancel();
+                timeEstimateSubscription = Subscription.EMPTY;
 
-                final TimeEstimate timeEstimate =
-                        (productId == null) ? estimates.get(0) : findTimeEstimate(productId, estimates);
+                priceEstimateSubscription.cancel();
+                priceEstimateSubscription = Subscription.EMPTY;
 
-                if (timeEstimate == null) {
-                    delegate.finishWithError(createProductNoFoundError());
-                    return;
-                }
-
-                delegate.onTimeReceived(timeEstimate);
+                delegate.onDeadlineExpired(latencyBudgetMillis);
             }
+        }, latencyBudgetMillis);
+    }
 
-            @Override
-            public void onFailure(Call<TimeEstimatesResponse> call, Throwable throwable) {
-                delegate.finishWithError(throwable);
-            }
-        });
+    private void loadTimeEstimate(
+            @NonNull final TimeDelegate delegate,
+            final float latitude,
+            final float longitude,
+            final @Nullable String productId,
+            boolean useCache) {
+
+        timeEstimateSubscription = estimateLoader.loadTimeEstimates(latitude, longitude, productId, useCache,
+                new EstimateCallback<EstimateIndex<TimeEstimate>>() {
+                    @Override
+                    public void onEstimatesLoaded(@NonNull EstimateIndex<TimeEstimate> estimates) {
+                        final TimeEstimate timeEstimate = estimates.find(productId);
+                        deliver(new Runnable() {
+                            @Override
+                            public void run() {
+                                onTimeEstimateReceived(delegate, timeEstimate);
+                            }
+                        });
+                    }
+
+                    @Override
+                    public void onError(@NonNull final ApiError apiError) {
+                        deliver(new Runnable() {
+                            @Override
+                            public void run() {
+                                delegate.finishWithError(apiError);
+                            }
+                        });
+                    }
+
+                    @Override
+                    public void onFailure(@NonNull final Throwable throwable) {
+                        deliver(new Runnable() {
+                            @Override
+                            public void run() {
+                                delegate.finishWithError(throwable);
+                            }
+                        });
+                    }
+                });
     }
 
     private void loadPriceEstimate(
@@ -175,45 +480,120 @@ public class RideRequestButtonController {
             final float endLatitude,
             final float endLongitude,
             final @Nullable String productId,
+            boolean useCache,
             final TimePriceDelegate delegate) {
 
-        priceEstimateCall = ridesService.getPriceEstimates(startLatitude, startLongitude,
-                endLatitude, endLongitude);
+        priceEstimateSubscription = estimateLoader.loadPriceEstimates(startLatitude, startLongitude,
+                endLatitude, endLongitude, productId, useCache, new EstimateCallback<EstimateIndex<PriceEstimate>>() {
+                    @Override
+                    public void onEstimatesLoaded(@NonNull EstimateIndex<PriceEstimate> estimates) {
+                        final PriceEstimate priceEstimate = estimates.find(productId);
+                        deliver(new Runnable() {
+                            @Override
+                            public void run() {
+                                onPriceEstimateReceived(delegate, priceEstimate);
+                            }
+                        });
+                    }
+
+                    @Override
+                    public void onError(@NonNull final ApiError apiError) {
+                        deliver(new Runnable() {
+                            @Override
+                            public void run() {
+                                delegate.finishWithError(apiError);
+                            }
+                        });
+                    }
+
+                    @Override
+                    public void onFailure(@NonNull final Throwable throwable) {
+                        deliver(new Runnable() {
+                            @Override
+                            public void run() {
+                                delegate.finishWithError(throwable);
+                            }
+                        });
+                    }
+                });
+    }
 
-        priceEstimateCall.enqueue(new Callback<PriceEstimatesResponse>() {
-            @Override
-            public void onResponse(
-                    Call<PriceEstimatesResponse> call,
-                    Response<PriceEstimatesResponse> response) {
+    private static void onTimeEstimateReceived(
+            @NonNull TimeDelegate delegate,
+            @Nullable TimeEstimate timeEstimate) {
+        if (timeEstimate == null) {
+            delegate.finishWithError(createProductNoFoundError());
+            return;
+        }
 
-                ApiError apiError = ErrorParser.parseError(response);
-                if (apiError != null) {
-                    delegate.finishWithError(apiError);
-                    return;
-                }
+        delegate.onTimeReceived(timeEstimate);
+    }
 
-                final List<PriceEstimate> estimates = response.body().getPrices();
-                if (estimates == null || estimates.size() < 1) {
-                    delegate.finishWithError(createProductNoFoundError());
-                    return;
-                }
+    private static void onPriceEstimateReceived(
+            @NonNull TimePriceDelegate delegate,
+            @Nullable PriceEstimate priceEstimate) {
+        if (priceEstimate == null) {
+            delegate.finishWithError(createProductNoFoundError());
+            return;
+        }
 
-                final PriceEstimate priceEstimate =
-                        (productId == null) ? estimates.get(0) : findPriceEstimate(productId, estimates);
+        delegate.onPriceReceived(priceEstimate);
+    }
 
-                if (priceEstimate == null) {
-                    delegate.finishWithError(createProductNoFoundError());
-                    return;
-                }
+    /**
+     * Stops loading estimates while the host of the button is stopped or hidden. In-flight requests are cancelled
+     * and no views are updated until {@link #resume()} is called. Estimates that were loading or requested while
+     * paused are loaded again on resume, from the cache where possible.
+     */
+    public void pause() {
+        if (paused) {
+            return;
+        }
+        paused = true;
 
-                delegate.onPriceReceived(priceEstimate);
-            }
+        if (!pendingDelegate.isFinished() || pendingStoredEstimates != null) {
+            cancelAllPending();
+            reloadOnResume = true;
+        }
+    }
 
-            @Override
-            public void onFailure(Call<PriceEstimatesResponse> call, Throwable throwable) {
-                delegate.finishWithError(throwable);
-            }
-        });
+    /**
+     * Resumes loading estimates after {@link #pause()}.
+     */
+    public void resume() {
+        if (!paused) {
+            return;
+        }
+        paused = false;
+
+        if (reloadOnResume && rideParameters != null && rideRequestButtonView != null) {
+            loadRideInformation(rideParameters);
+        }
+    }
+
+    /**
+     * Reloads the estimates on screen from the network, only updating the button if they changed. Does nothing while
+     * paused, while estimates are still loading or if no complete estimates are shown.
+     */
+    public void refresh() {
+        if (paused || rideParameters == null || rideRequestButtonView == null || !pendingDelegate.isFinished()) {
+            return;
+        }
+
+        final TimeEstimate timeEstimate = shownTimeEstimate;
+        final PriceEstimate priceEstimate = shownPriceEstimate;
+        if (timeEstimate == null || (rideParameters.getDropoffLatitude() != null && priceEstimate == null)) {
+            return;
+        }
+
+        loadEstimates(rideParameters, timeEstimate, priceEstimate);
+    }
+
+    /**
+     * @return true if loading is paused until {@link #resume()} is called.
+     */
+    public boolean isPaused() {
+        return paused;
     }
 
     /**
@@ -228,34 +608,127 @@ public class RideRequestButtonController {
 
     private void cancelAllPending() {
         pendingDelegate.finish();
-        if (timeEstimateCall != null) {
-            timeEstimateCall.cancel();
+        pendingStoredEstimates = null;
+        deadlineSubscription.cancel();
+        deadlineSubscription = Subscription.EMPTY;
+
+        timeEstimateSubscription.cancel();
+        timeEstimateSubscription = Subscription.EMPTY;
+
+        priceEstimateSubscription.cancel();
+        priceEstimateSubscription = Subscription.EMPTY;
+    }
+
+    /**
+     * Runs task on the delivery executor, or right away if there is none. Without a delivery executor, tasks still
+     * move to the main thread when a shared request was processed on the executor of another controller.
+     */
+    private void deliver(@NonNull Runnable task) {
+        Executor executor = deliveryExecutor;
+        if (executor == null && EstimateLoader.isProcessingThread()) {
+            executor = mainThreadExecutor;
         }
 
-        if (priceEstimateCall != null) {
-            priceEstimateCall.cancel();
+        if (executor != null) {
+            executor.execute(task);
+        } else {
+            task.run();
         }
     }
 
-    private static ApiError createProductNoFoundError() {
-        return new ApiError(null, Arrays.asList(new ClientError(null, 404, "Product Id requested not found.")));
-    }
+    /**
+     * Estimates stored in the persistent HTTP response cache, loaded before estimates are loaded from the network.
+     */
+    private class StoredEstimates {
+
+        @NonNull private final RideParameters rideParameters;
+        @Nullable private TimeEstimate timeEstimate;
+        @Nullable private PriceEstimate priceEstimate;
+        private boolean timeLoaded;
+        private boolean priceLoaded;
+
+        StoredEstimates(@NonNull RideParameters rideParameters) {
+            this.rideParameters = rideParameters;
+            this.priceLoaded = rideParameters.getDropoffLatitude() == null;
+        }
 
-    private static TimeEstimate findTimeEstimate(@NonNull String productId, @NonNull List<TimeEstimate> estimates) {
-        for (TimeEstimate estimate : estimates) {
-            if (productId.equals(estimate.getProductId())) {
-                return estimate;
+        void onTimeEstimate(@Nullable TimeEstimate timeEstimate) {
+            this.timeEstimate = timeEstimate;
+            timeLoaded = true;
+            if (priceLoaded) {
+                onStoredEstimatesLoaded(this);
             }
         }
-        return null;
-    }
 
-    private static PriceEstimate findPriceEstimate(@NonNull String productId, @NonNull List<PriceEstimate> estimates) {
-        for (PriceEstimate estimate : estimates) {
-            if (productId.equals(estimate.getProductId())) {
-                return estimate;
+        void onPriceEstimate(@Nullable PriceEstimate priceEstimate) {
+            this.priceEstimate = priceEstimate;
+            priceLoaded = true;
+            if (timeLoaded) {
+                onStoredEstimatesLoaded(this);
             }
         }
-        return null;
+    }
+
+    /**
+     * Finds the estimate of a product in stored estimates and delivers it, or null if none is stored.
+     */
+    private abstract class StoredEstimateCallback<E> implements EstimateCallback<EstimateIndex<E>> {
+
+        @Nullable private final String productId;
+
+        StoredEstimateCallback(@Nullable String productId) {
+            this.productId = productId;
+        }
+
+        abstract void onStoredEstimate(@Nullable E estimate);
+
+        @Override
+        public void onEstimatesLoaded(@NonNull EstimateIndex<E> estimates) {
+            onResult(estimates.find(productId));
+        }
+
+        @Override
+        public void onError(@NonNull ApiError apiError) {
+            onResult(null);
+        }
+
+        @Override
+        public void onFailure(@NonNull Throwable throwable) {
+            onResult(null);
+        }
+
+        private void onResult(@Nullable final E estimate) {
+            deliver(new Runnable() {
+                @Override
+                public void run() {
+                    onStoredEstimate(estimate);
+                }
+            });
+        }
+    }
+
+    /**
+     * Checks that rideParameters have a pickup location and either a complete dropoff location or none.
+     */
+    static void checkRideParameters(@NonNull RideParameters rideParameters) {
+        checkNotNull(rideParameters.getPickupLatitude(), "Must set pick up point latitude in " +
+                "RideParameters.");
+
+        checkNotNull(rideParameters.getPickupLongitude(), "Must set pick up point longitude in " +
+                "RideParameters.");
+
+        if (rideParameters.getDropoffLatitude() != null) {
+            checkNotNull(rideParameters.getDropoffLongitude(), "Dropoff point latitude is set in " +
+                    "RideParameters but not the longitude.");
+        }
+
+        if (rideParameters.getDropoffLongitude() != null) {
+            checkNotNull(rideParameters.getDropoffLatitude(), "Dropoff point longitude is set in" +
+                    " RideParameters but not the latitude.");
+        }
+    }
+
+    static ApiError createProductNoFoundError() {
+        return new ApiError(null, Arrays.asList(new ClientError(null, 404, "Product Id requested not found.")));
     }
 }
@@ -0,0 +1,167 @@
+/*
+ * Copyright (c) 2016 Uber Technologies, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.uber.sdk.android.rides.internal;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.VisibleForTesting;
+
+import com.uber.sdk.android.core.UberSdk;
+import com.uber.sdk.rides.client.Session;
+import com.uber.sdk.rides.client.UberRidesApi;
+import com.uber.sdk.rides.client.services.RidesService;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Cache;
+import okhttp3.OkHttpClient;
+
+/**
+ * Process-wide registry of {@link RidesService}s, one per {@link Session}. All services are built on the same
+ * {@link OkHttpClient}, so every {@link RideRequestButtonController} shares one connection pool, dispatcher and TLS
+ * session cache. If a persistent HTTP response cache is set through
+ * {@link UberSdk.Options.Builder#setHttpCache(File, long)} before the first service is requested, estimate
+ * responses are stored in it and shown on the next app start before they are revalidated.
+ */
+public class RidesServiceRegistry {
+
+    static final int MAX_SESSIONS = 8;
+
+    private static RidesServiceRegistry instance;
+
+    @NonNull private final OkHttpClient client;
+    @NonNull private final Map<Session, RidesService> services =
+            new LinkedHashMap<Session, RidesService>(MAX_SESSIONS, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Session, RidesService> eldest) {
+                    return size() > MAX_SESSIONS;
+                }
+            };
+
+    /**
+     * @return the {@link RidesServiceRegistry} shared by all {@link RideRequestButtonController}s.
+     */
+    @NonNull
+    public static synchronized RidesServiceRegistry getInstance() {
+        if (instance == null) {
+            instance = new RidesServiceRegistry(createClient(UberSdk.getHttpCache()));
+        }
+        return instance;
+    }
+
+    @VisibleForTesting
+    RidesServiceRegistry(@NonNull OkHttpClient client) {
+        this.client = client;
+    }
+
+    @NonNull
+    @VisibleForTesting
+    static OkHttpClient createClient(@Nullable Cache httpCache) {
+        final OkHttpClient.Builder builder = new OkHttpClient.Builder()
+                .addInterceptor(StreamingEstimateInterceptor.getInstance());
+        if (httpCache != null) {
+            builder.cache(httpCache)
+                    .addInterceptor(StoredEstimateInterceptor.getInstance())
+                    .addNetworkInterceptor(new EstimateResponseCacheInterceptor(
+                            TimeUnit.MILLISECONDS.toSeconds(EstimateCache.DEFAULT_MAX_AGE_MILLIS)));
+        }
+        return builder.build();
+    }
+
+    /**
+     * @return the {@link RidesService} for session, created on first use.
+     */
+    @NonNull
+    public synchronized RidesService getService(@NonNull Session session) {
+        RidesService service = services.get(session);
+        if (service == null) {
+            service = UberRidesApi.with(session)
+                    .setClient(client)
+                    .build()
+                    .createService();
+            services.put(session, service);
+        }
+        return service;
+    }
+
+    /**
+     * @return the number of connections currently held in the shared connection pool.
+     */
+    public int getConnectionCount() {
+        return client.connectionPool().connectionCount();
+    }
+
+    /**
+     * @return the number of idle connections currently held in the shared connection pool.
+     */
+    public int getIdleConnectionCount() {
+        return client.connectionPool().idleConnectionCount();
+    }
+
+    /**
+     * @return true if services store responses in a persistent HTTP response cache.
+     */
+    public boolean hasHttpCache() {
+        return client.cache() != null;
+    }
+
+    /**
+     * @return the number of requests answered from the persistent HTTP response cache, 0 if none is set.
+     */
+    public int getHttpCacheHitCount() {
+        final Cache cache = client.cache();
+        return cache != null ? cache.hitCount() : 0;
+    }
+
+    /**
+     * @return the number of requests that went to the network, including cache revalidations, 0 if no persistent
+     * HTTP response cache is set.
+     */
+    public int getHttpCacheMissCount() {
+        final Cache cache = client.cache();
+        return cache != null ? cache.networkCount() : 0;
+    }
+
+    /**
+     * Deletes all responses stored in the persistent HTTP response cache, if one is set.
+     *
+     * @throws IOException if the cache could not be cleared.
+     */
+    public void clearHttpCache() throws IOException {
+        final Cache cache = client.cache();
+        if (cache != null) {
+            cache.evictAll();
+        }
+    }
+
+    /**
+     * @return the number of {@link Session}s services are currently kept for.
+     */
+    public synchronized int getServiceCount() {
+        return services.size();
+    }
+}
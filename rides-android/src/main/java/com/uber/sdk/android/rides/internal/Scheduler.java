@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2016 Uber Technologies, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.uber.sdk.android.rides.internal;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.NonNull;
+
+/**
+ * Runs tasks after a delay, replaceable in tests.
+ */
+interface Scheduler {
+
+    /**
+     * Runs tasks on the main thread.
+     */
+    Scheduler MAIN_THREAD = new Scheduler() {
+        @NonNull
+        @Override
+        public Subscription schedule(@NonNull final Runnable task, long delayMillis) {
+            final Handler handler = MainHandler.get();
+            handler.postDelayed(task, delayMillis);
+            return new Subscription() {
+                @Override
+                public void cancel() {
+                    handler.removeCallbacks(task);
+                }
+            };
+        }
+    };
+
+    /**
+     * Runs task once delayMillis have passed.
+     *
+     * @return handle to cancel the task before it runs.
+     */
+    @NonNull
+    Subscription schedule(@NonNull Runnable task, long delayMillis);
+
+    /**
+     * Lazily creates the main thread {@link Handler}, so that {@link Scheduler} can be loaded without a main
+     * {@link Looper}.
+     */
+    final class MainHandler {
+
+        private static Handler handler;
+
+        private MainHandler() {
+        }
+
+        @NonNull
+        static synchronized Handler get() {
+            if (handler == null) {
+                handler = new Handler(Looper.getMainLooper());
+            }
+            return handler;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2016 Uber Technologies, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.uber.sdk.android.rides.internal;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.VisibleForTesting;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+import okhttp3.CacheControl;
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Application interceptor that answers requests registered through {@link #forceCache(Request)} from the persistent
+ * HTTP response cache only, however stale the cached response is. Registered requests without a cached response
+ * fail with status 504 instead of going to the network.
+ */
+class StoredEstimateInterceptor implements Interceptor {
+
+    private static final StoredEstimateInterceptor INSTANCE = new StoredEstimateInterceptor();
+
+    private final Set<Request> forcedRequests = Collections.newSetFromMap(new WeakHashMap<Request, Boolean>());
+
+    @NonNull
+    static StoredEstimateInterceptor getInstance() {
+        return INSTANCE;
+    }
+
+    @VisibleForTesting
+    StoredEstimateInterceptor() {
+    }
+
+    /**
+     * Answers request from the cache only.
+     */
+    synchronized void forceCache(@NonNull Request request) {
+        forcedRequests.add(request);
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        final Request request = chain.request();
+        final boolean forced;
+        synchronized (this) {
+            forced = forcedRequests.remove(request);
+        }
+        if (!forced) {
+            return chain.proceed(request);
+        }
+
+        return chain.proceed(request.newBuilder()
+                .cacheControl(CacheControl.FORCE_CACHE)
+                .build());
+    }
+}
@@ -0,0 +1,250 @@
+/*
+ * Copyright (c) 2016 Uber Technologies, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.uber.sdk.android.rides.internal;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.VisibleForTesting;
+
+import com.squareup.moshi.JsonReader;
+import com.squareup.moshi.JsonWriter;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.BufferedSource;
+
+/**
+ * Application interceptor that reduces estimate responses to the single estimate a button shows before they are
+ * converted into model objects. The response body is read as a stream only until the estimate of the requested
+ * product, or the first estimate if no product is requested, is found; estimates before it are skipped without being
+ * materialised and those after it are never read. Only requests registered through {@link #filter(Request, String)}
+ * are reduced.
+ */
+class StreamingEstimateInterceptor implements Interceptor {
+
+    private static final StreamingEstimateInterceptor INSTANCE = new StreamingEstimateInterceptor();
+
+    private static final String TIMES = "times";
+    private static final String PRICES = "prices";
+    private static final String PRODUCT_ID = "product_id";
+
+    private final Map<Request, Filter> filters = new WeakHashMap<>();
+
+    @NonNull
+    static StreamingEstimateInterceptor getInstance() {
+        return INSTANCE;
+    }
+
+    @VisibleForTesting
+    StreamingEstimateInterceptor() {
+    }
+
+    /**
+     * Reduces the response to request to the estimate of productId, or the first estimate if productId is null.
+     */
+    synchronized void filter(@NonNull Request request, @Nullable String productId) {
+        filters.put(request, new Filter(productId));
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        final Request request = chain.request();
+        final Filter filter;
+        synchronized (this) {
+            filter = filters.remove(request);
+        }
+        if (filter == null) {
+            return chain.proceed(request);
+        }
+
+        final Response response = chain.proceed(request);
+        if (!response.isSuccessful() || response.body() == null) {
+            return response;
+        }
+
+        final ResponseBody body = response.body();
+        final String filtered;
+        try {
+            filtered = filter(body.source(), filter.productId);
+        } finally {
+            body.close();
+        }
+        return response.newBuilder()
+                .body(ResponseBody.create(body.contentType(), filtered))
+                .build();
+    }
+
+    /**
+     * Reads a time or price estimates response and writes it back with only the estimate of productId, or the first
+     * estimate if productId is null. Stops reading once the estimate is found, closing the body then leaves it to
+     * OkHttp to discard the remaining bytes or the connection.
+     */
+    @NonNull
+    @VisibleForTesting
+    static String filter(@NonNull BufferedSource source, @Nullable String productId) throws IOException {
+        final JsonReader reader = JsonReader.of(source);
+        String arrayName = null;
+        String estimate = null;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            final String name = reader.nextName();
+            if ((TIMES.equals(name) || PRICES.equals(name)) && reader.peek() == JsonReader.Token.BEGIN_ARRAY) {
+                arrayName = name;
+                estimate = findEstimate(reader, productId);
+                break;
+            }
+            reader.skipValue();
+        }
+
+        if (arrayName == null) {
+            return "{}";
+        }
+        return "{\"" + arrayName + "\":[" + (estimate != null ? estimate : "") + "]}";
+    }
+
+    /**
+     * @return JSON of the first estimate of productId in the array reader is positioned at, or null if none.
+     */
+    @Nullable
+    private static String findEstimate(@NonNull JsonReader reader, @Nullable String productId) throws IOException {
+        reader.beginArray();
+        while (reader.hasNext()) {
+            final String estimate = copyEstimate(reader, productId);
+            if (estimate != null) {
+                return estimate;
+            }
+        }
+        reader.endArray();
+        return null;
+    }
+
+    /**
+     * Copies the estimate object reader is positioned at, skipping its remaining fields without reading them as soon
+     * as its product turns out not to match.
+     *
+     * @return JSON of the estimate if it matches productId, null otherwise.
+     */
+    @Nullable
+    private static String copyEstimate(@NonNull JsonReader reader, @Nullable String productId) throws IOException {
+        if (reader.peek() != JsonReader.Token.BEGIN_OBJECT) {
+            reader.skipValue();
+            return null;
+        }
+
+        final Buffer buffer = new Buffer();
+        final JsonWriter writer = JsonWriter.of(buffer);
+        boolean matches = productId == null;
+        boolean mismatch = false;
+
+        reader.beginObject();
+        writer.beginObject();
+        while (reader.hasNext()) {
+            final String name = reader.nextName();
+            if (mismatch) {
+                reader.skipValue();
+                continue;
+            }
+
+            if (productId != null && PRODUCT_ID.equals(name)) {
+                if (reader.peek() != JsonReader.Token.STRING) {
+                    reader.skipValue();
+                    mismatch = true;
+                    continue;
+                }
+                if (!productId.equals(reader.nextString())) {
+                    mismatch = true;
+                    continue;
+                }
+                matches = true;
+                writer.name(name).value(productId);
+                continue;
+            }
+
+            writer.name(name);
+            copyValue(reader, writer);
+        }
+        reader.endObject();
+        writer.endObject();
+        writer.close();
+
+        return matches && !mismatch ? buffer.readUtf8() : null;
+    }
+
+    private static void copyValue(@NonNull JsonReader reader, @NonNull JsonWriter writer) throws IOException {
+        switch (reader.peek()) {
+            case BEGIN_ARRAY:
+                reader.beginArray();
+                writer.beginArray();
+                while (reader.hasNext()) {
+                    copyValue(reader, writer);
+                }
+                reader.endArray();
+                writer.endArray();
+                break;
+            case BEGIN_OBJECT:
+                reader.beginObject();
+                writer.beginObject();
+                while (reader.hasNext()) {
+                    writer.name(reader.nextName());
+                    copyValue(reader, writer);
+                }
+                reader.endObject();
+                writer.endObject();
+                break;
+            case STRING:
+                writer.value(reader.nextString());
+                break;
+            case NUMBER:
+                writer.value(new BigDecimal(reader.nextString()));
+                break;
+            case BOOLEAN:
+                writer.value(reader.nextBoolean());
+                break;
+            case NULL:
+                reader.nextNull();
+                writer.nullValue();
+                break;
+            default:
+                reader.skipValue();
+                break;
+        }
+    }
+
+    private static class Filter {
+
+        @Nullable final String productId;
+
+        Filter(@Nullable String productId) {
+            this.productId = productId;
+        }
+    }
+}
@@ -23,7 +23,9 @@
 package com.uber.sdk.android.rides.internal;
 
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 
+import com.uber.sdk.android.rides.EstimateTimeoutException;
 import com.uber.sdk.android.rides.RideRequestButtonCallback;
 import com.uber.sdk.rides.client.error.ApiError;
 import com.uber.sdk.rides.client.model.TimeEstimate;
@@ -33,17 +35,59 @@ class TimeDelegate {
     RideRequestButtonView view;
     RideRequestButtonCallback callback;
 
+    /**
+     * Estimate already on screen that is being refreshed, null when loading for the first time.
+     */
+    @Nullable
+    TimeEstimate shownTimeEstimate;
+
+    private boolean finished;
+
     TimeDelegate(RideRequestButtonView view, RideRequestButtonCallback callback) {
         this.view = view;
         this.callback = callback;
     }
 
+    /**
+     * Refreshes an estimate already on screen. The view is only updated if the refreshed estimate differs, and
+     * errors leave the shown estimate in place.
+     */
+    void setShownEstimate(@NonNull TimeEstimate timeEstimate) {
+        this.shownTimeEstimate = timeEstimate;
+    }
+
+    boolean isRevalidating() {
+        return shownTimeEstimate != null;
+    }
+
     void finish() {
         view = null;
         callback = null;
+        finished = true;
+    }
+
+    boolean isFinished() {
+        return finished;
+    }
+
+    /**
+     * Finishes with an {@link EstimateTimeoutException} if estimates are still loading once the latency budget is
+     * used up.
+     */
+    void onDeadlineExpired(long latencyBudgetMillis) {
+        if (isFinished()) {
+            return;
+        }
+
+        finishWithError(new EstimateTimeoutException(latencyBudgetMillis, true, false));
     }
 
     public void finishWithError(ApiError error) {
+        if (isRevalidating()) {
+            finish();
+            return;
+        }
+
         if (callback != null) {
             callback.onError(error);
         }
@@ -51,6 +95,11 @@ class TimeDelegate {
     }
 
     void finishWithError(Throwable throwable) {
+        if (isRevalidating()) {
+            finish();
+            return;
+        }
+
         if (callback != null) {
             callback.onError(throwable);
         }
@@ -65,6 +114,11 @@ class TimeDelegate {
     }
 
     void onTimeReceived(@NonNull TimeEstimate timeEstimate) {
+        if (shownTimeEstimate != null && isSameEstimate(shownTimeEstimate, timeEstimate)) {
+            finish();
+            return;
+        }
+
         if (view != null) {
             view.showEstimate(timeEstimate);
         }
@@ -74,4 +128,13 @@ class TimeDelegate {
         }
         finish();
     }
+
+    static boolean isSameEstimate(@NonNull TimeEstimate first, @NonNull TimeEstimate second) {
+        return isEqual(first.getProductId(), second.getProductId())
+                && isEqual(first.getEstimate(), second.getEstimate());
+    }
+
+    static boolean isEqual(@Nullable Object first, @Nullable Object second) {
+        return first == null ? second == null : first.equals(second);
+    }
 }
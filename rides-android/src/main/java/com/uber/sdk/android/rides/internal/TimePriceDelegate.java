@@ -23,8 +23,12 @@
 package com.uber.sdk.android.rides.internal;
 
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 
+import com.uber.sdk.android.rides.EstimateTimeoutException;
+import com.uber.sdk.android.rides.ProgressiveRideRequestButtonCallback;
 import com.uber.sdk.android.rides.RideRequestButtonCallback;
+import com.uber.sdk.rides.client.error.ApiError;
 import com.uber.sdk.rides.client.model.PriceEstimate;
 import com.uber.sdk.rides.client.model.TimeEstimate;
 
@@ -33,16 +37,43 @@ class TimePriceDelegate extends TimeDelegate {
     private TimeEstimate timeEstimate = null;
     private PriceEstimate priceEstimate = null;
 
+    @Nullable
+    private PriceEstimate shownPriceEstimate;
+
+    private boolean progressive;
+    private boolean timeShown;
+
     public TimePriceDelegate(RideRequestButtonView view, RideRequestButtonCallback callback) {
         super(view, callback);
     }
 
+    /**
+     * Refreshes estimates already on screen. The view is only updated if either refreshed estimate differs, and
+     * errors leave the shown estimates in place.
+     */
+    void setShownEstimates(@NonNull TimeEstimate timeEstimate, @NonNull PriceEstimate priceEstimate) {
+        setShownEstimate(timeEstimate);
+        this.shownPriceEstimate = priceEstimate;
+    }
+
+    /**
+     * Shows the time estimate as soon as it arrives instead of waiting for the price estimate. Has no effect while
+     * refreshing estimates already on screen.
+     */
+    void setProgressive(boolean progressive) {
+        this.progressive = progressive;
+    }
+
     @Override
     void onTimeReceived(@NonNull TimeEstimate timeEstimate) {
         if (priceEstimate != null) {
             showEstimate(timeEstimate, priceEstimate);
-        } else {
-            this.timeEstimate = timeEstimate;
+            return;
+        }
+
+        this.timeEstimate = timeEstimate;
+        if (progressive && !isRevalidating() && !isFinished()) {
+            showTimeEstimate(timeEstimate);
         }
     }
 
@@ -54,7 +85,81 @@ class TimePriceDelegate extends TimeDelegate {
         }
     }
 
+    /**
+     * Shows the time estimate alone if only the price estimate is still loading once the latency budget is used up.
+     */
+    @Override
+    void onDeadlineExpired(long latencyBudgetMillis) {
+        if (isFinished()) {
+            return;
+        }
+
+        if (timeEstimate == null) {
+            finishWithError(new EstimateTimeoutException(latencyBudgetMillis, true, priceEstimate == null));
+            return;
+        }
+
+        if (!timeShown && view != null) {
+            view.showEstimate(timeEstimate);
+        }
+
+        if (callback != null) {
+            callback.onError(new EstimateTimeoutException(latencyBudgetMillis, false, true));
+        }
+        finish();
+    }
+
+    /**
+     * Keeps a progressively shown time estimate on screen if the price estimate fails.
+     */
+    @Override
+    public void finishWithError(ApiError error) {
+        if (!timeShown) {
+            super.finishWithError(error);
+            return;
+        }
+
+        if (callback != null) {
+            callback.onError(error);
+        }
+        finish();
+    }
+
+    /**
+     * Keeps a progressively shown time estimate on screen if the price estimate fails.
+     */
+    @Override
+    void finishWithError(Throwable throwable) {
+        if (!timeShown) {
+            super.finishWithError(throwable);
+            return;
+        }
+
+        if (callback != null) {
+            callback.onError(throwable);
+        }
+        finish();
+    }
+
+    private void showTimeEstimate(@NonNull TimeEstimate timeEstimate) {
+        timeShown = true;
+        if (view != null) {
+            view.showEstimate(timeEstimate);
+        }
+
+        if (callback instanceof ProgressiveRideRequestButtonCallback) {
+            ((ProgressiveRideRequestButtonCallback) callback).onTimeEstimateLoaded();
+        }
+    }
+
     private void showEstimate(@NonNull TimeEstimate timeEstimate, @NonNull PriceEstimate priceEstimate) {
+        if (shownTimeEstimate != null && shownPriceEstimate != null
+                && isSameEstimate(shownTimeEstimate, timeEstimate)
+                && isSameEstimate(shownPriceEstimate, priceEstimate)) {
+            finish();
+            return;
+        }
+
         if (view != null) {
             view.showEstimate(timeEstimate, priceEstimate);
         }
@@ -64,4 +169,10 @@ class TimePriceDelegate extends TimeDelegate {
         }
         finish();
     }
+
+    static boolean isSameEstimate(@NonNull PriceEstimate first, @NonNull PriceEstimate second) {
+        return isEqual(first.getProductId(), second.getProductId())
+                && isEqual(first.getEstimate(), second.getEstimate())
+                && isEqual(first.getDisplayName(), second.getDisplayName());
+    }
 }
@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2016 Uber Technologies, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.uber.sdk.android.rides.internal;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.VisibleForTesting;
+
+import com.uber.sdk.android.rides.LazyLoadingPolicy;
+
+/**
+ * Decides whether a view counts as visible under a {@link LazyLoadingPolicy}: once enough of it has been on screen
+ * for the dwell time. Visibility is lost as soon as too little of the view is on screen.
+ */
+public class VisibilityGate {
+
+    /**
+     * Notified when the view starts or stops counting as visible.
+     */
+    public interface Listener {
+
+        void onVisibilityChanged(boolean visible);
+    }
+
+    @NonNull
+    private final LazyLoadingPolicy policy;
+
+    @NonNull
+    private final Listener listener;
+
+    @NonNull
+    private final Scheduler scheduler;
+
+    @NonNull
+    private Subscription dwellSubscription = Subscription.EMPTY;
+    private boolean visible;
+
+    public VisibilityGate(@NonNull LazyLoadingPolicy policy, @NonNull Listener listener) {
+        this(policy, listener, Scheduler.MAIN_THREAD);
+    }
+
+    @VisibleForTesting
+    VisibilityGate(@NonNull LazyLoadingPolicy policy, @NonNull Listener listener, @NonNull Scheduler scheduler) {
+        this.policy = policy;
+        this.listener = listener;
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Updates the fraction of the view's area that is on screen, between 0 and 1.
+     */
+    public void setVisibleFraction(float visibleFraction) {
+        if (visibleFraction >= policy.getMinVisibleFraction() && visibleFraction > 0f) {
+            if (visible || dwellSubscription != Subscription.EMPTY) {
+                return;
+            }
+
+            dwellSubscription = scheduler.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    dwellSubscription = Subscription.EMPTY;
+                    visible = true;
+                    listener.onVisibilityChanged(true);
+                }
+            }, policy.getDwellMillis());
+        } else {
+            dwellSubscription.cancel();
+            dwellSubscription = Subscription.EMPTY;
+
+            if (visible) {
+                visible = false;
+                listener.onVisibilityChanged(false);
+            }
+        }
+    }
+
+    /**
+     * @return true if enough of the view has been on screen for the dwell time.
+     */
+    public boolean isVisible() {
+        return visible;
+    }
+
+    /**
+     * Stops tracking, treating the view as not visible without notifying the listener.
+     */
+    public void reset() {
+        dwellSubscription.cancel();
+        dwellSubscription = Subscription.EMPTY;
+        visible = false;
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2016 Uber Technologies, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.uber.sdk.android.rides;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class LazyLoadingPolicyTest {
+
+    @Test
+    public void eager_shouldNotBeLazy() {
+        assertThat(LazyLoadingPolicy.EAGER.isLazy()).isFalse();
+    }
+
+    @Test
+    public void whenVisible_shouldBeLazy() {
+        LazyLoadingPolicy policy = LazyLoadingPolicy.whenVisible(0.5f, 1, TimeUnit.SECONDS);
+
+        assertThat(policy.isLazy()).isTrue();
+        assertThat(policy.getMinVisibleFraction()).isEqualTo(0.5f);
+        assertThat(policy.getDwellMillis()).isEqualTo(1000L);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void whenVisible_whenNoFraction_shouldThrow() {
+        LazyLoadingPolicy.whenVisible(0f, 1, TimeUnit.SECONDS);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void whenVisible_whenFractionAboveOne_shouldThrow() {
+        LazyLoadingPolicy.whenVisible(1.5f, 1, TimeUnit.SECONDS);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void whenVisible_whenNegativeDwellTime_shouldThrow() {
+        LazyLoadingPolicy.whenVisible(0.5f, -1, TimeUnit.SECONDS);
+    }
+}
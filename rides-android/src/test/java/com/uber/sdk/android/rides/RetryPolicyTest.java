@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2016 Uber Technologies, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.uber.sdk.android.rides;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RetryPolicyTest {
+
+    @Test
+    public void none_shouldNeverRetry() {
+        assertThat(RetryPolicy.NONE.getMaxAttempts()).isEqualTo(1);
+        assertThat(RetryPolicy.NONE.shouldRetry(1, new IOException())).isFalse();
+        assertThat(RetryPolicy.NONE.shouldRetry(1, 503)).isFalse();
+    }
+
+    @Test
+    public void shouldRetry_whenRetryableError_shouldRetryUntilMaxAttempts() {
+        RetryPolicy retryPolicy = new RetryPolicy.Builder().setMaxAttempts(3).build();
+
+        assertThat(retryPolicy.shouldRetry(1, new SocketTimeoutException())).isTrue();
+        assertThat(retryPolicy.shouldRetry(2, new SocketTimeoutException())).isTrue();
+        assertThat(retryPolicy.shouldRetry(3, new SocketTimeoutException())).isFalse();
+    }
+
+    @Test
+    public void shouldRetry_whenErrorNotRetryable_shouldNotRetry() {
+        RetryPolicy retryPolicy = new RetryPolicy.Builder()
+                .setRetryableErrors(SocketTimeoutException.class)
+                .build();
+
+        assertThat(retryPolicy.shouldRetry(1, new IOException())).isFalse();
+        assertThat(retryPolicy.shouldRetry(1, new IllegalStateException())).isFalse();
+        assertThat(retryPolicy.shouldRetry(1, new SocketTimeoutException())).isTrue();
+    }
+
+    @Test
+    public void shouldRetry_whenStatusCode_shouldOnlyRetryServerErrors() {
+        RetryPolicy retryPolicy = new RetryPolicy.Builder().build();
+
+        assertThat(retryPolicy.shouldRetry(1, 500)).isTrue();
+        assertThat(retryPolicy.shouldRetry(1, 503)).isTrue();
+        assertThat(retryPolicy.shouldRetry(1, 404)).isFalse();
+        assertThat(retryPolicy.shouldRetry(1, 200)).isFalse();
+    }
+
+    @Test
+    public void shouldRetry_whenServerErrorRetriesDisabled_shouldNotRetry() {
+        RetryPolicy retryPolicy = new RetryPolicy.Builder().setRetryOnServerError(false).build();
+
+        assertThat(retryPolicy.shouldRetry(1, 503)).isFalse();
+    }
+
+    @Test
+    public void getDelayMillis_shouldGrowExponentiallyUpToMaxDelay() {
+        RetryPolicy retryPolicy = new RetryPolicy.Builder()
+                .setDelay(100, 1000, TimeUnit.MILLISECONDS)
+                .setJitter(0)
+                .build();
+
+        assertThat(retryPolicy.getDelayMillis(1)).isEqualTo(100);
+        assertThat(retryPolicy.getDelayMillis(2)).isEqualTo(200);
+        assertThat(retryPolicy.getDelayMillis(3)).isEqualTo(400);
+        assertThat(retryPolicy.getDelayMillis(5)).isEqualTo(1000);
+        assertThat(retryPolicy.getDelayMillis(100)).isEqualTo(1000);
+    }
+
+    @Test
+    public void getDelayMillis_withJitter_shouldShortenDelay() {
+        RetryPolicy retryPolicy = new RetryPolicy.Builder()
+                .setDelay(100, 1000, TimeUnit.MILLISECONDS)
+                .setJitter(0.5f)
+                .build();
+
+        assertThat(retryPolicy.getDelayMillis(1, 0f)).isEqualTo(100);
+        assertThat(retryPolicy.getDelayMillis(1, 1f)).isEqualTo(50);
+        assertThat(retryPolicy.getDelayMillis(2, 0.5f)).isEqualTo(150);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void setMaxAttempts_whenLessThanOne_shouldThrowException() {
+        new RetryPolicy.Builder().setMaxAttempts(0);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void setJitter_whenGreaterThanOne_shouldThrowException() {
+        new RetryPolicy.Builder().setJitter(1.5f);
+    }
+}
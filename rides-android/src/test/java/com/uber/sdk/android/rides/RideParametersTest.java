@@ -26,8 +26,12 @@ import android.os.Parcel;
 
 import org.junit.Test;
 
+import java.util.HashMap;
+import java.util.Map;
+
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
@@ -169,6 +173,78 @@ public class RideParametersTest extends RobolectricTestBase {
         assertEquals(userAgent, rideParameters.getUserAgent());
     }
 
+    @Test
+    public void getKey_whenParametersEqual_shouldBeEqual() {
+        RideParameters rideParameters = newFilledRideParameters();
+        RideParameters equalRideParameters = newFilledRideParameters();
+
+        assertEquals(rideParameters.getKey(), equalRideParameters.getKey());
+        assertEquals(rideParameters.getKey().hashCode(), equalRideParameters.getKey().hashCode());
+    }
+
+    @Test
+    public void getKey_whenUserAgentSet_shouldStayEqual() {
+        RideParameters rideParameters = newFilledRideParameters();
+        RideParameters.Key key = rideParameters.getKey();
+
+        rideParameters.setUserAgent("USER_AGENT");
+
+        assertEquals(key, rideParameters.getKey());
+        assertEquals(key, newFilledRideParameters().getKey());
+    }
+
+    @Test
+    public void getKey_whenParametersDiffer_shouldNotBeEqual() {
+        RideParameters rideParameters = newFilledRideParameters();
+
+        assertNotEquals(rideParameters.getKey(), new RideParameters.Builder()
+                .setPickupLocation(PICKUP_LAT, PICKUP_LONG, PICKUP_NICK, PICKUP_ADDR)
+                .setDropoffLocation(DROPOFF_LAT, DROPOFF_LONG, DROPOFF_NICK, DROPOFF_ADDR)
+                .build()
+                .getKey());
+        assertNotEquals(rideParameters.getKey(), new RideParameters.Builder()
+                .setProductId(PRODUCT_ID)
+                .setPickupLocation(PICKUP_LAT, PICKUP_LONG, PICKUP_NICK, PICKUP_ADDR)
+                .setDropoffLocation(DROPOFF_LAT + 1, DROPOFF_LONG, DROPOFF_NICK, DROPOFF_ADDR)
+                .build()
+                .getKey());
+        assertNotEquals(new RideParameters.Builder().build().getKey(), new RideParameters.Builder()
+                .setPickupLocation(null, null, null, null)
+                .build()
+                .getKey());
+    }
+
+    @Test
+    public void getKey_whenUsedAsMapKey_shouldHitSameEntry() {
+        Map<RideParameters.Key, String> map = new HashMap<>();
+        map.put(newFilledRideParameters().getKey(), "entry");
+
+        RideParameters rideParameters = newFilledRideParameters();
+        rideParameters.setUserAgent("USER_AGENT");
+
+        assertEquals("entry", map.get(rideParameters.getKey()));
+        assertNull(map.get(new RideParameters.Builder().build().getKey()));
+    }
+
+    @Test
+    public void getKey_whenParceled_shouldBeEqual() {
+        RideParameters rideParameters = newFilledRideParameters();
+
+        Parcel parcel = Parcel.obtain();
+        rideParameters.writeToParcel(parcel, 0);
+        parcel.setDataPosition(0);
+
+        assertEquals(rideParameters.getKey(), new RideParameters(parcel).getKey());
+    }
+
+    private RideParameters newFilledRideParameters() {
+        return new RideParameters.Builder()
+                .setProductId(PRODUCT_ID)
+                .setPickupLocation(PICKUP_LAT, PICKUP_LONG, PICKUP_NICK, PICKUP_ADDR)
+                .setDropoffLocation(DROPOFF_LAT, DROPOFF_LONG, DROPOFF_NICK, DROPOFF_ADDR)
+                .build();
+    }
+
     private void assertDefaults(RideParameters rideParameters) {
         assertTrue(rideParameters.isPickupMyLocation());
         assertNull(rideParameters.getProductId());
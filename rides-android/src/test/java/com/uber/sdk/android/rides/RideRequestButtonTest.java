@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2016 Uber Technologies, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.uber.sdk.android.rides;
+
+import android.app.Activity;
+import android.view.View;
+import android.widget.FrameLayout;
+
+import com.uber.sdk.android.rides.internal.RideRequestButtonController;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.robolectric.Robolectric;
+import org.robolectric.util.ActivityController;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.verify;
+
+public class RideRequestButtonTest extends RobolectricTestBase {
+
+    private ActivityController<Activity> activityController;
+    private FrameLayout parent;
+    private RideRequestButton button;
+    private RideRequestButtonController controller;
+
+    @Before
+    public void setUp() {
+        activityController = Robolectric.buildActivity(Activity.class).create();
+        Activity activity = activityController.get();
+        parent = new FrameLayout(activity);
+        button = new RideRequestButton(activity);
+        parent.addView(button);
+        activity.setContentView(parent);
+        activityController.start().resume().visible();
+
+        controller = mock(RideRequestButtonController.class);
+        button.setController(controller);
+    }
+
+    @Test
+    public void setController_whenHostVisible_shouldResume() {
+        verify(controller).resume();
+        verify(controller, never()).pause();
+    }
+
+    @Test
+    public void onActivityStopped_shouldPauseUntilStarted() {
+        reset(controller);
+
+        activityController.pause().stop();
+
+        verify(controller).pause();
+        verify(controller, never()).resume();
+
+        activityController.start().resume();
+
+        verify(controller).resume();
+    }
+
+    @Test
+    public void onVisibilityChanged_whenParentHidden_shouldPauseUntilShown() {
+        reset(controller);
+
+        parent.setVisibility(View.GONE);
+
+        verify(controller).pause();
+        verify(controller, never()).resume();
+
+        parent.setVisibility(View.VISIBLE);
+
+        verify(controller).resume();
+    }
+
+    @Test
+    public void onActivityStopped_whenOtherActivity_shouldNotPause() {
+        Robolectric.buildActivity(Activity.class).create().start().resume().pause().stop();
+
+        verify(controller, never()).pause();
+    }
+
+    @Test
+    public void onDetachedFromWindow_shouldDestroyController() {
+        parent.removeView(button);
+
+        verify(controller).destroy();
+        assertThat(button.getController()).isNull();
+    }
+}
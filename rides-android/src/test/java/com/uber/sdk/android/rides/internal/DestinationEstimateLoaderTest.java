@@ -0,0 +1,371 @@
+/*
+ * Copyright (c) 2016 Uber Technologies, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.uber.sdk.android.rides.internal;
+
+import android.support.annotation.NonNull;
+
+import com.github.tomakehurst.wiremock.junit.WireMockRule;
+import com.squareup.moshi.Moshi;
+import com.uber.sdk.android.rides.DestinationEstimate;
+import com.uber.sdk.android.rides.DestinationRanker;
+import com.uber.sdk.android.rides.RideParameters;
+import com.uber.sdk.rides.client.internal.PrimitiveAdapter;
+import com.uber.sdk.rides.client.model.PriceEstimate;
+import com.uber.sdk.rides.client.model.TimeEstimate;
+import com.uber.sdk.rides.client.services.RidesService;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nonnull;
+
+import okhttp3.OkHttpClient;
+import retrofit2.Retrofit;
+import retrofit2.converter.moshi.MoshiConverterFactory;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.equalTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import static java.lang.Double.valueOf;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class DestinationEstimateLoaderTest {
+
+    private static final String TIME_ESTIMATES_API = "/v1/estimates/time";
+    private static final String PRICE_ESTIMATES_API = "/v1/estimates/price";
+    private static final String TIMES = "{\"times\":["
+            + "{\"product_id\":\"pool\",\"estimate\":600},"
+            + "{\"product_id\":\"uberx\",\"estimate\":60}]}";
+
+    @Rule
+    public WireMockRule wireMockRule = new WireMockRule(wireMockConfig().dynamicPort());
+
+    private RidesService service;
+    private DestinationEstimateLoader ranker;
+    private RideParameters pickup;
+
+    @Before
+    public void setUp() {
+        service = new Retrofit.Builder()
+                .addConverterFactory(MoshiConverterFactory.create(new Moshi.Builder()
+                        .add(new PrimitiveAdapter())
+                        .build()))
+                .callbackExecutor(new Executor() {
+                    @Override
+                    public void execute(@Nonnull Runnable command) {
+                        command.run();
+                    }
+                })
+                .client(new OkHttpClient.Builder().readTimeout(1, TimeUnit.SECONDS).build())
+                .baseUrl("http://localhost:" + wireMockRule.port())
+                .build()
+                .create(RidesService.class);
+
+        ranker = newRanker(EstimateCache.DEFAULT_MAX_SIZE);
+
+        pickup = new RideParameters.Builder()
+                .setPickupLocation(valueOf(37.7f), valueOf(-122.4f), null, null)
+                .build();
+    }
+
+    @Test
+    public void createDestinationEstimate_shouldPickCheapestAndFastestProduct() {
+        RideParameters destination = newDestination(37.8f);
+        PriceEstimate pool = newPriceEstimate("pool", 5, 900);
+        PriceEstimate uberX = newPriceEstimate("uberx", 9, 600);
+        TimeEstimate poolTime = newTimeEstimate("pool", 600);
+        TimeEstimate uberXTime = newTimeEstimate("uberx", 60);
+
+        DestinationEstimate estimate = DestinationEstimateLoader.createDestinationEstimate(destination,
+                EstimateIndex.ofPriceEstimates(Arrays.asList(pool, uberX)),
+                EstimateIndex.ofTimeEstimates(Arrays.asList(poolTime, uberXTime)));
+
+        assertThat(estimate.getDestination()).isSameAs(destination);
+        assertThat(estimate.getCheapestPriceEstimate()).isSameAs(pool);
+        assertThat(estimate.getFastestPriceEstimate()).isSameAs(uberX);
+        assertThat(estimate.getFastestArrivalSeconds()).isEqualTo(660);
+    }
+
+    @Test
+    public void createDestinationEstimate_whenNoTimeEstimates_shouldOnlyPickCheapest() {
+        PriceEstimate pool = newPriceEstimate("pool", 5, 900);
+
+        DestinationEstimate estimate = DestinationEstimateLoader.createDestinationEstimate(newDestination(37.8f),
+                EstimateIndex.ofPriceEstimates(Collections.singletonList(pool)),
+                EstimateIndex.<TimeEstimate>empty());
+
+        assertThat(estimate.getCheapestPriceEstimate()).isSameAs(pool);
+        assertThat(estimate.getFastestPriceEstimate()).isNull();
+        assertThat(estimate.getFastestArrivalSeconds()).isNull();
+    }
+
+    @Test
+    public void rank_shouldLoadTimeOnceAndStreamRankedDestinations() throws Exception {
+        stubFor(get(urlPathEqualTo(TIME_ESTIMATES_API)).willReturn(aResponse().withBody(TIMES)));
+        stubPrice(37.8f, 20, 900);
+        stubPrice(37.9f, 10, 1200);
+        stubPrice(38.0f, 30, 300);
+
+        RideParameters near = newDestination(37.8f);
+        RideParameters cheap = newDestination(37.9f);
+        RideParameters fast = newDestination(38.0f);
+        RecordingListener listener = new RecordingListener();
+
+        ranker.setMaxConcurrentRequests(1);
+        ranker.rank(pickup, Arrays.asList(near, cheap, fast), listener);
+
+        assertThat(listener.completed.await(3, TimeUnit.SECONDS)).isTrue();
+        assertThat(listener.ranked).hasSize(3);
+        assertThat(listener.failed).isEmpty();
+        assertThat(destinationsOf(listener.byPrice)).containsExactly(cheap, near, fast);
+        assertThat(destinationsOf(listener.byArrival)).containsExactly(fast, near, cheap);
+        wireMockRule.verify(1, getRequestedFor(urlPathEqualTo(TIME_ESTIMATES_API)));
+        wireMockRule.verify(3, getRequestedFor(urlPathEqualTo(PRICE_ESTIMATES_API)));
+    }
+
+    @Test
+    public void rank_whenPriceFails_shouldReportDestinationAndComplete() throws Exception {
+        stubFor(get(urlPathEqualTo(TIME_ESTIMATES_API)).willReturn(aResponse().withBody(TIMES)));
+        stubPrice(37.8f, 20, 900);
+        stubFor(get(urlPathEqualTo(PRICE_ESTIMATES_API))
+                .withQueryParam("end_latitude", equalTo(String.valueOf(37.9f)))
+                .willReturn(aResponse().withStatus(500)));
+
+        RideParameters failing = newDestination(37.9f);
+        RecordingListener listener = new RecordingListener();
+
+        ranker.rank(pickup, Arrays.asList(newDestination(37.8f), failing), listener);
+
+        assertThat(listener.completed.await(3, TimeUnit.SECONDS)).isTrue();
+        assertThat(listener.ranked).hasSize(1);
+        assertThat(listener.failed).containsExactly(failing);
+        assertThat(listener.byPrice).hasSize(1);
+    }
+
+    @Test
+    public void rank_whenTimeFails_shouldReportEveryDestinationAndComplete() throws Exception {
+        stubFor(get(urlPathEqualTo(TIME_ESTIMATES_API)).willReturn(aResponse().withStatus(500)));
+        stubPrice(37.8f, 20, 900);
+        stubPrice(37.9f, 10, 1200);
+        stubPrice(38.0f, 30, 300);
+
+        List<RideParameters> destinations = Arrays.asList(newDestination(37.8f), newDestination(37.9f),
+                newDestination(38.0f));
+        RecordingListener listener = new RecordingListener();
+
+        ranker.setMaxConcurrentRequests(1);
+        ranker.rank(pickup, destinations, listener);
+
+        assertThat(listener.completed.await(3, TimeUnit.SECONDS)).isTrue();
+        assertThat(listener.ranked).isEmpty();
+        assertThat(listener.failed).containsOnly(destinations.toArray(new RideParameters[destinations.size()]));
+        assertThat(listener.failed).hasSize(3);
+        assertThat(new HashSet<>(listener.failures)).hasSize(1);
+        assertThat(listener.byPrice).isEmpty();
+    }
+
+    @Test
+    public void rank_whenNoDestinations_shouldCompleteRightAway() throws Exception {
+        RecordingListener listener = new RecordingListener();
+
+        ranker.rank(pickup, Collections.<RideParameters>emptyList(), listener);
+
+        assertThat(listener.completed.getCount()).isEqualTo(0);
+        wireMockRule.verify(0, getRequestedFor(urlPathEqualTo(TIME_ESTIMATES_API)));
+    }
+
+    @Test
+    public void rank_whenEstimatesCached_shouldNotHoldLockWhenCallingListener() throws Exception {
+        stubFor(get(urlPathEqualTo(TIME_ESTIMATES_API)).willReturn(aResponse().withBody(TIMES)));
+        stubPrice(37.8f, 20, 900);
+        stubPrice(37.9f, 10, 1200);
+        List<RideParameters> destinations = Arrays.asList(newDestination(37.8f), newDestination(37.9f));
+        RecordingListener loadingListener = new RecordingListener();
+        ranker.rank(pickup, destinations, loadingListener);
+        assertThat(loadingListener.completed.await(3, TimeUnit.SECONDS)).isTrue();
+
+        LockCheckingListener listener = new LockCheckingListener(ranker);
+        ranker.rank(pickup, destinations, listener);
+
+        assertThat(listener.completed.getCount()).isEqualTo(0);
+        assertThat(listener.ranked).hasSize(2);
+        assertThat(listener.calledWithLock).isFalse();
+    }
+
+    @Test
+    public void rank_whenManyEstimatesCached_shouldNotGrowStack() throws Exception {
+        stubFor(get(urlPathEqualTo(TIME_ESTIMATES_API)).willReturn(aResponse().withBody(TIMES)));
+        stubFor(get(urlPathEqualTo(PRICE_ESTIMATES_API))
+                .willReturn(aResponse().withBody("{\"prices\":[{\"product_id\":\"uberx\",\"low_estimate\":"
+                        + "10,\"duration\":600}]}")));
+        List<RideParameters> destinations = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            destinations.add(newDestination(37f + i / 1000f));
+        }
+        ranker = newRanker(256);
+        RecordingListener loadingListener = new RecordingListener();
+        ranker.rank(pickup, destinations, loadingListener);
+        assertThat(loadingListener.completed.await(10, TimeUnit.SECONDS)).isTrue();
+
+        StackDepthListener listener = new StackDepthListener();
+        ranker.rank(pickup, destinations, listener);
+
+        assertThat(listener.completed.getCount()).isEqualTo(0);
+        assertThat(listener.ranked).hasSize(200);
+        assertThat(listener.maxStackDepth - listener.minStackDepth).isLessThan(10);
+    }
+
+    @NonNull
+    private DestinationEstimateLoader newRanker(int cacheSize) {
+        return new DestinationEstimateLoader(new EstimateLoader(service,
+                new EstimateCache(cacheSize, EstimateCache.DEFAULT_MAX_AGE_MILLIS, Clock.SYSTEM),
+                new EstimateRequestCoalescer()));
+    }
+
+    private static void stubPrice(float dropoffLatitude, int lowEstimate, int duration) {
+        stubFor(get(urlPathEqualTo(PRICE_ESTIMATES_API))
+                .withQueryParam("end_latitude", equalTo(String.valueOf(dropoffLatitude)))
+                .willReturn(aResponse().withBody("{\"prices\":[{\"product_id\":\"uberx\",\"low_estimate\":"
+                        + lowEstimate + ",\"duration\":" + duration + "}]}")));
+    }
+
+    private static RideParameters newDestination(float dropoffLatitude) {
+        return new RideParameters.Builder()
+                .setDropoffLocation(valueOf(dropoffLatitude), valueOf(-122.3f), null, null)
+                .build();
+    }
+
+    private static PriceEstimate newPriceEstimate(String productId, int lowEstimate, int duration) {
+        PriceEstimate priceEstimate = mock(PriceEstimate.class);
+        when(priceEstimate.getProductId()).thenReturn(productId);
+        when(priceEstimate.getLowEstimate()).thenReturn(lowEstimate);
+        when(priceEstimate.getDuration()).thenReturn(duration);
+        return priceEstimate;
+    }
+
+    private static TimeEstimate newTimeEstimate(String productId, int estimate) {
+        TimeEstimate timeEstimate = mock(TimeEstimate.class);
+        when(timeEstimate.getProductId()).thenReturn(productId);
+        when(timeEstimate.getEstimate()).thenReturn(estimate);
+        return timeEstimate;
+    }
+
+    private static List<RideParameters> destinationsOf(List<DestinationEstimate> estimates) {
+        List<RideParameters> destinations = new ArrayList<>();
+        for (DestinationEstimate estimate : estimates) {
+            destinations.add(estimate.getDestination());
+        }
+        return destinations;
+    }
+
+    private static class RecordingListener implements DestinationRanker.Listener {
+
+        final List<DestinationEstimate> ranked = Collections.synchronizedList(new ArrayList<DestinationEstimate>());
+        final List<RideParameters> failed = Collections.synchronizedList(new ArrayList<RideParameters>());
+        final List<Throwable> failures = Collections.synchronizedList(new ArrayList<Throwable>());
+        final CountDownLatch completed = new CountDownLatch(1);
+        volatile List<DestinationEstimate> byPrice;
+        volatile List<DestinationEstimate> byArrival;
+
+        @Override
+        public void onDestinationRanked(
+                @NonNull DestinationEstimate estimate,
+                @NonNull List<DestinationEstimate> byPrice) {
+            ranked.add(estimate);
+        }
+
+        @Override
+        public void onDestinationFailed(@NonNull RideParameters destination, @NonNull Throwable throwable) {
+            failed.add(destination);
+            failures.add(throwable);
+        }
+
+        @Override
+        public void onRankingComplete(
+                @NonNull List<DestinationEstimate> byPrice,
+                @NonNull List<DestinationEstimate> byArrival) {
+            this.byPrice = byPrice;
+            this.byArrival = byArrival;
+            completed.countDown();
+        }
+    }
+
+    private static class LockCheckingListener extends RecordingListener {
+
+        @NonNull private final Object lock;
+        volatile boolean calledWithLock;
+
+        LockCheckingListener(@NonNull Object lock) {
+            this.lock = lock;
+        }
+
+        @Override
+        public void onDestinationRanked(
+                @NonNull DestinationEstimate estimate,
+                @NonNull List<DestinationEstimate> byPrice) {
+            calledWithLock |= Thread.holdsLock(lock);
+            super.onDestinationRanked(estimate, byPrice);
+        }
+
+        @Override
+        public void onRankingComplete(
+                @NonNull List<DestinationEstimate> byPrice,
+                @NonNull List<DestinationEstimate> byArrival) {
+            calledWithLock |= Thread.holdsLock(lock);
+            super.onRankingComplete(byPrice, byArrival);
+        }
+    }
+
+    private static class StackDepthListener extends RecordingListener {
+
+        int minStackDepth = Integer.MAX_VALUE;
+        int maxStackDepth;
+
+        @Override
+        public void onDestinationRanked(
+                @NonNull DestinationEstimate estimate,
+                @NonNull List<DestinationEstimate> byPrice) {
+            final int stackDepth = Thread.currentThread().getStackTrace().length;
+            minStackDepth = Math.min(minStackDepth, stackDepth);
+            maxStackDepth = Math.max(maxStackDepth, stackDepth);
+            super.onDestinationRanked(estimate, byPrice);
+        }
+    }
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright (c) 2016 Uber Technologies, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.uber.sdk.android.rides.internal;
+
+import com.uber.sdk.rides.client.model.PriceEstimate;
+import com.uber.sdk.rides.client.model.TimeEstimate;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+public class EstimateCacheTest {
+
+    private static final String PRODUCT_ID = "a1111c8c-c720-46c3-8534-2fcdd730040d";
+    private static final long MAX_AGE_MILLIS = 1000;
+
+    private FakeClock clock;
+    private EstimateCache cache;
+
+    @Before
+    public void setUp() {
+        clock = new FakeClock();
+        cache = new EstimateCache(2, MAX_AGE_MILLIS, clock);
+    }
+
+    @Test
+    public void getTimeEstimates_whenPut_shouldReturnCachedValue() {
+        EstimateIndex<TimeEstimate> estimates = newTimeEstimates();
+        cache.putTimeEstimates(cache.newTimeKey(37.775f, -122.418f, PRODUCT_ID), estimates);
+
+        assertThat(cache.getTimeEstimates(cache.newTimeKey(37.775f, -122.418f, PRODUCT_ID))).isSameAs(estimates);
+        assertThat(cache.getHitCount()).isEqualTo(1);
+        assertThat(cache.getMissCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void getTimeEstimates_whenCoordinatesRoundToSameKey_shouldReturnCachedValue() {
+        EstimateIndex<TimeEstimate> estimates = newTimeEstimates();
+        cache.putTimeEstimates(cache.newTimeKey(37.77501f, -122.41801f, PRODUCT_ID), estimates);
+
+        assertThat(cache.getTimeEstimates(cache.newTimeKey(37.77502f, -122.41802f, PRODUCT_ID)))
+                .isSameAs(estimates);
+    }
+
+    @Test
+    public void getTimeEstimates_whenDifferentProduct_shouldMiss() {
+        cache.putTimeEstimates(cache.newTimeKey(37.775f, -122.418f, PRODUCT_ID), newTimeEstimates());
+
+        assertThat(cache.getTimeEstimates(cache.newTimeKey(37.775f, -122.418f, null))).isNull();
+        assertThat(cache.getMissCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void getPriceEstimates_whenExpired_shouldMiss() {
+        EstimateKey key = cache.newPriceKey(37.775f, -122.418f, 37.8f, -122.4f);
+        cache.putPriceEstimates(key, newPriceEstimates());
+
+        clock.time += MAX_AGE_MILLIS + 1;
+
+        assertThat(cache.getPriceEstimates(key)).isNull();
+        assertThat(cache.getMissCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void getPriceEstimates_whenMaxStalenessAboveMaxAge_shouldReturnEntryOlderThanMaxAge() {
+        EstimateKey key = cache.newPriceKey(37.775f, -122.418f, 37.8f, -122.4f);
+        EstimateIndex<PriceEstimate> estimates = newPriceEstimates();
+        cache.putPriceEstimates(key, estimates);
+
+        clock.time += MAX_AGE_MILLIS * 2;
+
+        EstimateCache.Entry<EstimateIndex<PriceEstimate>> entry =
+                cache.peekPriceEstimates(key, null, MAX_AGE_MILLIS * 3);
+        assertThat(entry).isNotNull();
+        assertThat(entry.value).isSameAs(estimates);
+    }
+
+    @Test
+    public void peekTimeEstimates_shouldNotCountHitsOrMisses() {
+        EstimateKey key = cache.newTimeKey(37.775f, -122.418f, null);
+        cache.peekTimeEstimates(key, null, MAX_AGE_MILLIS);
+        cache.putTimeEstimates(key, newTimeEstimates());
+        cache.peekTimeEstimates(key, null, MAX_AGE_MILLIS);
+
+        assertThat(cache.getHitCount()).isEqualTo(0);
+        assertThat(cache.getMissCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void getTimeEstimates_whenOlderThanMaxAge_shouldKeepEntryForLargerMaxStaleness() {
+        EstimateKey key = cache.newTimeKey(37.775f, -122.418f, null);
+        EstimateIndex<TimeEstimate> estimates = newTimeEstimates();
+        cache.putTimeEstimates(key, estimates);
+        cache.peekTimeEstimates(key, null, MAX_AGE_MILLIS * 3);
+
+        clock.time += MAX_AGE_MILLIS * 2;
+
+        assertThat(cache.getTimeEstimates(key)).isNull();
+        assertThat(cache.peekTimeEstimates(key, null, MAX_AGE_MILLIS * 3).value).isSameAs(estimates);
+        assertThat(cache.peekTimeEstimates(key, null, MAX_AGE_MILLIS)).isNull();
+    }
+
+    @Test
+    public void getTimeEstimates_whenOlderThanLargestMaxStaleness_shouldMiss() {
+        EstimateKey key = cache.newTimeKey(37.775f, -122.418f, null);
+        cache.putTimeEstimates(key, newTimeEstimates());
+
+        clock.time += MAX_AGE_MILLIS * 4;
+
+        assertThat(cache.peekTimeEstimates(key, null, MAX_AGE_MILLIS * 3)).isNull();
+    }
+
+    @Test
+    public void putTimeEstimates_whenFull_shouldEvictLeastRecentlyUsed() {
+        EstimateKey first = cache.newTimeKey(1f, 1f, null);
+        EstimateKey second = cache.newTimeKey(2f, 2f, null);
+        EstimateKey third = cache.newTimeKey(3f, 3f, null);
+
+        cache.putTimeEstimates(first, newTimeEstimates());
+        cache.putTimeEstimates(second, newTimeEstimates());
+        cache.getTimeEstimates(first);
+        cache.putTimeEstimates(third, newTimeEstimates());
+
+        assertThat(cache.getTimeEstimates(first)).isNotNull();
+        assertThat(cache.getTimeEstimates(second)).isNull();
+        assertThat(cache.getTimeEstimates(third)).isNotNull();
+    }
+
+    @Test
+    public void setLimits_whenSizeZero_shouldDisableCaching() {
+        EstimateKey key = cache.newTimeKey(1f, 1f, null);
+        cache.putTimeEstimates(key, newTimeEstimates());
+
+        cache.setLimits(0, MAX_AGE_MILLIS, TimeUnit.MILLISECONDS);
+        cache.putTimeEstimates(key, newTimeEstimates());
+
+        assertThat(cache.getTimeEstimates(key)).isNull();
+    }
+
+    @Test
+    public void setGrid_shouldKeyByCellAndClear() {
+        EstimateKey key = cache.newTimeKey(37.7749f, -122.4194f, null);
+        cache.putTimeEstimates(key, newTimeEstimates());
+
+        cache.setGrid(new GeohashGrid(6));
+
+        assertThat(cache.getTimeEstimates(key)).isNull();
+
+        EstimateIndex<TimeEstimate> estimates = newTimeEstimates();
+        cache.putTimeEstimates(cache.newTimeKey(37.7749f, -122.4194f, null), estimates);
+
+        assertThat(cache.getTimeEstimates(cache.newTimeKey(37.7755f, -122.4190f, null))).isSameAs(estimates);
+    }
+
+    private static EstimateIndex<TimeEstimate> newTimeEstimates() {
+        return EstimateIndex.ofTimeEstimates(Collections.singletonList(mock(TimeEstimate.class)));
+    }
+
+    private static EstimateIndex<PriceEstimate> newPriceEstimates() {
+        return EstimateIndex.ofPriceEstimates(Collections.singletonList(mock(PriceEstimate.class)));
+    }
+}
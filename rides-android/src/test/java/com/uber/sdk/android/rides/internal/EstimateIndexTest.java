@@ -0,0 +1,205 @@
+/*
+ * Copyright (c) 2016 Uber Technologies, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.uber.sdk.android.rides.internal;
+
+import com.squareup.moshi.Moshi;
+import com.uber.sdk.rides.client.internal.PrimitiveAdapter;
+import com.uber.sdk.rides.client.model.PriceEstimate;
+import com.uber.sdk.rides.client.model.PriceEstimatesResponse;
+import com.uber.sdk.rides.client.model.TimeEstimate;
+import com.uber.sdk.rides.client.model.TimeEstimatesResponse;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Locale;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assume.assumeTrue;
+
+public class EstimateIndexTest {
+
+    /**
+     * Number of products in responses for dense cities with many product variants.
+     */
+    private static final int LARGE_PRODUCT_COUNT = 500;
+    private static final String BENCHMARK_PROPERTY = "benchmark";
+    private static final int BENCHMARK_BUTTONS = 200;
+    private static final int BENCHMARK_ROUNDS = 200;
+
+    private Moshi moshi;
+
+    @Before
+    public void setUp() throws Exception {
+        moshi = new Moshi.Builder()
+                .add(new PrimitiveAdapter())
+                .build();
+    }
+
+    @Test
+    public void find_whenProductIdPresent_shouldReturnEstimate() throws Exception {
+        EstimateIndex<TimeEstimate> index = EstimateIndex.ofTimeEstimates(parseTimes(3));
+
+        assertThat(index.find(productId(1)).getEstimate()).isEqualTo(61);
+    }
+
+    @Test
+    public void find_whenProductIdMissing_shouldReturnNull() throws Exception {
+        EstimateIndex<TimeEstimate> index = EstimateIndex.ofTimeEstimates(parseTimes(3));
+
+        assertThat(index.find("missing")).isNull();
+    }
+
+    @Test
+    public void find_whenNoProductId_shouldReturnFirstEstimate() throws Exception {
+        EstimateIndex<PriceEstimate> index = EstimateIndex.ofPriceEstimates(parsePrices(3));
+
+        assertThat(index.find(null).getProductId()).isEqualTo(productId(0));
+    }
+
+    @Test
+    public void find_whenProductListedTwice_shouldReturnFirstEstimate() throws Exception {
+        String json = "{\"times\":["
+                + "{\"product_id\":\"duplicate\",\"estimate\":100},"
+                + "{\"product_id\":\"duplicate\",\"estimate\":200}]}";
+        EstimateIndex<TimeEstimate> index = EstimateIndex.ofTimeEstimates(
+                moshi.adapter(TimeEstimatesResponse.class).fromJson(json).getTimes());
+
+        assertThat(index.find("duplicate").getEstimate()).isEqualTo(100);
+    }
+
+    @Test
+    public void ofTimeEstimates_whenNullOrEmpty_shouldBeEmpty() throws Exception {
+        assertThat(EstimateIndex.ofTimeEstimates(null).isEmpty()).isTrue();
+        assertThat(EstimateIndex.ofTimeEstimates(parseTimes(0)).isEmpty()).isTrue();
+        assertThat(EstimateIndex.ofTimeEstimates(parseTimes(0)).find(null)).isNull();
+    }
+
+    @Test
+    public void find_whenLargeProductList_shouldMatchLinearScan() throws Exception {
+        List<TimeEstimate> times = parseTimes(LARGE_PRODUCT_COUNT);
+        List<PriceEstimate> prices = parsePrices(LARGE_PRODUCT_COUNT);
+        EstimateIndex<TimeEstimate> timeIndex = EstimateIndex.ofTimeEstimates(times);
+        EstimateIndex<PriceEstimate> priceIndex = EstimateIndex.ofPriceEstimates(prices);
+
+        for (int i = 0; i < LARGE_PRODUCT_COUNT; i++) {
+            assertThat(timeIndex.find(productId(i))).isSameAs(scanTimes(productId(i), times));
+            assertThat(priceIndex.find(productId(i))).isSameAs(scanPrices(productId(i), prices));
+        }
+    }
+
+    /**
+     * Compares looking up the estimates of a list of buttons, each showing a different product at the same pickup,
+     * in one cached response. Prints timings only, as they depend on the machine running the tests, and only runs
+     * when opted in with {@code -Dbenchmark=true}.
+     */
+    @Test
+    public void benchmark_lookupInLargeProductList() throws Exception {
+        assumeTrue(Boolean.getBoolean(BENCHMARK_PROPERTY));
+
+        List<TimeEstimate> times = parseTimes(LARGE_PRODUCT_COUNT);
+        EstimateIndex<TimeEstimate> index = EstimateIndex.ofTimeEstimates(times);
+        String[] productIds = new String[BENCHMARK_BUTTONS];
+        for (int i = 0; i < BENCHMARK_BUTTONS; i++) {
+            productIds[i] = productId(LARGE_PRODUCT_COUNT - 1 - i * LARGE_PRODUCT_COUNT / BENCHMARK_BUTTONS);
+        }
+
+        long scanNanos = Long.MAX_VALUE;
+        long indexNanos = Long.MAX_VALUE;
+        long buildNanos = Long.MAX_VALUE;
+        int found = 0;
+        for (int round = 0; round < BENCHMARK_ROUNDS; round++) {
+            long start = System.nanoTime();
+            for (String productId : productIds) {
+                found += scanTimes(productId, times) != null ? 1 : 0;
+            }
+            scanNanos = Math.min(scanNanos, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            for (String productId : productIds) {
+                found += index.find(productId) != null ? 1 : 0;
+            }
+            indexNanos = Math.min(indexNanos, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            found += EstimateIndex.ofTimeEstimates(times).isEmpty() ? 0 : 1;
+            buildNanos = Math.min(buildNanos, System.nanoTime() - start);
+        }
+
+        System.out.println(String.format(Locale.US,
+                "%d products, %d buttons: linear scan %d us, index lookup %d us, index build %d us",
+                LARGE_PRODUCT_COUNT, BENCHMARK_BUTTONS, scanNanos / 1000, indexNanos / 1000, buildNanos / 1000));
+        assertThat(found).isEqualTo(BENCHMARK_ROUNDS * (2 * BENCHMARK_BUTTONS + 1));
+    }
+
+    private List<TimeEstimate> parseTimes(int count) throws Exception {
+        StringBuilder json = new StringBuilder("{\"times\":[");
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append(String.format(Locale.US,
+                    "{\"localized_display_name\":\"Product %d\",\"estimate\":%d,\"display_name\":\"Product %d\","
+                            + "\"product_id\":\"%s\"}", i, 60 + i, i, productId(i)));
+        }
+        json.append("]}");
+        return moshi.adapter(TimeEstimatesResponse.class).fromJson(json.toString()).getTimes();
+    }
+
+    private List<PriceEstimate> parsePrices(int count) throws Exception {
+        StringBuilder json = new StringBuilder("{\"prices\":[");
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append(String.format(Locale.US,
+                    "{\"localized_display_name\":\"Product %d\",\"estimate\":\"$%d\",\"display_name\":\"Product %d\","
+                            + "\"product_id\":\"%s\",\"currency_code\":\"USD\"}", i, 5 + i, i, productId(i)));
+        }
+        json.append("]}");
+        return moshi.adapter(PriceEstimatesResponse.class).fromJson(json.toString()).getPrices();
+    }
+
+    private static TimeEstimate scanTimes(String productId, List<TimeEstimate> estimates) {
+        for (TimeEstimate estimate : estimates) {
+            if (productId.equals(estimate.getProductId())) {
+                return estimate;
+            }
+        }
+        return null;
+    }
+
+    private static PriceEstimate scanPrices(String productId, List<PriceEstimate> estimates) {
+        for (PriceEstimate estimate : estimates) {
+            if (productId.equals(estimate.getProductId())) {
+                return estimate;
+            }
+        }
+        return null;
+    }
+
+    private static String productId(int index) {
+        return String.format(Locale.US, "a1111c8c-c720-46c3-8534-%012d", index);
+    }
+}
@@ -0,0 +1,258 @@
+/*
+ * Copyright (c) 2016 Uber Technologies, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.uber.sdk.android.rides.internal;
+
+import android.app.Activity;
+import android.app.Application;
+import android.content.Context;
+import android.view.View;
+import android.view.ViewTreeObserver;
+import android.view.Window;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class EstimateRefreshSchedulerTest {
+
+    @Mock
+    Context context;
+
+    @Mock
+    RideRequestButtonController firstController;
+
+    @Mock
+    RideRequestButtonController secondController;
+
+    @Mock
+    Application application;
+
+    @Mock
+    Activity activity;
+
+    @Mock
+    Window window;
+
+    @Mock
+    View decorView;
+
+    @Mock
+    ViewTreeObserver viewTreeObserver;
+
+    private FakeScheduler scheduler;
+    private FakeClock clock;
+    private EstimateRefreshScheduler refreshScheduler;
+    private boolean metered;
+
+    @Before
+    public void setUp() {
+        scheduler = new FakeScheduler();
+        clock = new FakeClock();
+        refreshScheduler = new EstimateRefreshScheduler(scheduler, clock);
+        refreshScheduler.setNetworkMonitor(new EstimateRefreshScheduler.NetworkMonitor() {
+            @Override
+            public boolean isMetered() {
+                return metered;
+            }
+        });
+    }
+
+    @Test
+    public void register_shouldShareOneTimer() {
+        refreshScheduler.register(context, firstController);
+        refreshScheduler.register(context, secondController);
+
+        assertThat(scheduler.delays).containsExactly(EstimateRefreshScheduler.DEFAULT_INTERVAL_MILLIS);
+
+        scheduler.runAll();
+
+        verify(firstController).refresh();
+        verify(secondController).refresh();
+        assertThat(scheduler.tasks).hasSize(1);
+    }
+
+    @Test
+    public void unregister_whenLastController_shouldStopTimer() {
+        refreshScheduler.register(context, firstController);
+        refreshScheduler.register(context, secondController);
+
+        refreshScheduler.unregister(firstController);
+        assertThat(scheduler.tasks).hasSize(1);
+
+        refreshScheduler.unregister(secondController);
+        assertThat(scheduler.tasks).isEmpty();
+    }
+
+    @Test
+    public void unregister_shouldStopRefreshingController() {
+        refreshScheduler.register(context, firstController);
+        refreshScheduler.register(context, secondController);
+        refreshScheduler.unregister(firstController);
+
+        scheduler.runAll();
+
+        verify(firstController, never()).refresh();
+        verify(secondController).refresh();
+    }
+
+    @Test
+    public void setInterval_shouldReschedule() {
+        refreshScheduler.register(context, firstController);
+
+        refreshScheduler.setInterval(30, TimeUnit.SECONDS);
+
+        assertThat(scheduler.delays).containsExactly(30000L);
+    }
+
+    @Test
+    public void tick_whenIdle_shouldBackOffUpToMax() {
+        refreshScheduler.register(context, firstController);
+        clock.time += EstimateRefreshScheduler.IDLE_TIMEOUT_MILLIS;
+
+        for (int i = 0; i < 5; i++) {
+            scheduler.runAll();
+        }
+
+        assertThat(refreshScheduler.getCurrentIntervalMillis()).isEqualTo(
+                EstimateRefreshScheduler.DEFAULT_INTERVAL_MILLIS * EstimateRefreshScheduler.MAX_IDLE_MULTIPLIER);
+        verify(firstController, times(5)).refresh();
+    }
+
+    @Test
+    public void onUserActivity_whenBackedOff_shouldRestoreInterval() {
+        refreshScheduler.register(context, firstController);
+        clock.time += EstimateRefreshScheduler.IDLE_TIMEOUT_MILLIS;
+        scheduler.runAll();
+
+        refreshScheduler.onUserActivity();
+
+        assertThat(scheduler.delays).containsExactly(EstimateRefreshScheduler.DEFAULT_INTERVAL_MILLIS);
+    }
+
+    @Test
+    public void tick_whenAllControllersPaused_shouldStopTimer() {
+        refreshScheduler.register(context, firstController);
+        refreshScheduler.register(context, secondController);
+        when(firstController.isPaused()).thenReturn(true);
+        when(secondController.isPaused()).thenReturn(true);
+
+        scheduler.runAll();
+
+        assertThat(scheduler.tasks).isEmpty();
+    }
+
+    @Test
+    public void updateTimer_whenAllControllersPaused_shouldStopTimer() {
+        refreshScheduler.register(context, firstController);
+        when(firstController.isPaused()).thenReturn(true);
+
+        refreshScheduler.updateTimer();
+
+        assertThat(scheduler.tasks).isEmpty();
+    }
+
+    @Test
+    public void updateTimer_whenControllerResumed_shouldRestartTimer() {
+        when(firstController.isPaused()).thenReturn(true);
+        refreshScheduler.register(context, firstController);
+        assertThat(scheduler.tasks).isEmpty();
+
+        when(firstController.isPaused()).thenReturn(false);
+        refreshScheduler.updateTimer();
+
+        assertThat(scheduler.delays).containsExactly(EstimateRefreshScheduler.DEFAULT_INTERVAL_MILLIS);
+    }
+
+    @Test
+    public void onActivityResumed_whenBackedOff_shouldRestoreInterval() {
+        when(context.getApplicationContext()).thenReturn(application);
+        refreshScheduler.register(context, firstController);
+        ArgumentCaptor<Application.ActivityLifecycleCallbacks> callbacksCaptor =
+                ArgumentCaptor.forClass(Application.ActivityLifecycleCallbacks.class);
+        verify(application).registerActivityLifecycleCallbacks(callbacksCaptor.capture());
+        clock.time += EstimateRefreshScheduler.IDLE_TIMEOUT_MILLIS;
+        scheduler.runAll();
+
+        callbacksCaptor.getValue().onActivityResumed(activity);
+
+        assertThat(scheduler.delays).containsExactly(EstimateRefreshScheduler.DEFAULT_INTERVAL_MILLIS);
+    }
+
+    @Test
+    public void onScrollChanged_whenBackedOff_shouldRestoreInterval() {
+        when(activity.getWindow()).thenReturn(window);
+        when(window.getDecorView()).thenReturn(decorView);
+        when(decorView.getViewTreeObserver()).thenReturn(viewTreeObserver);
+        refreshScheduler.register(activity, firstController);
+        ArgumentCaptor<ViewTreeObserver.OnScrollChangedListener> listenerCaptor =
+                ArgumentCaptor.forClass(ViewTreeObserver.OnScrollChangedListener.class);
+        verify(viewTreeObserver).addOnScrollChangedListener(listenerCaptor.capture());
+        clock.time += EstimateRefreshScheduler.IDLE_TIMEOUT_MILLIS;
+        scheduler.runAll();
+
+        listenerCaptor.getValue().onScrollChanged();
+
+        assertThat(scheduler.delays).containsExactly(EstimateRefreshScheduler.DEFAULT_INTERVAL_MILLIS);
+    }
+
+    @Test
+    public void unregister_whenLastController_shouldStopObservingUserActivity() {
+        when(context.getApplicationContext()).thenReturn(application);
+        when(activity.getWindow()).thenReturn(window);
+        when(window.getDecorView()).thenReturn(decorView);
+        when(decorView.getViewTreeObserver()).thenReturn(viewTreeObserver);
+        when(viewTreeObserver.isAlive()).thenReturn(true);
+        refreshScheduler.register(context, secondController);
+        refreshScheduler.register(activity, firstController);
+
+        refreshScheduler.unregister(firstController);
+        refreshScheduler.unregister(secondController);
+
+        verify(application).unregisterActivityLifecycleCallbacks(
+                any(Application.ActivityLifecycleCallbacks.class));
+        verify(viewTreeObserver).removeOnScrollChangedListener(
+                any(ViewTreeObserver.OnScrollChangedListener.class));
+    }
+
+    @Test
+    public void getCurrentIntervalMillis_whenMetered_shouldBackOff() {
+        metered = true;
+
+        assertThat(refreshScheduler.getCurrentIntervalMillis()).isEqualTo(
+                EstimateRefreshScheduler.DEFAULT_INTERVAL_MILLIS * EstimateRefreshScheduler.METERED_MULTIPLIER);
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2016 Uber Technologies, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.uber.sdk.android.rides.internal;
+
+import android.support.annotation.NonNull;
+
+import com.uber.sdk.rides.client.error.ApiError;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+
+@RunWith(MockitoJUnitRunner.class)
+public class EstimateRequestCoalescerTest {
+
+    private static final EstimateKey KEY = EstimateKey.forTime(EstimateCache.DEFAULT_GRID, 37.775f, -122.418f, null);
+
+    @Mock
+    EstimateCallback<String> firstCallback;
+
+    @Mock
+    EstimateCallback<String> secondCallback;
+
+    @Mock
+    ApiError apiError;
+
+    private EstimateRequestCoalescer coalescer;
+    private FakeRequest request;
+
+    @Before
+    public void setUp() {
+        coalescer = new EstimateRequestCoalescer();
+        request = new FakeRequest();
+    }
+
+    @Test
+    public void subscribe_whenSameKeyInFlight_shouldStartOnce() {
+        FakeRequest otherRequest = new FakeRequest();
+
+        coalescer.subscribe(KEY, request, firstCallback);
+        coalescer.subscribe(KEY, otherRequest, secondCallback);
+
+        assertThat(request.startCount).isEqualTo(1);
+        assertThat(otherRequest.startCount).isEqualTo(0);
+
+        request.callback.onEstimatesLoaded("estimate");
+
+        verify(firstCallback).onEstimatesLoaded("estimate");
+        verify(secondCallback).onEstimatesLoaded("estimate");
+        assertThat(coalescer.getInFlightCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void subscribe_whenDifferentKeys_shouldStartEach() {
+        FakeRequest otherRequest = new FakeRequest();
+
+        coalescer.subscribe(KEY, request, firstCallback);
+        coalescer.subscribe(EstimateKey.forTime(EstimateCache.DEFAULT_GRID, 1f, 1f, null), otherRequest, secondCallback);
+
+        assertThat(request.startCount).isEqualTo(1);
+        assertThat(otherRequest.startCount).isEqualTo(1);
+    }
+
+    @Test
+    public void cancel_whenOtherSubscribersWaiting_shouldNotCancelRequest() {
+        Subscription subscription = coalescer.subscribe(KEY, request, firstCallback);
+        coalescer.subscribe(KEY, new FakeRequest(), secondCallback);
+
+        subscription.cancel();
+        request.callback.onError(apiError);
+
+        assertThat(request.cancelled).isFalse();
+        verifyZeroInteractions(firstCallback);
+        verify(secondCallback).onError(apiError);
+    }
+
+    @Test
+    public void cancel_whenLastSubscriber_shouldCancelRequest() {
+        Subscription first = coalescer.subscribe(KEY, request, firstCallback);
+        Subscription second = coalescer.subscribe(KEY, new FakeRequest(), secondCallback);
+
+        first.cancel();
+        second.cancel();
+
+        assertThat(request.cancelled).isTrue();
+        assertThat(coalescer.getInFlightCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void subscribe_whenPreviousRequestCompleted_shouldStartNewRequest() {
+        coalescer.subscribe(KEY, request, firstCallback);
+        request.callback.onFailure(new IOException());
+
+        FakeRequest otherRequest = new FakeRequest();
+        coalescer.subscribe(KEY, otherRequest, secondCallback);
+
+        assertThat(otherRequest.startCount).isEqualTo(1);
+        verify(secondCallback, never()).onFailure(any(Throwable.class));
+    }
+
+    @Test
+    public void subscribe_whenInFlightRequestUsesCallbackExecutor_shouldStartRequestThatDoesNot() {
+        request.usesCallbackExecutor = true;
+        FakeRequest otherRequest = new FakeRequest();
+        FakeRequest laterRequest = new FakeRequest();
+
+        coalescer.subscribe(KEY, request, firstCallback);
+        coalescer.subscribe(KEY, otherRequest, secondCallback);
+        coalescer.subscribe(KEY, laterRequest, secondCallback);
+
+        assertThat(request.startCount).isEqualTo(1);
+        assertThat(otherRequest.startCount).isEqualTo(1);
+        assertThat(laterRequest.startCount).isEqualTo(0);
+
+        otherRequest.callback.onEstimatesLoaded("estimate");
+
+        verifyZeroInteractions(firstCallback);
+        verify(secondCallback, times(2)).onEstimatesLoaded("estimate");
+        assertThat(coalescer.getInFlightCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void cancel_whenReplacedRequestLosesLastSubscriber_shouldCancelIt() {
+        request.usesCallbackExecutor = true;
+        Subscription subscription = coalescer.subscribe(KEY, request, firstCallback);
+        coalescer.subscribe(KEY, new FakeRequest(), secondCallback);
+
+        subscription.cancel();
+
+        assertThat(request.cancelled).isTrue();
+        assertThat(coalescer.getInFlightCount()).isEqualTo(1);
+    }
+
+    private static class FakeRequest implements EstimateRequestCoalescer.Request<String> {
+
+        EstimateCallback<String> callback;
+        int startCount;
+        boolean cancelled;
+        boolean usesCallbackExecutor;
+
+        @Override
+        public boolean usesCallbackExecutor() {
+            return usesCallbackExecutor;
+        }
+
+        @Override
+        public void start(@NonNull EstimateCallback<String> callback) {
+            this.callback = callback;
+            startCount++;
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+        }
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2016 Uber Technologies, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.uber.sdk.android.rides.internal;
+
+import com.github.tomakehurst.wiremock.junit.WireMockRule;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import okhttp3.Cache;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class EstimateResponseCacheInterceptorTest {
+
+    private static final String TIME_ESTIMATES_API = "/v1/estimates/time";
+    private static final String PRODUCTS_API = "/v1/products";
+
+    @Rule
+    public WireMockRule wireMockRule = new WireMockRule(wireMockConfig().dynamicPort());
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private OkHttpClient client;
+
+    @Before
+    public void setUp() throws Exception {
+        client = RidesServiceRegistry.createClient(new Cache(temporaryFolder.newFolder(), 1024 * 1024));
+    }
+
+    @Test
+    public void intercept_whenEstimateResponseWithoutCacheControl_shouldServeFromCache() throws Exception {
+        stubFor(get(urlPathEqualTo(TIME_ESTIMATES_API)).willReturn(aResponse().withBody("{\"times\":[]}")));
+
+        assertThat(execute(TIME_ESTIMATES_API + "?start_latitude=1.0&start_longitude=2.0")).isEqualTo("{\"times\":[]}");
+        assertThat(execute(TIME_ESTIMATES_API + "?start_latitude=1.0&start_longitude=2.0")).isEqualTo("{\"times\":[]}");
+
+        wireMockRule.verify(1, getRequestedFor(urlPathEqualTo(TIME_ESTIMATES_API)));
+        assertThat(client.cache().hitCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void intercept_whenDifferentLocation_shouldNotServeFromCache() throws Exception {
+        stubFor(get(urlPathEqualTo(TIME_ESTIMATES_API)).willReturn(aResponse().withBody("{\"times\":[]}")));
+
+        execute(TIME_ESTIMATES_API + "?start_latitude=1.0&start_longitude=2.0");
+        execute(TIME_ESTIMATES_API + "?start_latitude=1.5&start_longitude=2.0");
+
+        wireMockRule.verify(2, getRequestedFor(urlPathEqualTo(TIME_ESTIMATES_API)));
+    }
+
+    @Test
+    public void intercept_whenServerSetsCacheControl_shouldKeepIt() throws Exception {
+        stubFor(get(urlPathEqualTo(TIME_ESTIMATES_API))
+                .willReturn(aResponse().withHeader("Cache-Control", "no-store").withBody("{\"times\":[]}")));
+
+        execute(TIME_ESTIMATES_API);
+        execute(TIME_ESTIMATES_API);
+
+        wireMockRule.verify(2, getRequestedFor(urlPathEqualTo(TIME_ESTIMATES_API)));
+    }
+
+    @Test
+    public void intercept_whenNotEstimateResponse_shouldNotMakeCacheable() throws Exception {
+        stubFor(get(urlPathEqualTo(PRODUCTS_API)).willReturn(aResponse().withBody("{\"products\":[]}")));
+
+        execute(PRODUCTS_API);
+        execute(PRODUCTS_API);
+
+        wireMockRule.verify(2, getRequestedFor(urlPathEqualTo(PRODUCTS_API)));
+    }
+
+    @Test
+    public void intercept_whenErrorResponse_shouldNotMakeCacheable() throws Exception {
+        stubFor(get(urlPathEqualTo(TIME_ESTIMATES_API)).willReturn(aResponse().withStatus(500)));
+
+        execute(TIME_ESTIMATES_API);
+        execute(TIME_ESTIMATES_API);
+
+        wireMockRule.verify(2, getRequestedFor(urlPathEqualTo(TIME_ESTIMATES_API)));
+    }
+
+    private String execute(String path) throws Exception {
+        Response response = client.newCall(new Request.Builder()
+                .url("http://localhost:" + wireMockRule.port() + path)
+                .build()).execute();
+        return response.body().string();
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2016 Uber Technologies, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.uber.sdk.android.rides.internal;
+
+import android.support.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@link Scheduler} that only runs tasks when told to.
+ */
+class FakeScheduler implements Scheduler {
+
+    final List<Runnable> tasks = new ArrayList<>();
+    final List<Long> delays = new ArrayList<>();
+
+    @NonNull
+    @Override
+    public synchronized Subscription schedule(@NonNull final Runnable task, long delayMillis) {
+        tasks.add(task);
+        delays.add(delayMillis);
+        return new Subscription() {
+            @Override
+            public void cancel() {
+                synchronized (FakeScheduler.this) {
+                    final int index = tasks.indexOf(task);
+                    if (index >= 0) {
+                        tasks.remove(index);
+                        delays.remove(index);
+                    }
+                }
+            }
+        };
+    }
+
+    /**
+     * Runs all scheduled tasks, regardless of their delay.
+     */
+    void runAll() {
+        final List<Runnable> pending;
+        synchronized (this) {
+            pending = new ArrayList<>(tasks);
+            tasks.clear();
+            delays.clear();
+        }
+        for (Runnable task : pending) {
+            task.run();
+        }
+    }
+}
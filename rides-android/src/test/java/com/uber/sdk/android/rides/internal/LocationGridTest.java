@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2016 Uber Technologies, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.uber.sdk.android.rides.internal;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class LocationGridTest {
+
+    private static final String BASE_32 = "0123456789bcdefghjkmnpqrstuvwxyz";
+
+    @Rule
+    public ExpectedException expectedException = ExpectedException.none();
+
+    @Test
+    public void geohashGrid_shouldMatchGeohashBits() {
+        assertThat(toGeohash(new GeohashGrid(11).getCellId(57.64911, 10.40744), 11)).isEqualTo("u4pruydqqvj");
+        assertThat(toGeohash(new GeohashGrid(5).getCellId(37.7749, -122.4194), 5)).isEqualTo("9q8yy");
+    }
+
+    @Test
+    public void geohashGrid_whenNearbyLocations_shouldShareCell() {
+        GeohashGrid grid = new GeohashGrid(7);
+
+        assertThat(grid.getCellId(37.77490, -122.41940)).isEqualTo(grid.getCellId(37.77500, -122.41950));
+        assertThat(grid.getCellId(37.77490, -122.41940)).isNotEqualTo(grid.getCellId(37.78490, -122.41940));
+    }
+
+    @Test
+    public void geohashGrid_whenPrecisionOutOfRange_shouldThrow() {
+        expectedException.expect(IllegalStateException.class);
+        expectedException.expectMessage("Precision must be between 1 and 12.");
+
+        new GeohashGrid(13);
+    }
+
+    @Test
+    public void decimalGrid_whenRoundedCoordinatesEqual_shouldShareCell() {
+        DecimalGrid grid = new DecimalGrid(3);
+
+        assertThat(grid.getCellId(37.7749, -122.4194)).isEqualTo(grid.getCellId(37.7751, -122.4191));
+        assertThat(grid.getCellId(37.7749, -122.4194)).isNotEqualTo(grid.getCellId(37.7749, -122.4184));
+        assertThat(grid.getCellId(37.7749, -122.4194)).isNotEqualTo(grid.getCellId(-37.7749, -122.4194));
+    }
+
+    private static String toGeohash(long cellId, int precision) {
+        StringBuilder geohash = new StringBuilder();
+        for (int i = precision - 1; i >= 0; i--) {
+            geohash.append(BASE_32.charAt((int) ((cellId >>> (i * 5)) & 31)));
+        }
+        return geohash.toString();
+    }
+}
@@ -0,0 +1,260 @@
+/*
+ * Copyright (c) 2016 Uber Technologies, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.uber.sdk.android.rides.internal;
+
+import com.github.tomakehurst.wiremock.junit.WireMockRule;
+import com.squareup.moshi.Moshi;
+import com.uber.sdk.android.rides.EstimateApiException;
+import com.uber.sdk.android.rides.RideEstimate;
+import com.uber.sdk.android.rides.RideParameters;
+import com.uber.sdk.rides.client.error.ApiError;
+import com.uber.sdk.rides.client.internal.PrimitiveAdapter;
+import com.uber.sdk.rides.client.model.PriceEstimate;
+import com.uber.sdk.rides.client.model.TimeEstimate;
+import com.uber.sdk.rides.client.services.RidesService;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nonnull;
+
+import okhttp3.OkHttpClient;
+import retrofit2.Retrofit;
+import retrofit2.converter.moshi.MoshiConverterFactory;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.equalTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import static java.lang.Double.valueOf;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assert.fail;
+
+public class RideEstimateLoaderTest {
+
+    private static final String TIME_ESTIMATES_API = "/v1/estimates/time";
+    private static final String PRICE_ESTIMATES_API = "/v1/estimates/price";
+    private static final String PRODUCT_ID = "a1111c8c-c720-46c3-8534-2fcdd730040d";
+
+    @Rule
+    public WireMockRule wireMockRule = new WireMockRule(wireMockConfig().dynamicPort());
+
+    private RideEstimateLoader client;
+    private RideParameters rideParameters;
+
+    private EstimateCache estimateCache;
+    private EstimateRequestCoalescer coalescer;
+
+    @Before
+    public void setUp() {
+        estimateCache = new EstimateCache(EstimateCache.DEFAULT_MAX_SIZE, EstimateCache.DEFAULT_MAX_AGE_MILLIS,
+                Clock.SYSTEM);
+        coalescer = new EstimateRequestCoalescer();
+        client = new RideEstimateLoader(new EstimateLoader(createService(new Executor() {
+            @Override
+            public void execute(@Nonnull Runnable command) {
+                command.run();
+            }
+        }), estimateCache, coalescer));
+
+        rideParameters = new RideParameters.Builder()
+                .setProductId(PRODUCT_ID)
+                .setPickupLocation(valueOf(2.1f), valueOf(2.3f), null, null)
+                .setDropoffLocation(valueOf(1.2f), valueOf(1.3f), null, null)
+                .build();
+    }
+
+    @Test
+    public void getEstimateAsync_shouldReturnTimeAndPriceEstimate() throws Exception {
+        stubFor(get(urlPathEqualTo(TIME_ESTIMATES_API))
+                .withQueryParam("product_id", equalTo(PRODUCT_ID))
+                .willReturn(aResponse().withBodyFile("time_estimate_uberx.json")));
+        stubFor(get(urlPathEqualTo(PRICE_ESTIMATES_API)).willReturn(aResponse().withBodyFile("prices_estimate.json")));
+
+        RideEstimate estimate = client.getEstimateAsync(rideParameters).get(3, TimeUnit.SECONDS);
+
+        assertThat(estimate.getTimeEstimate().getEstimate()).isEqualTo(120);
+        assertThat(estimate.getPriceEstimate().getEstimate()).isEqualTo("$9-12");
+    }
+
+    @Test
+    public void getEstimateAsync_whenNoDropoff_shouldOnlyLoadTimeEstimate() throws Exception {
+        stubFor(get(urlPathEqualTo(TIME_ESTIMATES_API)).willReturn(aResponse().withBodyFile("times_estimate.json")));
+        rideParameters = new RideParameters.Builder()
+                .setPickupLocation(valueOf(2.1f), valueOf(2.3f), null, null)
+                .build();
+
+        RideEstimate estimate = client.getEstimateAsync(rideParameters).get(3, TimeUnit.SECONDS);
+
+        assertThat(estimate.getTimeEstimate().getEstimate()).isEqualTo(100);
+        assertThat(estimate.getPriceEstimate()).isNull();
+        wireMockRule.verify(0, getRequestedFor(urlPathEqualTo(PRICE_ESTIMATES_API)));
+    }
+
+    @Test
+    public void getEstimateAsync_whenProductMissing_shouldFailWithApiException() throws Exception {
+        stubFor(get(urlPathEqualTo(TIME_ESTIMATES_API))
+                .willReturn(aResponse().withBodyFile("times_estimate_no_uberx.json")));
+        stubFor(get(urlPathEqualTo(PRICE_ESTIMATES_API)).willReturn(aResponse().withBodyFile("prices_estimate.json")));
+
+        try {
+            client.getEstimateAsync(rideParameters).get(3, TimeUnit.SECONDS);
+            fail("Expected ExecutionException");
+        } catch (ExecutionException e) {
+            assertThat(e.getCause()).isInstanceOf(EstimateApiException.class);
+            assertThat(((EstimateApiException) e.getCause()).getApiError().getClientErrors().get(0).getStatus())
+                    .isEqualTo(404);
+        }
+    }
+
+    @Test
+    public void getEstimateAsync_fromManyThreads_shouldShareRequests() throws Exception {
+        stubFor(get(urlPathEqualTo(TIME_ESTIMATES_API))
+                .willReturn(aResponse().withBodyFile("time_estimate_uberx.json").withFixedDelay(200)));
+        stubFor(get(urlPathEqualTo(PRICE_ESTIMATES_API))
+                .willReturn(aResponse().withBodyFile("prices_estimate.json").withFixedDelay(200)));
+
+        final List<Future<RideEstimate>> futures = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    Future<RideEstimate> future = client.getEstimateAsync(rideParameters);
+                    synchronized (futures) {
+                        futures.add(future);
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        for (Future<RideEstimate> future : futures) {
+            assertThat(future.get(3, TimeUnit.SECONDS).getTimeEstimate().getEstimate()).isEqualTo(120);
+        }
+        wireMockRule.verify(1, getRequestedFor(urlPathEqualTo(TIME_ESTIMATES_API)));
+        wireMockRule.verify(1, getRequestedFor(urlPathEqualTo(PRICE_ESTIMATES_API)));
+    }
+
+    @Test
+    public void getEstimateAsync_whenCallbackExecutorBlocked_shouldLoad() throws Exception {
+        stubFor(get(urlPathEqualTo(TIME_ESTIMATES_API))
+                .withQueryParam("product_id", equalTo(PRODUCT_ID))
+                .willReturn(aResponse().withBodyFile("time_estimate_uberx.json")));
+        stubFor(get(urlPathEqualTo(PRICE_ESTIMATES_API)).willReturn(aResponse().withBodyFile("prices_estimate.json")));
+        client = new RideEstimateLoader(new EstimateLoader(createService(new BlockedExecutor()),
+                estimateCache, coalescer));
+
+        RideEstimate estimate = client.getEstimateAsync(rideParameters).get(3, TimeUnit.SECONDS);
+
+        assertThat(estimate.getTimeEstimate().getEstimate()).isEqualTo(120);
+        assertThat(estimate.getPriceEstimate().getEstimate()).isEqualTo("$9-12");
+    }
+
+    @Test
+    public void getEstimateAsync_whenRequestInFlightOnBlockedCallbackExecutor_shouldNotJoinIt() throws Exception {
+        stubFor(get(urlPathEqualTo(TIME_ESTIMATES_API))
+                .withQueryParam("product_id", equalTo(PRODUCT_ID))
+                .willReturn(aResponse().withBodyFile("time_estimate_uberx.json").withFixedDelay(200)));
+        stubFor(get(urlPathEqualTo(PRICE_ESTIMATES_API))
+                .willReturn(aResponse().withBodyFile("prices_estimate.json").withFixedDelay(200)));
+        EstimateLoader mainThreadLoader = new EstimateLoader(createService(new BlockedExecutor()),
+                estimateCache, coalescer);
+        mainThreadLoader.loadTimeEstimates(2.1f, 2.3f, PRODUCT_ID, new NoOpCallback<EstimateIndex<TimeEstimate>>());
+        mainThreadLoader.loadPriceEstimates(2.1f, 2.3f, 1.2f, 1.3f, PRODUCT_ID,
+                new NoOpCallback<EstimateIndex<PriceEstimate>>());
+
+        RideEstimate estimate = client.getEstimateAsync(rideParameters).get(3, TimeUnit.SECONDS);
+
+        assertThat(estimate.getTimeEstimate().getEstimate()).isEqualTo(120);
+        wireMockRule.verify(2, getRequestedFor(urlPathEqualTo(TIME_ESTIMATES_API)));
+        wireMockRule.verify(2, getRequestedFor(urlPathEqualTo(PRICE_ESTIMATES_API)));
+    }
+
+    @Test(expected = CancellationException.class)
+    public void cancel_shouldFailGet() throws Exception {
+        stubFor(get(urlPathEqualTo(TIME_ESTIMATES_API))
+                .willReturn(aResponse().withBodyFile("time_estimate_uberx.json").withFixedDelay(500)));
+        stubFor(get(urlPathEqualTo(PRICE_ESTIMATES_API)).willReturn(aResponse().withBodyFile("prices_estimate.json")));
+
+        Future<RideEstimate> future = client.getEstimateAsync(rideParameters);
+
+        assertThat(future.cancel(true)).isTrue();
+        assertThat(future.isDone()).isTrue();
+        future.get();
+    }
+
+    private RidesService createService(@Nonnull Executor callbackExecutor) {
+        return new Retrofit.Builder()
+                .addConverterFactory(MoshiConverterFactory.create(new Moshi.Builder()
+                        .add(new PrimitiveAdapter())
+                        .build()))
+                .callbackExecutor(callbackExecutor)
+                .client(new OkHttpClient.Builder().readTimeout(1, TimeUnit.SECONDS).build())
+                .baseUrl("http://localhost:" + wireMockRule.port())
+                .build()
+                .create(RidesService.class);
+    }
+
+    /**
+     * Stands in for a busy main thread by never running its tasks.
+     */
+    private static class BlockedExecutor implements Executor {
+
+        @Override
+        public void execute(@Nonnull Runnable command) {
+        }
+    }
+
+    private static class NoOpCallback<T> implements EstimateCallback<T> {
+
+        @Override
+        public void onEstimatesLoaded(@Nonnull T estimates) {
+        }
+
+        @Override
+        public void onError(@Nonnull ApiError apiError) {
+        }
+
+        @Override
+        public void onFailure(@Nonnull Throwable throwable) {
+        }
+    }
+}
@@ -28,7 +28,12 @@ import com.github.tomakehurst.wiremock.common.ConsoleNotifier;
 import com.github.tomakehurst.wiremock.core.WireMockConfiguration;
 import com.github.tomakehurst.wiremock.http.Fault;
 import com.github.tomakehurst.wiremock.junit.WireMockRule;
+import com.github.tomakehurst.wiremock.stubbing.Scenario;
 import com.squareup.moshi.Moshi;
+import com.uber.sdk.android.rides.EstimateLoadingPolicy;
+import com.uber.sdk.android.rides.EstimateTimeoutException;
+import com.uber.sdk.android.rides.ProgressiveRideRequestButtonCallback;
+import com.uber.sdk.android.rides.RetryPolicy;
 import com.uber.sdk.android.rides.RideParameters;
 import com.uber.sdk.android.rides.RideRequestButtonCallback;
 import com.uber.sdk.rides.client.error.ApiError;
@@ -44,18 +49,27 @@ import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
 import org.junit.runner.RunWith;
 import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.runners.MockitoJUnitRunner;
 
+import java.io.File;
+import java.util.Arrays;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 
 import javax.annotation.Nonnull;
 
+import okhttp3.Cache;
 import okhttp3.OkHttpClient;
 import okhttp3.logging.HttpLoggingInterceptor;
 import retrofit2.Call;
@@ -65,6 +79,7 @@ import retrofit2.converter.moshi.MoshiConverterFactory;
 import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
 import static com.github.tomakehurst.wiremock.client.WireMock.equalTo;
 import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
 import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
 import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
 import static com.github.tomakehurst.wiremock.client.WireMock.urlPathMatching;
@@ -72,7 +87,9 @@ import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMoc
 import static java.lang.Double.valueOf;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyZeroInteractions;
 
@@ -91,6 +108,9 @@ public class RideRequestButtonControllerTest {
     @Rule
     public ExpectedException expectedException = ExpectedException.none();
 
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
     private static final String PRODUCT_ID = "a1111c8c-c720-46c3-8534-2fcdd730040d";
 
     private static final float DROP_OFF_LATITUDE = 1.2f;
@@ -117,8 +137,18 @@ public class RideRequestButtonControllerTest {
     @Mock
     RideRequestButtonCallback callback;
 
+    @Mock
+    RideRequestButtonView otherView;
+
+    @Mock
+    ProgressiveRideRequestButtonCallback progressiveCallback;
+
     private RideRequestButtonController controller;
     private RideParameters rideParameters;
+    private EstimateCache estimateCache;
+    private FakeClock clock;
+    private EstimateLoader estimateLoader;
+    private EstimateRequestCoalescer coalescer;
 
     private RidesService service;
     private CountDownLatch countDownLatch;
@@ -140,6 +170,7 @@ public class RideRequestButtonControllerTest {
                 .build();
 
         okHttpClient = new OkHttpClient.Builder()
+                .addInterceptor(StreamingEstimateInterceptor.getInstance())
                 .addInterceptor(new HttpLoggingInterceptor()
                         .setLevel(HttpLoggingInterceptor.Level.BODY))
                 .readTimeout(1, TimeUnit.SECONDS)
@@ -162,7 +193,13 @@ public class RideRequestButtonControllerTest {
                 .build()
                 .create(RidesService.class);
 
-        controller = new RideRequestButtonController(view, service, callback);
+        clock = new FakeClock();
+        estimateCache = new EstimateCache(EstimateCache.DEFAULT_MAX_SIZE, EstimateCache.DEFAULT_MAX_AGE_MILLIS, clock);
+
+        coalescer = new EstimateRequestCoalescer();
+        estimateLoader = new EstimateLoader(service, estimateCache, coalescer);
+
+        controller = new RideRequestButtonController(view, estimateLoader, callback);
     }
 
     @After
@@ -221,6 +258,402 @@ public class RideRequestButtonControllerTest {
         assertThat(timeCaptor.getValue().getEstimate()).isEqualTo(100);
     }
 
+    @Test
+    public void testLoadInformationTwice_whenEstimatesCached_shouldNotCallApiAgain() throws Exception {
+        stubPriceApiSuccessful();
+
+        stubTimeApiWithProductIdSuccessful();
+
+        controller.loadRideInformation(rideParameters);
+
+        countDownLatch.await(3, TimeUnit.SECONDS);
+
+        controller.loadRideInformation(rideParameters);
+
+        verify(callback, times(2)).onRideInformationLoaded();
+        verify(view, times(2)).showEstimate(any(TimeEstimate.class), any(PriceEstimate.class));
+
+        wireMockRule.verify(1, getRequestedFor(urlPathEqualTo(TIME_ESTIMATES_API)));
+        wireMockRule.verify(1, getRequestedFor(urlPathEqualTo(PRICE_ESTIMATES_API)));
+        assertThat(estimateCache.getHitCount()).isEqualTo(2);
+        assertThat(estimateCache.getMissCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void testLoadInformationStaleWhileRevalidate_whenCachedEstimatesStale_shouldShowAndRefresh()
+            throws Exception {
+        stubPriceApiSuccessful();
+
+        stubTimeApiWithProductIdSuccessful();
+
+        controller.setLoadingPolicy(EstimateLoadingPolicy.staleWhileRevalidate(10, 30, TimeUnit.SECONDS));
+        controller.loadRideInformation(rideParameters);
+
+        countDownLatch.await(3, TimeUnit.SECONDS);
+
+        clock.time += TimeUnit.SECONDS.toMillis(20);
+        countDownLatch = new CountDownLatch(2);
+
+        controller.loadRideInformation(rideParameters);
+
+        verify(view, times(2)).showEstimate(any(TimeEstimate.class), any(PriceEstimate.class));
+
+        countDownLatch.await(3, TimeUnit.SECONDS);
+
+        wireMockRule.verify(2, getRequestedFor(urlPathEqualTo(TIME_ESTIMATES_API)));
+        wireMockRule.verify(2, getRequestedFor(urlPathEqualTo(PRICE_ESTIMATES_API)));
+        verify(view, times(2)).showEstimate(any(TimeEstimate.class), any(PriceEstimate.class));
+        verify(view, never()).showDefaultView();
+    }
+
+    @Test
+    public void testLoadInformationStaleWhileRevalidate_whenMaxStalenessAboveCacheMaxAge_shouldShowAndRefresh()
+            throws Exception {
+        stubPriceApiSuccessful();
+
+        stubTimeApiWithProductIdSuccessful();
+
+        controller.setLoadingPolicy(EstimateLoadingPolicy.staleWhileRevalidate(1, 10, TimeUnit.MINUTES));
+        controller.loadRideInformation(rideParameters);
+
+        countDownLatch.await(3, TimeUnit.SECONDS);
+
+        clock.time += EstimateCache.DEFAULT_MAX_AGE_MILLIS + TimeUnit.MINUTES.toMillis(4);
+        countDownLatch = new CountDownLatch(2);
+
+        controller.loadRideInformation(rideParameters);
+
+        verify(view, times(2)).showEstimate(any(TimeEstimate.class), any(PriceEstimate.class));
+
+        countDownLatch.await(3, TimeUnit.SECONDS);
+
+        wireMockRule.verify(2, getRequestedFor(urlPathEqualTo(TIME_ESTIMATES_API)));
+        wireMockRule.verify(2, getRequestedFor(urlPathEqualTo(PRICE_ESTIMATES_API)));
+        verify(view, never()).showDefaultView();
+    }
+
+    @Test
+    public void testLoadInformationStaleWhileRevalidate_whenCachedEstimatesFresh_shouldNotRefresh()
+            throws Exception {
+        stubPriceApiSuccessful();
+
+        stubTimeApiWithProductIdSuccessful();
+
+        controller.setLoadingPolicy(EstimateLoadingPolicy.staleWhileRevalidate(10, 30, TimeUnit.SECONDS));
+        controller.loadRideInformation(rideParameters);
+
+        countDownLatch.await(3, TimeUnit.SECONDS);
+
+        clock.time += TimeUnit.SECONDS.toMillis(5);
+        controller.loadRideInformation(rideParameters);
+
+        verify(view, times(2)).showEstimate(any(TimeEstimate.class), any(PriceEstimate.class));
+        wireMockRule.verify(1, getRequestedFor(urlPathEqualTo(TIME_ESTIMATES_API)));
+        wireMockRule.verify(1, getRequestedFor(urlPathEqualTo(PRICE_ESTIMATES_API)));
+        assertThat(estimateCache.getHitCount()).isEqualTo(2);
+        assertThat(estimateCache.getMissCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void testLoadInformationWithHttpCache_whenColdStartPastMaxAge_shouldShowStoredEstimatesAndRevalidate()
+            throws Exception {
+        stubPriceApiSuccessful();
+
+        stubTimeApiWithProductIdSuccessful();
+
+        File cacheDirectory = temporaryFolder.newFolder();
+        Cache firstRunCache = new Cache(cacheDirectory, 1024 * 1024);
+        new RideRequestButtonController(otherView,
+                new EstimateLoader(createHttpCacheService(firstRunCache), estimateCache, coalescer),
+                null).loadRideInformation(rideParameters);
+
+        countDownLatch.await(3, TimeUnit.SECONDS);
+        verify(otherView).showEstimate(any(TimeEstimate.class), any(PriceEstimate.class));
+        firstRunCache.close();
+
+        stubPriceApi(aResponse().withFault(Fault.EMPTY_RESPONSE));
+        stubTimeApi(aResponse().withFault(Fault.EMPTY_RESPONSE));
+
+        EstimateLoader coldStartLoader = new EstimateLoader(
+                createHttpCacheService(new Cache(cacheDirectory, 1024 * 1024)),
+                new EstimateCache(EstimateCache.DEFAULT_MAX_SIZE, EstimateCache.DEFAULT_MAX_AGE_MILLIS, clock),
+                new EstimateRequestCoalescer());
+        coldStartLoader.setStoredEstimateInterceptor(StoredEstimateInterceptor.getInstance());
+        controller = new RideRequestButtonController(view, coldStartLoader, callback);
+        countDownLatch = new CountDownLatch(4);
+
+        controller.loadRideInformation(rideParameters);
+
+        countDownLatch.await(3, TimeUnit.SECONDS);
+
+        ArgumentCaptor<PriceEstimate> priceCaptor = ArgumentCaptor.forClass(PriceEstimate.class);
+        ArgumentCaptor<TimeEstimate> timeCaptor = ArgumentCaptor.forClass(TimeEstimate.class);
+
+        verify(view).showEstimate(timeCaptor.capture(), priceCaptor.capture());
+        assertThat(priceCaptor.getValue().getEstimate()).isEqualTo("$9-12");
+        assertThat(timeCaptor.getValue().getEstimate()).isEqualTo(120);
+        verify(view, never()).showDefaultView();
+        wireMockRule.verify(2, getRequestedFor(urlPathEqualTo(TIME_ESTIMATES_API)));
+        wireMockRule.verify(2, getRequestedFor(urlPathEqualTo(PRICE_ESTIMATES_API)));
+    }
+
+    @Test
+    public void testLoadStoredEstimates_shouldMeasureStalenessWithCacheClock() throws Exception {
+        stubPriceApiSuccessful();
+
+        stubTimeApiWithProductIdSuccessful();
+
+        File cacheDirectory = temporaryFolder.newFolder();
+        Cache firstRunCache = new Cache(cacheDirectory, 1024 * 1024);
+        new RideRequestButtonController(otherView,
+                new EstimateLoader(createHttpCacheService(firstRunCache), estimateCache, coalescer),
+                null).loadRideInformation(rideParameters);
+
+        countDownLatch.await(3, TimeUnit.SECONDS);
+        verify(otherView).showEstimate(any(TimeEstimate.class), any(PriceEstimate.class));
+        firstRunCache.close();
+
+        EstimateLoader storedLoader = new EstimateLoader(
+                createHttpCacheService(new Cache(cacheDirectory, 1024 * 1024)),
+                new EstimateCache(EstimateCache.DEFAULT_MAX_SIZE, EstimateCache.DEFAULT_MAX_AGE_MILLIS, clock),
+                new EstimateRequestCoalescer());
+        storedLoader.setStoredEstimateInterceptor(StoredEstimateInterceptor.getInstance());
+        final BlockingQueue<EstimateIndex<TimeEstimate>> loaded = new LinkedBlockingQueue<>();
+        EstimateCallback<EstimateIndex<TimeEstimate>> storedCallback =
+                new EstimateCallback<EstimateIndex<TimeEstimate>>() {
+                    @Override
+                    public void onEstimatesLoaded(@Nonnull EstimateIndex<TimeEstimate> estimates) {
+                        loaded.add(estimates);
+                    }
+
+                    @Override
+                    public void onError(@Nonnull ApiError apiError) {
+                    }
+
+                    @Override
+                    public void onFailure(@Nonnull Throwable throwable) {
+                    }
+                };
+
+        clock.time = System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(10);
+        storedLoader.loadStoredTimeEstimates(PICKUP_LATITUDE, PICKUP_LONGITUDE, PRODUCT_ID,
+                TimeUnit.MINUTES.toMillis(20), storedCallback);
+        assertThat(loaded.poll(3, TimeUnit.SECONDS).isEmpty()).isFalse();
+
+        clock.time = System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(30);
+        storedLoader.loadStoredTimeEstimates(PICKUP_LATITUDE, PICKUP_LONGITUDE, PRODUCT_ID,
+                TimeUnit.MINUTES.toMillis(20), storedCallback);
+        assertThat(loaded.poll(3, TimeUnit.SECONDS).isEmpty()).isTrue();
+    }
+
+    @Test
+    public void testLoadInformationWithHttpCache_whenNothingStored_shouldLoadFromNetwork() throws Exception {
+        stubPriceApiSuccessful();
+
+        stubTimeApiWithProductIdSuccessful();
+
+        estimateLoader = new EstimateLoader(
+                createHttpCacheService(new Cache(temporaryFolder.newFolder(), 1024 * 1024)), estimateCache, coalescer);
+        estimateLoader.setStoredEstimateInterceptor(StoredEstimateInterceptor.getInstance());
+        controller = new RideRequestButtonController(view, estimateLoader, callback);
+        countDownLatch = new CountDownLatch(4);
+
+        controller.loadRideInformation(rideParameters);
+
+        countDownLatch.await(3, TimeUnit.SECONDS);
+
+        verify(callback).onRideInformationLoaded();
+        verify(view).showEstimate(any(TimeEstimate.class), any(PriceEstimate.class));
+        wireMockRule.verify(1, getRequestedFor(urlPathEqualTo(TIME_ESTIMATES_API)));
+        wireMockRule.verify(1, getRequestedFor(urlPathEqualTo(PRICE_ESTIMATES_API)));
+    }
+
+    @Test
+    public void testLoadInformationStaleWhileRevalidate_whenRefreshFails_shouldKeepEstimate() throws Exception {
+        stubPriceApiSuccessful();
+
+        stubTimeApiWithProductIdSuccessful();
+
+        controller.setLoadingPolicy(EstimateLoadingPolicy.staleWhileRevalidate(10, 30, TimeUnit.SECONDS));
+        controller.loadRideInformation(rideParameters);
+
+        countDownLatch.await(3, TimeUnit.SECONDS);
+
+        wireMockRule.resetMappings();
+        stubTimeApi(aResponse().withStatus(500));
+        stubPriceApi(aResponse().withStatus(500));
+        clock.time += TimeUnit.SECONDS.toMillis(20);
+        countDownLatch = new CountDownLatch(2);
+
+        controller.loadRideInformation(rideParameters);
+
+        countDownLatch.await(3, TimeUnit.SECONDS);
+
+        verify(view, times(2)).showEstimate(any(TimeEstimate.class), any(PriceEstimate.class));
+        verify(view, never()).showDefaultView();
+        verify(callback, never()).onError(any(ApiError.class));
+    }
+
+    @Test
+    public void testLoadInformation_whenIdenticalRequestsInFlight_shouldShareCalls() throws Exception {
+        stubPriceApiSuccessful();
+
+        stubTimeApiWithProductIdSuccessful();
+
+        RideRequestButtonController otherController =
+                new RideRequestButtonController(otherView, estimateLoader, null);
+
+        controller.loadRideInformation(rideParameters);
+        otherController.loadRideInformation(rideParameters);
+
+        countDownLatch.await(3, TimeUnit.SECONDS);
+
+        verify(view).showEstimate(any(TimeEstimate.class), any(PriceEstimate.class));
+        verify(otherView).showEstimate(any(TimeEstimate.class), any(PriceEstimate.class));
+
+        wireMockRule.verify(1, getRequestedFor(urlPathEqualTo(TIME_ESTIMATES_API)));
+        wireMockRule.verify(1, getRequestedFor(urlPathEqualTo(PRICE_ESTIMATES_API)));
+    }
+
+    @Test
+    public void testLoadInformation_whenOneSharingControllerDestroyed_shouldStillLoadOther() throws Exception {
+        stubPriceApiSuccessful();
+
+        stubTimeApiWithProductIdSuccessful();
+
+        RideRequestButtonController otherController =
+                new RideRequestButtonController(otherView, estimateLoader, null);
+
+        controller.loadRideInformation(rideParameters);
+        otherController.loadRideInformation(rideParameters);
+        controller.destroy();
+
+        countDownLatch.await(3, TimeUnit.SECONDS);
+
+        verifyZeroInteractions(callback);
+        verifyZeroInteractions(view);
+        verify(otherView).showEstimate(any(TimeEstimate.class), any(PriceEstimate.class));
+    }
+
+    @Test
+    public void testBatchLoad_whenProductSpecificButtonsBound_shouldShareAllProductsCalls() throws Exception {
+        stubPriceApiSuccessful();
+
+        stubTimeApiSuccessful();
+
+        RideParameters noProductParameters = new RideParameters.Builder()
+                .setDropoffLocation(valueOf(DROP_OFF_LATITUDE),
+                        valueOf(DROP_OFF_LONGITUDE), DROP_OFF_NICKNAME, DROP_OFF_ADDRESS)
+                .setPickupLocation(valueOf(PICKUP_LATITUDE), valueOf(PICKUP_LONGITUDE),
+                        PICKUP_NICKNAME, PICKUP_ADDRESS)
+                .build();
+
+        EstimateBatchLoader batchLoader = new EstimateBatchLoader(estimateLoader, estimateCache);
+        batchLoader.load(Arrays.asList(rideParameters, noProductParameters));
+        batchLoader.bind(view, rideParameters, callback);
+        batchLoader.bind(otherView, noProductParameters, null);
+
+        countDownLatch.await(3, TimeUnit.SECONDS);
+
+        ArgumentCaptor<TimeEstimate> timeCaptor = ArgumentCaptor.forClass(TimeEstimate.class);
+        verify(view).showEstimate(timeCaptor.capture(), any(PriceEstimate.class));
+        assertThat(timeCaptor.getValue().getEstimate()).isEqualTo(120);
+        verify(otherView).showEstimate(timeCaptor.capture(), any(PriceEstimate.class));
+        assertThat(timeCaptor.getValue().getEstimate()).isEqualTo(100);
+        verify(callback).onRideInformationLoaded();
+
+        wireMockRule.verify(1, getRequestedFor(urlPathEqualTo(TIME_ESTIMATES_API)));
+        wireMockRule.verify(1, getRequestedFor(urlPathEqualTo(PRICE_ESTIMATES_API)));
+    }
+
+    @Test
+    public void testLoadInformation_whenEstimatesPrefetched_shouldNotCallApiAgain() throws Exception {
+        stubPriceApiSuccessful();
+
+        stubTimeApiSuccessful();
+
+        new EstimateBatchLoader(estimateLoader, estimateCache).load(Arrays.asList(rideParameters));
+
+        countDownLatch.await(3, TimeUnit.SECONDS);
+
+        controller.loadRideInformation(rideParameters);
+
+        ArgumentCaptor<TimeEstimate> timeCaptor = ArgumentCaptor.forClass(TimeEstimate.class);
+        verify(view).showEstimate(timeCaptor.capture(), any(PriceEstimate.class));
+        assertThat(timeCaptor.getValue().getEstimate()).isEqualTo(120);
+        verify(callback).onRideInformationLoaded();
+
+        wireMockRule.verify(1, getRequestedFor(urlPathEqualTo(TIME_ESTIMATES_API)));
+        wireMockRule.verify(1, getRequestedFor(urlPathEqualTo(PRICE_ESTIMATES_API)));
+    }
+
+    @Test
+    public void testBatchLoad_whenRequestsComplete_shouldReleaseThem() throws Exception {
+        stubPriceApiSuccessful();
+
+        stubTimeApiSuccessful();
+
+        EstimateBatchLoader batchLoader = new EstimateBatchLoader(estimateLoader, estimateCache);
+        batchLoader.load(Arrays.asList(rideParameters));
+
+        assertThat(countDownLatch.await(3, TimeUnit.SECONDS)).isTrue();
+        assertThat(batchLoader.getBatchRequestCount()).isEqualTo(0);
+
+        batchLoader.load(Arrays.asList(rideParameters));
+
+        assertThat(batchLoader.getBatchRequestCount()).isEqualTo(0);
+        wireMockRule.verify(1, getRequestedFor(urlPathEqualTo(TIME_ESTIMATES_API)));
+        wireMockRule.verify(1, getRequestedFor(urlPathEqualTo(PRICE_ESTIMATES_API)));
+    }
+
+    @Test
+    public void testBatchLoad_whenViewUnbound_shouldNotShowEstimates() throws Exception {
+        stubPriceApiSuccessful();
+
+        stubTimeApiSuccessful();
+
+        EstimateBatchLoader batchLoader = new EstimateBatchLoader(estimateLoader, estimateCache);
+        batchLoader.load(Arrays.asList(rideParameters));
+        batchLoader.bind(view, rideParameters, callback);
+        batchLoader.bind(otherView, rideParameters, null);
+        batchLoader.unbind(view);
+
+        countDownLatch.await(3, TimeUnit.SECONDS);
+
+        verifyZeroInteractions(callback);
+        verifyZeroInteractions(view);
+        verify(otherView).showEstimate(any(TimeEstimate.class), any(PriceEstimate.class));
+    }
+
+    @Test
+    public void testBatchLoad_whenRowsEqual_shouldLoadAndBindOnce() throws Exception {
+        stubPriceApiSuccessful();
+
+        stubTimeApiSuccessful();
+
+        RideParameters equalParameters = new RideParameters.Builder()
+                .setProductId(PRODUCT_ID)
+                .setDropoffLocation(valueOf(DROP_OFF_LATITUDE),
+                        valueOf(DROP_OFF_LONGITUDE), DROP_OFF_NICKNAME, DROP_OFF_ADDRESS)
+                .setPickupLocation(valueOf(PICKUP_LATITUDE), valueOf(PICKUP_LONGITUDE),
+                        PICKUP_NICKNAME, PICKUP_ADDRESS)
+                .build();
+
+        EstimateBatchLoader batchLoader = new EstimateBatchLoader(estimateLoader, estimateCache);
+        batchLoader.load(Arrays.asList(rideParameters, equalParameters));
+        batchLoader.bind(view, rideParameters, callback);
+
+        countDownLatch.await(3, TimeUnit.SECONDS);
+
+        batchLoader.bind(view, equalParameters, callback);
+
+        verify(view, times(1)).showEstimate(any(TimeEstimate.class), any(PriceEstimate.class));
+        verify(callback, times(1)).onRideInformationLoaded();
+
+        wireMockRule.verify(1, getRequestedFor(urlPathEqualTo(TIME_ESTIMATES_API)));
+        wireMockRule.verify(1, getRequestedFor(urlPathEqualTo(PRICE_ESTIMATES_API)));
+    }
+
     @Test
     public void testLoadInformation_whenEstimatesSuccessfulButViewDestroyed() throws Exception {
         stubPriceApiSuccessful();
@@ -524,11 +957,457 @@ public class RideRequestButtonControllerTest {
     }
 
     @Test
-    public void testLoadInformation_wheNoPickup() {
-        rideParameters = new RideParameters.Builder()
-                .setProductId(PRODUCT_ID)
-                .setDropoffLocation(valueOf(DROP_OFF_LATITUDE),
-                        valueOf(DROP_OFF_LONGITUDE), DROP_OFF_NICKNAME, DROP_OFF_ADDRESS)
+    public void testLoadInformation_whenPriceFailsOnceWithRetryPolicy_shouldRetry() throws Exception {
+        stubTimeApiWithProductIdSuccessful();
+        stubPriceApiFailingOnce();
+
+        countDownLatch = new CountDownLatch(3);
+        controller.setRetryPolicy(new RetryPolicy.Builder()
+                .setMaxAttempts(2)
+                .setDelay(0, 0, TimeUnit.MILLISECONDS)
+                .build());
+        controller.loadRideInformation(rideParameters);
+
+        countDownLatch.await(3, TimeUnit.SECONDS);
+
+        verify(callback).onRideInformationLoaded();
+        verify(callback, never()).onError(any(Throwable.class));
+        verify(view).showEstimate(any(TimeEstimate.class), any(PriceEstimate.class));
+
+        wireMockRule.verify(2, getRequestedFor(urlPathEqualTo(PRICE_ESTIMATES_API)));
+    }
+
+    @Test
+    public void testLoadInformation_whenPriceKeepsFailingWithRetryPolicy_shouldStopAfterMaxAttempts()
+            throws Exception {
+        stubTimeApiWithProductIdSuccessful();
+        stubPriceApi(aResponse().withFault(Fault.RANDOM_DATA_THEN_CLOSE));
+
+        countDownLatch = new CountDownLatch(3);
+        controller.setRetryPolicy(new RetryPolicy.Builder()
+                .setMaxAttempts(2)
+                .setDelay(0, 0, TimeUnit.MILLISECONDS)
+                .build());
+        controller.loadRideInformation(rideParameters);
+
+        countDownLatch.await(3, TimeUnit.SECONDS);
+
+        verify(callback).onError(any(Throwable.class));
+        verify(view).showDefaultView();
+
+        wireMockRule.verify(2, getRequestedFor(urlPathEqualTo(PRICE_ESTIMATES_API)));
+    }
+
+    @Test
+    public void testLoadInformation_whenDestroyedBeforeRetry_shouldNotRetry() throws Exception {
+        stubTimeApiWithProductIdSuccessful();
+        stubPriceApiFailingOnce();
+
+        controller.setRetryPolicy(new RetryPolicy.Builder()
+                .setMaxAttempts(2)
+                .setDelay(300, 300, TimeUnit.MILLISECONDS)
+                .setJitter(0)
+                .build());
+        controller.loadRideInformation(rideParameters);
+
+        countDownLatch.await(3, TimeUnit.SECONDS);
+        controller.destroy();
+        Thread.sleep(600);
+
+        verifyZeroInteractions(callback);
+        wireMockRule.verify(1, getRequestedFor(urlPathEqualTo(PRICE_ESTIMATES_API)));
+    }
+
+    @Test
+    public void testLoadInformation_whenPriceExceedsLatencyBudget_shouldShowTimeOnlyAndReportTimeout()
+            throws Exception {
+        stubTimeApiWithProductIdSuccessful();
+        stubPriceApi(aResponse().withBodyFile("prices_estimate.json").withFixedDelay(2000));
+
+        FakeScheduler scheduler = new FakeScheduler();
+        controller.setScheduler(scheduler);
+        controller.setLatencyBudget(800, TimeUnit.MILLISECONDS);
+        countDownLatch = new CountDownLatch(1);
+        controller.loadRideInformation(rideParameters);
+
+        countDownLatch.await(3, TimeUnit.SECONDS);
+
+        assertThat(scheduler.delays).containsExactly(800L);
+        scheduler.runAll();
+
+        ArgumentCaptor<TimeEstimate> timeCaptor = ArgumentCaptor.forClass(TimeEstimate.class);
+        verify(view).showEstimate(timeCaptor.capture());
+        assertThat(timeCaptor.getValue().getEstimate()).isEqualTo(120);
+
+        ArgumentCaptor<Throwable> errorCaptor = ArgumentCaptor.forClass(Throwable.class);
+        verify(callback).onError(errorCaptor.capture());
+        EstimateTimeoutException timeout = (EstimateTimeoutException) errorCaptor.getValue();
+        assertThat(timeout.isTimeEstimateMissing()).isFalse();
+        assertThat(timeout.isPriceEstimateMissing()).isTrue();
+        assertThat(timeout.getLatencyBudgetMillis()).isEqualTo(800);
+
+        verify(callback, never()).onRideInformationLoaded();
+        verify(view, never()).showEstimate(any(TimeEstimate.class), any(PriceEstimate.class));
+        verify(view, never()).showDefaultView();
+    }
+
+    @Test
+    public void testLoadInformation_whenNothingLoadedWithinLatencyBudget_shouldShowDefaultView() throws Exception {
+        stubTimeApi(aResponse().withBodyFile("time_estimate_uberx.json").withFixedDelay(2000));
+        stubPriceApi(aResponse().withBodyFile("prices_estimate.json").withFixedDelay(2000));
+
+        FakeScheduler scheduler = new FakeScheduler();
+        controller.setScheduler(scheduler);
+        controller.setLatencyBudget(800, TimeUnit.MILLISECONDS);
+        controller.loadRideInformation(rideParameters);
+        scheduler.runAll();
+
+        ArgumentCaptor<Throwable> errorCaptor = ArgumentCaptor.forClass(Throwable.class);
+        verify(callback).onError(errorCaptor.capture());
+        EstimateTimeoutException timeout = (EstimateTimeoutException) errorCaptor.getValue();
+        assertThat(timeout.isTimeEstimateMissing()).isTrue();
+        assertThat(timeout.isPriceEstimateMissing()).isTrue();
+        verify(view).showDefaultView();
+    }
+
+    @Test
+    public void testLoadInformation_whenLoadedWithinLatencyBudget_shouldNotReportTimeout() throws Exception {
+        stubTimeApiWithProductIdSuccessful();
+        stubPriceApiSuccessful();
+
+        FakeScheduler scheduler = new FakeScheduler();
+        controller.setScheduler(scheduler);
+        controller.setLatencyBudget(800, TimeUnit.MILLISECONDS);
+        controller.loadRideInformation(rideParameters);
+
+        countDownLatch.await(3, TimeUnit.SECONDS);
+        scheduler.runAll();
+
+        verify(callback).onRideInformationLoaded();
+        verify(callback, never()).onError(any(Throwable.class));
+        verify(view).showEstimate(any(TimeEstimate.class), any(PriceEstimate.class));
+        verify(view, never()).showEstimate(any(TimeEstimate.class));
+    }
+
+    @Test
+    public void testLoadInformation_whenNoLatencyBudget_shouldNotScheduleDeadline() throws Exception {
+        stubTimeApiWithProductIdSuccessful();
+        stubPriceApiSuccessful();
+
+        FakeScheduler scheduler = new FakeScheduler();
+        controller.setScheduler(scheduler);
+        controller.loadRideInformation(rideParameters);
+
+        countDownLatch.await(3, TimeUnit.SECONDS);
+
+        assertThat(scheduler.tasks).isEmpty();
+    }
+
+    @Test
+    public void testLoadInformationProgressive_whenPriceSlower_shouldShowTimeFirst() throws Exception {
+        stubTimeApiWithProductIdSuccessful();
+        stubPriceApi(aResponse().withBodyFile("prices_estimate.json").withFixedDelay(300));
+
+        controller = new RideRequestButtonController(view, estimateLoader, progressiveCallback);
+        controller.setProgressiveRendering(true);
+        controller.loadRideInformation(rideParameters);
+
+        countDownLatch.await(3, TimeUnit.SECONDS);
+
+        InOrder inOrder = inOrder(view, progressiveCallback);
+        inOrder.verify(view).showEstimate(any(TimeEstimate.class));
+        inOrder.verify(progressiveCallback).onTimeEstimateLoaded();
+        inOrder.verify(view).showEstimate(any(TimeEstimate.class), any(PriceEstimate.class));
+        inOrder.verify(progressiveCallback).onRideInformationLoaded();
+        verify(progressiveCallback, never()).onError(any(Throwable.class));
+    }
+
+    @Test
+    public void testLoadInformationProgressive_whenPriceFails_shouldKeepTimeShown() throws Exception {
+        stubTimeApiWithProductIdSuccessful();
+        stubPriceApi(aResponse().withFault(Fault.RANDOM_DATA_THEN_CLOSE).withFixedDelay(300));
+
+        controller = new RideRequestButtonController(view, estimateLoader, progressiveCallback);
+        controller.setProgressiveRendering(true);
+        controller.loadRideInformation(rideParameters);
+
+        countDownLatch.await(3, TimeUnit.SECONDS);
+
+        verify(view).showEstimate(any(TimeEstimate.class));
+        verify(progressiveCallback).onTimeEstimateLoaded();
+        verify(progressiveCallback).onError(any(Throwable.class));
+        verify(progressiveCallback, never()).onRideInformationLoaded();
+        verify(view, never()).showDefaultView();
+    }
+
+    @Test
+    public void testLoadInformationNotProgressive_whenPriceSlower_shouldShowBothTogether() throws Exception {
+        stubTimeApiWithProductIdSuccessful();
+        stubPriceApi(aResponse().withBodyFile("prices_estimate.json").withFixedDelay(300));
+
+        controller = new RideRequestButtonController(view, estimateLoader, progressiveCallback);
+        controller.loadRideInformation(rideParameters);
+
+        countDownLatch.await(3, TimeUnit.SECONDS);
+
+        verify(view, never()).showEstimate(any(TimeEstimate.class));
+        verify(progressiveCallback, never()).onTimeEstimateLoaded();
+        verify(view).showEstimate(any(TimeEstimate.class), any(PriceEstimate.class));
+        verify(progressiveCallback).onRideInformationLoaded();
+    }
+
+    @Test
+    public void testLoadInformationStreaming_shouldShowEstimatesWithoutCachingFullResponse() throws Exception {
+        stubPriceApiSuccessful();
+        stubTimeApiWithProductIdSuccessful();
+
+        controller.setStreamingParse(true);
+        controller.loadRideInformation(rideParameters);
+
+        countDownLatch.await(3, TimeUnit.SECONDS);
+
+        ArgumentCaptor<PriceEstimate> priceCaptor = ArgumentCaptor.forClass(PriceEstimate.class);
+        ArgumentCaptor<TimeEstimate> timeCaptor = ArgumentCaptor.forClass(TimeEstimate.class);
+
+        verify(view).showEstimate(timeCaptor.capture(), priceCaptor.capture());
+        assertThat(priceCaptor.getValue().getEstimate()).isEqualTo("$9-12");
+        assertThat(timeCaptor.getValue().getEstimate()).isEqualTo(120);
+        verify(callback).onRideInformationLoaded();
+
+        EstimateKey priceKey = estimateCache.newPriceKey(PICKUP_LATITUDE, PICKUP_LONGITUDE, DROP_OFF_LATITUDE,
+                DROP_OFF_LONGITUDE);
+        assertThat(estimateCache.getPriceEstimates(priceKey)).isNull();
+        assertThat(estimateCache.getPriceEstimates(priceKey.forSingleEstimate(PRODUCT_ID)).getEstimates()).hasSize(1);
+    }
+
+    @Test
+    public void testLoadInformationStreaming_whenFullResponseCached_shouldUseIt() throws Exception {
+        stubPriceApiSuccessful();
+        stubTimeApiWithProductIdSuccessful();
+
+        controller.loadRideInformation(rideParameters);
+        countDownLatch.await(3, TimeUnit.SECONDS);
+
+        controller.setStreamingParse(true);
+        controller.loadRideInformation(rideParameters);
+
+        verify(callback, times(2)).onRideInformationLoaded();
+        wireMockRule.verify(1, getRequestedFor(urlPathEqualTo(PRICE_ESTIMATES_API)));
+    }
+
+    @Test
+    public void testLoadInformationPaused_shouldLoadOnResume() throws Exception {
+        stubPriceApiSuccessful();
+        stubTimeApiWithProductIdSuccessful();
+
+        controller.pause();
+        controller.loadRideInformation(rideParameters);
+
+        assertThat(controller.isPaused()).isTrue();
+        verifyZeroInteractions(view);
+        wireMockRule.verify(0, getRequestedFor(urlPathEqualTo(TIME_ESTIMATES_API)));
+
+        controller.resume();
+        countDownLatch.await(3, TimeUnit.SECONDS);
+
+        verify(view).showEstimate(any(TimeEstimate.class), any(PriceEstimate.class));
+        verify(callback).onRideInformationLoaded();
+    }
+
+    @Test
+    public void testPauseWhileLoading_shouldSkipViewUpdatesUntilResumed() throws Exception {
+        stubTimeApiWithProductIdSuccessful();
+        stubPriceApi(aResponse().withBodyFile("prices_estimate.json").withFixedDelay(300));
+
+        controller.loadRideInformation(rideParameters);
+        controller.pause();
+
+        countDownLatch.await(3, TimeUnit.SECONDS);
+
+        verify(view, never()).showEstimate(any(TimeEstimate.class), any(PriceEstimate.class));
+        verify(callback, never()).onRideInformationLoaded();
+        verify(callback, never()).onError(any(Throwable.class));
+
+        countDownLatch = new CountDownLatch(1);
+        controller.resume();
+        countDownLatch.await(3, TimeUnit.SECONDS);
+
+        verify(view).showEstimate(any(TimeEstimate.class), any(PriceEstimate.class));
+        verify(callback).onRideInformationLoaded();
+        wireMockRule.verify(2, getRequestedFor(urlPathEqualTo(PRICE_ESTIMATES_API)));
+    }
+
+    @Test
+    public void testPauseAfterLoaded_shouldNotReloadOnResume() throws Exception {
+        stubPriceApiSuccessful();
+        stubTimeApiWithProductIdSuccessful();
+
+        controller.loadRideInformation(rideParameters);
+        countDownLatch.await(3, TimeUnit.SECONDS);
+
+        controller.pause();
+        controller.resume();
+
+        assertThat(controller.isPaused()).isFalse();
+        verify(view).showEstimate(any(TimeEstimate.class), any(PriceEstimate.class));
+        verify(callback).onRideInformationLoaded();
+        wireMockRule.verify(1, getRequestedFor(urlPathEqualTo(PRICE_ESTIMATES_API)));
+    }
+
+    @Test
+    public void testRefresh_whenEstimatesUnchanged_shouldReloadWithoutUpdatingView() throws Exception {
+        stubPriceApiSuccessful();
+        stubTimeApiWithProductIdSuccessful();
+
+        controller.loadRideInformation(rideParameters);
+        countDownLatch.await(3, TimeUnit.SECONDS);
+
+        countDownLatch = new CountDownLatch(2);
+        controller.refresh();
+        countDownLatch.await(3, TimeUnit.SECONDS);
+
+        verify(view).showEstimate(any(TimeEstimate.class), any(PriceEstimate.class));
+        verify(callback).onRideInformationLoaded();
+        wireMockRule.verify(2, getRequestedFor(urlPathEqualTo(TIME_ESTIMATES_API)));
+        wireMockRule.verify(2, getRequestedFor(urlPathEqualTo(PRICE_ESTIMATES_API)));
+    }
+
+    @Test
+    public void testRefresh_whenPaused_shouldNotReload() throws Exception {
+        stubPriceApiSuccessful();
+        stubTimeApiWithProductIdSuccessful();
+
+        controller.loadRideInformation(rideParameters);
+        countDownLatch.await(3, TimeUnit.SECONDS);
+
+        controller.pause();
+        controller.refresh();
+
+        wireMockRule.verify(1, getRequestedFor(urlPathEqualTo(PRICE_ESTIMATES_API)));
+    }
+
+    @Test
+    public void testRefresh_whenNothingShown_shouldNotLoad() {
+        controller.refresh();
+
+        verifyZeroInteractions(view);
+        wireMockRule.verify(0, getRequestedFor(urlPathEqualTo(TIME_ESTIMATES_API)));
+    }
+
+    @Test
+    public void testLoadInformationWithExecutors_shouldOnlyUpdateViewOnDeliveryExecutor() throws Exception {
+        stubPriceApiSuccessful();
+        stubTimeApiWithProductIdSuccessful();
+
+        ExecutorService processingExecutor = Executors.newSingleThreadExecutor();
+        final BlockingQueue<Runnable> deliveries = new LinkedBlockingQueue<>();
+        controller.setExecutors(processingExecutor, new Executor() {
+            @Override
+            public void execute(@Nonnull Runnable command) {
+                deliveries.add(command);
+            }
+        });
+
+        controller.loadRideInformation(rideParameters);
+
+        Runnable first = deliveries.poll(3, TimeUnit.SECONDS);
+        Runnable second = deliveries.poll(3, TimeUnit.SECONDS);
+        processingExecutor.shutdown();
+
+        assertThat(first).isNotNull();
+        assertThat(second).isNotNull();
+        verifyZeroInteractions(view);
+        verifyZeroInteractions(callback);
+
+        first.run();
+        second.run();
+
+        ArgumentCaptor<PriceEstimate> priceCaptor = ArgumentCaptor.forClass(PriceEstimate.class);
+        ArgumentCaptor<TimeEstimate> timeCaptor = ArgumentCaptor.forClass(TimeEstimate.class);
+
+        verify(view).showEstimate(timeCaptor.capture(), priceCaptor.capture());
+        assertThat(priceCaptor.getValue().getEstimate()).isEqualTo("$9-12");
+        assertThat(timeCaptor.getValue().getEstimate()).isEqualTo(120);
+        verify(callback).onRideInformationLoaded();
+    }
+
+    @Test
+    public void testLoadInformationWithExecutors_shouldNotUseRetrofitCallbackExecutor() throws Exception {
+        stubPriceApiSuccessful();
+        stubTimeApiWithProductIdSuccessful();
+
+        ExecutorService processingExecutor = Executors.newSingleThreadExecutor();
+        final BlockingQueue<Runnable> deliveries = new LinkedBlockingQueue<>();
+        controller.setExecutors(processingExecutor, new Executor() {
+            @Override
+            public void execute(@Nonnull Runnable command) {
+                deliveries.add(command);
+            }
+        });
+
+        controller.loadRideInformation(rideParameters);
+
+        assertThat(deliveries.poll(3, TimeUnit.SECONDS)).isNotNull();
+        assertThat(deliveries.poll(3, TimeUnit.SECONDS)).isNotNull();
+        processingExecutor.shutdown();
+
+        assertThat(countDownLatch.getCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void testLoadInformationWithExecutors_whenRequestSharedWithDefaultController_shouldDeliverOnMainThread()
+            throws Exception {
+        stubPriceApi(aResponse().withBodyFile("prices_estimate.json").withFixedDelay(300));
+        stubFor(get(urlPathMatching(TIME_ESTIMATES_API))
+                .withQueryParam("product_id", equalTo(PRODUCT_ID))
+                .willReturn(aResponse().withBodyFile("time_estimate_uberx.json").withFixedDelay(300)));
+
+        ExecutorService processingExecutor = Executors.newSingleThreadExecutor();
+        final BlockingQueue<Runnable> deliveries = new LinkedBlockingQueue<>();
+        controller.setExecutors(processingExecutor, new Executor() {
+            @Override
+            public void execute(@Nonnull Runnable command) {
+                deliveries.add(command);
+            }
+        });
+
+        final BlockingQueue<Runnable> mainThreadDeliveries = new LinkedBlockingQueue<>();
+        RideRequestButtonController otherController = new RideRequestButtonController(otherView,
+                new EstimateLoader(service, estimateCache, coalescer), null);
+        otherController.setMainThreadExecutor(new Executor() {
+            @Override
+            public void execute(@Nonnull Runnable command) {
+                mainThreadDeliveries.add(command);
+            }
+        });
+
+        controller.loadRideInformation(rideParameters);
+        otherController.loadRideInformation(rideParameters);
+
+        assertThat(deliveries.poll(3, TimeUnit.SECONDS)).isNotNull();
+        assertThat(deliveries.poll(3, TimeUnit.SECONDS)).isNotNull();
+        Runnable first = mainThreadDeliveries.poll(3, TimeUnit.SECONDS);
+        Runnable second = mainThreadDeliveries.poll(3, TimeUnit.SECONDS);
+        processingExecutor.shutdown();
+
+        assertThat(first).isNotNull();
+        assertThat(second).isNotNull();
+        verifyZeroInteractions(otherView);
+
+        first.run();
+        second.run();
+
+        verify(otherView).showEstimate(any(TimeEstimate.class), any(PriceEstimate.class));
+        wireMockRule.verify(1, getRequestedFor(urlPathEqualTo(TIME_ESTIMATES_API)));
+        wireMockRule.verify(1, getRequestedFor(urlPathEqualTo(PRICE_ESTIMATES_API)));
+    }
+
+    @Test
+    public void testLoadInformation_wheNoPickup() {
+        rideParameters = new RideParameters.Builder()
+                .setProductId(PRODUCT_ID)
+                .setDropoffLocation(valueOf(DROP_OFF_LATITUDE),
+                        valueOf(DROP_OFF_LONGITUDE), DROP_OFF_NICKNAME, DROP_OFF_ADDRESS)
                 .build();
 
         expectedException.expect(NullPointerException.class);
@@ -605,6 +1484,48 @@ public class RideRequestButtonControllerTest {
                 .willReturn(responseBuilder));
     }
 
+    /**
+     * @return a {@link RidesService} storing responses in httpCache, stale as soon as they are stored.
+     */
+    private RidesService createHttpCacheService(Cache httpCache) {
+        OkHttpClient client = new OkHttpClient.Builder()
+                .cache(httpCache)
+                .addInterceptor(StreamingEstimateInterceptor.getInstance())
+                .addInterceptor(StoredEstimateInterceptor.getInstance())
+                .addNetworkInterceptor(new EstimateResponseCacheInterceptor(0))
+                .readTimeout(1, TimeUnit.SECONDS)
+                .retryOnConnectionFailure(false)
+                .build();
+
+        return new Retrofit.Builder()
+                .addConverterFactory(MoshiConverterFactory.create(new Moshi.Builder()
+                        .add(new PrimitiveAdapter())
+                        .build()))
+                .callbackExecutor(new Executor() {
+                    @Override
+                    public void execute(@Nonnull Runnable command) {
+                        command.run();
+                        countDownLatch.countDown();
+                    }
+                })
+                .client(client)
+                .baseUrl("http://localhost:" + wireMockRule.port())
+                .build()
+                .create(RidesService.class);
+    }
+
+    private static void stubPriceApiFailingOnce() {
+        stubFor(get(urlPathEqualTo(PRICE_ESTIMATES_API))
+                .inScenario("Price retry")
+                .whenScenarioStateIs(Scenario.STARTED)
+                .willReturn(aResponse().withFault(Fault.RANDOM_DATA_THEN_CLOSE))
+                .willSetStateTo("Failed once"));
+        stubFor(get(urlPathEqualTo(PRICE_ESTIMATES_API))
+                .inScenario("Price retry")
+                .whenScenarioStateIs("Failed once")
+                .willReturn(aResponse().withBodyFile("prices_estimate.json")));
+    }
+
     private static void stubPriceApiSuccessful() {
         stubPriceApi(aResponse().withBodyFile("prices_estimate.json"));
     }
@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2016 Uber Technologies, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.uber.sdk.android.rides.internal;
+
+import com.uber.sdk.rides.client.ServerTokenSession;
+import com.uber.sdk.rides.client.Session;
+import com.uber.sdk.rides.client.SessionConfiguration;
+import com.uber.sdk.rides.client.services.RidesService;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import okhttp3.OkHttpClient;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RidesServiceRegistryTest {
+
+    private RidesServiceRegistry registry;
+
+    @Before
+    public void setUp() throws Exception {
+        registry = new RidesServiceRegistry(new OkHttpClient());
+    }
+
+    @Test
+    public void getService_whenSameSession_shouldReuseService() {
+        Session session = newSession();
+
+        RidesService service = registry.getService(session);
+
+        assertThat(registry.getService(session)).isSameAs(service);
+        assertThat(registry.getServiceCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void getService_whenDifferentSessions_shouldCreateServicePerSession() {
+        RidesService service = registry.getService(newSession());
+
+        assertThat(registry.getService(newSession())).isNotSameAs(service);
+        assertThat(registry.getServiceCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void getService_whenTooManySessions_shouldEvictLeastRecentlyUsed() {
+        Session firstSession = newSession();
+        RidesService firstService = registry.getService(firstSession);
+
+        for (int i = 0; i < RidesServiceRegistry.MAX_SESSIONS; i++) {
+            registry.getService(newSession());
+        }
+
+        assertThat(registry.getServiceCount()).isEqualTo(RidesServiceRegistry.MAX_SESSIONS);
+        assertThat(registry.getService(firstSession)).isNotSameAs(firstService);
+    }
+
+    @Test
+    public void getConnectionCount_whenNoRequests_shouldBeZero() {
+        registry.getService(newSession());
+
+        assertThat(registry.getConnectionCount()).isEqualTo(0);
+        assertThat(registry.getIdleConnectionCount()).isEqualTo(0);
+    }
+
+    private static Session newSession() {
+        return new ServerTokenSession(new SessionConfiguration.Builder()
+                .setClientId("clientId")
+                .setServerToken("serverToken")
+                .build());
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2016 Uber Technologies, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.uber.sdk.android.rides.internal;
+
+import com.github.tomakehurst.wiremock.junit.WireMockRule;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+
+import okhttp3.Cache;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class StoredEstimateInterceptorTest {
+
+    private static final String TIME_ESTIMATES_API = "/v1/estimates/time";
+
+    @Rule
+    public WireMockRule wireMockRule = new WireMockRule(wireMockConfig().dynamicPort());
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final StoredEstimateInterceptor interceptor = new StoredEstimateInterceptor();
+
+    @Test
+    public void intercept_whenColdStartPastMaxAge_shouldServeStoredResponseWithoutNetwork() throws Exception {
+        stubFor(get(urlPathEqualTo(TIME_ESTIMATES_API)).willReturn(aResponse().withBody("{\"times\":[]}")));
+        File directory = temporaryFolder.newFolder();
+        Cache firstRunCache = new Cache(directory, 1024 * 1024);
+        execute(createClient(firstRunCache), false);
+        firstRunCache.close();
+
+        OkHttpClient client = createClient(new Cache(directory, 1024 * 1024));
+        Response response = execute(client, true);
+
+        assertThat(response.code()).isEqualTo(200);
+        assertThat(response.body().string()).isEqualTo("{\"times\":[]}");
+        assertThat(response.networkResponse()).isNull();
+        wireMockRule.verify(1, getRequestedFor(urlPathEqualTo(TIME_ESTIMATES_API)));
+    }
+
+    @Test
+    public void intercept_whenColdStartPastMaxAgeAndNotForced_shouldRevalidate() throws Exception {
+        stubFor(get(urlPathEqualTo(TIME_ESTIMATES_API)).willReturn(aResponse().withBody("{\"times\":[]}")));
+        File directory = temporaryFolder.newFolder();
+        Cache firstRunCache = new Cache(directory, 1024 * 1024);
+        execute(createClient(firstRunCache), false);
+        firstRunCache.close();
+
+        OkHttpClient client = createClient(new Cache(directory, 1024 * 1024));
+        execute(client, true).body().close();
+        Response response = execute(client, false);
+
+        assertThat(response.networkResponse()).isNotNull();
+        wireMockRule.verify(2, getRequestedFor(urlPathEqualTo(TIME_ESTIMATES_API)));
+    }
+
+    @Test
+    public void intercept_whenNothingStored_shouldFailWithoutNetwork() throws Exception {
+        stubFor(get(urlPathEqualTo(TIME_ESTIMATES_API)).willReturn(aResponse().withBody("{\"times\":[]}")));
+
+        Response response = execute(createClient(new Cache(temporaryFolder.newFolder(), 1024 * 1024)), true);
+
+        assertThat(response.code()).isEqualTo(504);
+        wireMockRule.verify(0, getRequestedFor(urlPathEqualTo(TIME_ESTIMATES_API)));
+    }
+
+    /**
+     * @return a client storing estimate responses in cache, stale as soon as they are stored.
+     */
+    private OkHttpClient createClient(Cache cache) {
+        return new OkHttpClient.Builder()
+                .cache(cache)
+                .addInterceptor(interceptor)
+                .addNetworkInterceptor(new EstimateResponseCacheInterceptor(0))
+                .build();
+    }
+
+    private Response execute(OkHttpClient client, boolean forceCache) throws Exception {
+        Request request = new Request.Builder()
+                .url("http://localhost:" + wireMockRule.port() + TIME_ESTIMATES_API)
+                .build();
+        if (forceCache) {
+            interceptor.forceCache(request);
+        }
+        Response response = client.newCall(request).execute();
+        if (!forceCache) {
+            response.body().string();
+        }
+        return response;
+    }
+}
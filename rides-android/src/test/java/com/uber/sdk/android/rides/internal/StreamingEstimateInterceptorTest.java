@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2016 Uber Technologies, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.uber.sdk.android.rides.internal;
+
+import com.github.tomakehurst.wiremock.junit.WireMockRule;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okio.Buffer;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class StreamingEstimateInterceptorTest {
+
+    private static final String PRICE_ESTIMATES_API = "/v1/estimates/price";
+    private static final String PRICES = "{\"prices\":["
+            + "{\"product_id\":\"pool\",\"estimate\":\"$5.75\",\"minimum\":null,\"surge_multiplier\":1.0},"
+            + "{\"estimate\":\"$9-12\",\"high_estimate\":12,\"product_id\":\"uberx\"},"
+            + "{\"product_id\":\"uberx\",\"estimate\":\"$20\"}]}";
+
+    @Rule
+    public WireMockRule wireMockRule = new WireMockRule(wireMockConfig().dynamicPort());
+
+    @Test
+    public void filter_whenProductId_shouldKeepFirstMatchingEstimate() throws Exception {
+        assertThat(StreamingEstimateInterceptor.filter(new Buffer().writeUtf8(PRICES), "uberx"))
+                .isEqualTo("{\"prices\":[{\"estimate\":\"$9-12\",\"high_estimate\":12,\"product_id\":\"uberx\"}]}");
+    }
+
+    @Test
+    public void filter_whenNoProductId_shouldKeepFirstEstimate() throws Exception {
+        assertThat(StreamingEstimateInterceptor.filter(new Buffer().writeUtf8(PRICES), null))
+                .isEqualTo("{\"prices\":[{\"product_id\":\"pool\",\"estimate\":\"$5.75\",\"surge_multiplier\":1.0}]}");
+    }
+
+    @Test
+    public void filter_whenNoMatchingEstimate_shouldReturnEmptyArray() throws Exception {
+        assertThat(StreamingEstimateInterceptor.filter(new Buffer().writeUtf8(PRICES), "black"))
+                .isEqualTo("{\"prices\":[]}");
+    }
+
+    @Test
+    public void filter_whenTimeEstimates_shouldKeepArrayName() throws Exception {
+        String times = "{\"times\":[{\"product_id\":\"pool\",\"estimate\":60},"
+                + "{\"product_id\":\"uberx\",\"estimate\":120}]}";
+
+        assertThat(StreamingEstimateInterceptor.filter(new Buffer().writeUtf8(times), "uberx"))
+                .isEqualTo("{\"times\":[{\"product_id\":\"uberx\",\"estimate\":120}]}");
+    }
+
+    @Test
+    public void filter_whenNoEstimatesArray_shouldReturnEmptyObject() throws Exception {
+        assertThat(StreamingEstimateInterceptor.filter(new Buffer().writeUtf8("{\"code\":\"unknown\"}"), null))
+                .isEqualTo("{}");
+    }
+
+    @Test
+    public void filter_whenEstimateFound_shouldStopReading() throws Exception {
+        Buffer source = new Buffer().writeUtf8(PRICES);
+
+        StreamingEstimateInterceptor.filter(source, null);
+
+        assertThat(source.readUtf8()).contains("\"estimate\":\"$20\"");
+    }
+
+    @Test
+    public void intercept_whenRequestRegistered_shouldReduceResponse() throws Exception {
+        stubFor(get(urlPathEqualTo(PRICE_ESTIMATES_API)).willReturn(aResponse().withBody(PRICES)));
+        StreamingEstimateInterceptor interceptor = new StreamingEstimateInterceptor();
+        OkHttpClient client = new OkHttpClient.Builder().addInterceptor(interceptor).build();
+        Request request = newRequest();
+
+        interceptor.filter(request, "uberx");
+
+        assertThat(client.newCall(request).execute().body().string())
+                .isEqualTo("{\"prices\":[{\"estimate\":\"$9-12\",\"high_estimate\":12,\"product_id\":\"uberx\"}]}");
+    }
+
+    @Test
+    public void intercept_whenRequestNotRegistered_shouldKeepResponse() throws Exception {
+        stubFor(get(urlPathEqualTo(PRICE_ESTIMATES_API)).willReturn(aResponse().withBody(PRICES)));
+        StreamingEstimateInterceptor interceptor = new StreamingEstimateInterceptor();
+        OkHttpClient client = new OkHttpClient.Builder().addInterceptor(interceptor).build();
+
+        interceptor.filter(newRequest(), "uberx");
+
+        assertThat(client.newCall(newRequest()).execute().body().string()).isEqualTo(PRICES);
+    }
+
+    private Request newRequest() {
+        return new Request.Builder()
+                .url("http://localhost:" + wireMockRule.port() + PRICE_ESTIMATES_API)
+                .build();
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2016 Uber Technologies, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.uber.sdk.android.rides.internal;
+
+import com.uber.sdk.android.rides.LazyLoadingPolicy;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+
+@RunWith(MockitoJUnitRunner.class)
+public class VisibilityGateTest {
+
+    @Mock
+    VisibilityGate.Listener listener;
+
+    private FakeScheduler scheduler;
+    private VisibilityGate gate;
+
+    @Before
+    public void setUp() {
+        scheduler = new FakeScheduler();
+        gate = new VisibilityGate(LazyLoadingPolicy.whenVisible(0.5f, 500, TimeUnit.MILLISECONDS), listener,
+                scheduler);
+    }
+
+    @Test
+    public void setVisibleFraction_whenEnoughVisible_shouldBecomeVisibleAfterDwellTime() {
+        gate.setVisibleFraction(0.6f);
+
+        assertThat(gate.isVisible()).isFalse();
+        assertThat(scheduler.delays).containsExactly(500L);
+        verifyZeroInteractions(listener);
+
+        scheduler.runAll();
+
+        assertThat(gate.isVisible()).isTrue();
+        verify(listener).onVisibilityChanged(true);
+    }
+
+    @Test
+    public void setVisibleFraction_whenTooLittleVisible_shouldNotScheduleDwell() {
+        gate.setVisibleFraction(0.4f);
+
+        assertThat(scheduler.tasks).isEmpty();
+        assertThat(gate.isVisible()).isFalse();
+    }
+
+    @Test
+    public void setVisibleFraction_whenScrolledOffBeforeDwellTime_shouldNotBecomeVisible() {
+        gate.setVisibleFraction(1f);
+        gate.setVisibleFraction(0.1f);
+
+        assertThat(scheduler.tasks).isEmpty();
+        assertThat(gate.isVisible()).isFalse();
+        verifyZeroInteractions(listener);
+    }
+
+    @Test
+    public void setVisibleFraction_whenStillVisible_shouldNotRestartDwell() {
+        gate.setVisibleFraction(0.6f);
+        gate.setVisibleFraction(0.8f);
+
+        assertThat(scheduler.tasks).hasSize(1);
+    }
+
+    @Test
+    public void setVisibleFraction_whenScrolledOffAfterVisible_shouldBecomeHidden() {
+        gate.setVisibleFraction(1f);
+        scheduler.runAll();
+
+        gate.setVisibleFraction(0f);
+
+        assertThat(gate.isVisible()).isFalse();
+        verify(listener).onVisibilityChanged(false);
+    }
+
+    @Test
+    public void reset_shouldCancelDwellWithoutNotifying() {
+        gate.setVisibleFraction(1f);
+
+        gate.reset();
+
+        assertThat(scheduler.tasks).isEmpty();
+        assertThat(gate.isVisible()).isFalse();
+        verifyZeroInteractions(listener);
+    }
+}